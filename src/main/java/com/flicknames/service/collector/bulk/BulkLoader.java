@@ -0,0 +1,240 @@
+package com.flicknames.service.collector.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Bulk row loader that bypasses JPA for large imports.
+ *
+ * On Postgres rows are streamed with COPY FROM STDIN. Everywhere else (H2 in dev)
+ * they are written as multi-row INSERT statements. Entities with IDENTITY ids
+ * cannot be JDBC-batched by Hibernate, so this is the only way to avoid one
+ * round trip per row.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkLoader {
+
+    /**
+     * Rows per multi-row INSERT statement (keeps bind parameter counts well below driver limits)
+     */
+    static final int INSERT_CHUNK_SIZE = 500;
+
+    /**
+     * Default number of rows a {@link BulkWriter} buffers before flushing
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 50_000;
+
+    /**
+     * Rows fetched per round trip when streaming large result sets
+     */
+    static final int STREAM_FETCH_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final DatabasePlatform databasePlatform;
+
+    /**
+     * Open a buffered writer for the given table and columns
+     */
+    public BulkWriter writer(String table, String... columns) {
+        return new BulkWriter(this, table, columns, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Insert rows and return their generated ids in insertion order.
+     * Used for small dimension tables (e.g. ssa_names) whose ids are needed
+     * before dependent rows can be written.
+     */
+    public List<Long> insertReturningIds(String table, String[] columns, List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) {
+            return ids;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            for (int from = 0; from < rows.size(); from += INSERT_CHUNK_SIZE) {
+                List<Object[]> chunk = rows.subList(from, Math.min(from + INSERT_CHUNK_SIZE, rows.size()));
+                try (PreparedStatement ps = connection.prepareStatement(
+                        multiRowInsertSql(table, columns, chunk.size()), new String[]{"id"})) {
+                    bind(ps, chunk);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Bulk insert into " + table + " failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        if (ids.size() != rows.size()) {
+            throw new IllegalStateException(String.format(
+                    "Bulk insert into %s returned %d ids for %d rows", table, ids.size(), rows.size()));
+        }
+        return ids;
+    }
+
+    /**
+     * Stream a large result set row by row without materializing it.
+     * Outside a transaction auto-commit is switched off for the duration of the
+     * query so Postgres uses a server-side cursor and honours the fetch size.
+     */
+    public void stream(String sql, RowCallbackHandler handler, Object... params) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        boolean manageAutoCommit = false;
+        try {
+            manageAutoCommit = !DataSourceUtils.isConnectionTransactional(connection, dataSource)
+                    && connection.getAutoCommit();
+            if (manageAutoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        handler.processRow(rs);
+                    }
+                }
+            }
+            if (manageAutoCommit) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Streaming query failed: " + sql, e);
+        } finally {
+            if (manageAutoCommit) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    log.warn("Failed to restore auto-commit after streaming query", e);
+                }
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Write rows using the fastest path available for the current database
+     */
+    void write(String table, String[] columns, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (databasePlatform.isPostgres()) {
+                copy(connection, table, columns, rows);
+            } else {
+                insert(connection, table, columns, rows);
+            }
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Bulk write into " + table + " failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void copy(Connection connection, String table, String[] columns, List<Object[]> rows)
+            throws SQLException, IOException {
+        StringBuilder csv = new StringBuilder(rows.size() * 32);
+        for (Object[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                appendCsvValue(csv, row[i]);
+            }
+            csv.append('\n');
+        }
+
+        String sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(csv.toString()));
+    }
+
+    private void insert(Connection connection, String table, String[] columns, List<Object[]> rows)
+            throws SQLException {
+        for (int from = 0; from < rows.size(); from += INSERT_CHUNK_SIZE) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + INSERT_CHUNK_SIZE, rows.size()));
+            try (PreparedStatement ps = connection.prepareStatement(multiRowInsertSql(table, columns, chunk.size()))) {
+                bind(ps, chunk);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static String multiRowInsertSql(String table, String[] columns, int rowCount) {
+        String placeholders = "(" + "?, ".repeat(columns.length - 1) + "?)";
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+                .append(table)
+                .append(" (")
+                .append(String.join(", ", columns))
+                .append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        return sql.toString();
+    }
+
+    private static void bind(PreparedStatement ps, List<Object[]> rows) throws SQLException {
+        int index = 1;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                ps.setObject(index++, value);
+            }
+        }
+    }
+
+    private static void appendCsvValue(StringBuilder csv, Object value) {
+        if (value == null) {
+            return; // Unquoted empty field is NULL in CSV COPY format
+        }
+        // bytea hex input format
+        String text = value instanceof byte[] bytes ? "\\x" + HexFormat.of().formatHex(bytes) : value.toString();
+        boolean needsQuoting = text.isEmpty();
+        for (int i = 0; i < text.length() && !needsQuoting; i++) {
+            char c = text.charAt(i);
+            needsQuoting = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuoting) {
+            csv.append(text);
+            return;
+        }
+        csv.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append('"');
+    }
+}
@@ -0,0 +1,69 @@
+package com.flicknames.service.collector.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers rows for a single table and hands them to {@link BulkLoader} in large batches.
+ * Each flush is committed independently unless the caller has an active transaction.
+ */
+public class BulkWriter implements AutoCloseable {
+
+    private final BulkLoader loader;
+    private final String table;
+    private final String[] columns;
+    private final int bufferSize;
+    private final List<Object[]> buffer;
+
+    private long rowsWritten;
+
+    BulkWriter(BulkLoader loader, String table, String[] columns, int bufferSize) {
+        this.loader = loader;
+        this.table = table;
+        this.columns = columns;
+        this.bufferSize = bufferSize;
+        this.buffer = new ArrayList<>(Math.min(bufferSize, 10_000));
+    }
+
+    /**
+     * Queue a row; values must be in the same order as the writer's columns
+     */
+    public void add(Object... values) {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected %d values for %s but got %d", columns.length, table, values.length));
+        }
+        buffer.add(values);
+        if (buffer.size() >= bufferSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all buffered rows to the database
+     */
+    public void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        loader.write(table, columns, buffer);
+        rowsWritten += buffer.size();
+        buffer.clear();
+    }
+
+    /**
+     * Drop buffered rows without writing them, e.g. when the work they belong to was rolled back
+     */
+    public void discard() {
+        buffer.clear();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
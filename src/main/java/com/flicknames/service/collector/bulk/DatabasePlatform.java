@@ -0,0 +1,53 @@
+package com.flicknames.service.collector.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Detects which database the application is connected to so bulk paths can
+ * pick Postgres-specific SQL (COPY, ON CONFLICT, UPDATE ... FROM) or fall back
+ * to portable statements that also run on H2.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DatabasePlatform {
+
+    private final DataSource dataSource;
+
+    private volatile Boolean postgres;
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                String product = connection.getMetaData().getDatabaseProductName();
+                result = product != null && product.toLowerCase().contains("postgres");
+                log.info("Detected database platform: {}", product);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to detect database platform", e);
+            }
+            postgres = result;
+        }
+        return result;
+    }
+
+    /**
+     * DDL for a temp table dropped when the current transaction commits or rolls back; a table
+     * created earlier in the same transaction is kept, so later batches can reuse it
+     *
+     * @param columns parenthesized column definitions
+     */
+    public String temporaryTableDdl(String table, String columns) {
+        return isPostgres()
+                ? "CREATE TEMPORARY TABLE IF NOT EXISTS " + table + " " + columns + " ON COMMIT DROP"
+                // TRANSACTIONAL keeps H2 from committing the open transaction on DDL
+                : "CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS " + table + " " + columns
+                        + " ON COMMIT DROP TRANSACTIONAL";
+    }
+}
@@ -0,0 +1,68 @@
+package com.flicknames.service.collector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "imdb.import")
+@Getter
+@Setter
+public class IMDbImportConfig {
+
+    /**
+     * Data lines per transaction in chunked imports; the checkpoint advances after each chunk
+     */
+    private int chunkSize = 20_000;
+
+    /**
+     * Migrate the credits table to uk_credit_movie_person_role_job on startup, deleting duplicate
+     * credits. Credit imports are refused while the key is missing.
+     */
+    private boolean migrateCreditKey = false;
+
+    /**
+     * Pipelined ingest settings for datasets without an entry in {@link #pipelines}
+     */
+    private Pipeline pipeline = new Pipeline();
+
+    /**
+     * Pipelined ingest settings per dataset, keyed like title-principals or name-basics.
+     * Settings missing from an entry take the built-in defaults.
+     */
+    private Map<String, Pipeline> pipelines = new HashMap<>();
+
+    public Pipeline pipelineFor(String datasetKey) {
+        return pipelines.getOrDefault(datasetKey, pipeline);
+    }
+
+    @Getter
+    @Setter
+    public static class Pipeline {
+
+        /**
+         * Parser threads that parse and filter blocks of lines.
+         * 0 = one per available processor, less one each for the reader and the writer.
+         */
+        private int workers = 0;
+
+        /**
+         * Size of the decompressed, line-aligned blocks the reader hands to the parsers
+         */
+        private int blockSizeKb = 1024;
+
+        /**
+         * Blocks waiting for the parsers, and parsed blocks waiting for the writer, before the
+         * stage feeding them pauses
+         */
+        private int queueCapacity = 8;
+
+        public int effectiveWorkers() {
+            return workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+        }
+    }
+}
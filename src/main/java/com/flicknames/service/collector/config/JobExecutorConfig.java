@@ -0,0 +1,50 @@
+package com.flicknames.service.collector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "jobs")
+@Getter
+@Setter
+public class JobExecutorConfig {
+
+    /**
+     * SSA imports. One worker by default: an import holds a year's rows and key dictionary in
+     * memory and keeps several database connections busy while ranking.
+     */
+    private Pool ssa = new Pool(1, 4);
+
+    /**
+     * IMDb dataset imports. One worker by default: an import holds every imported id in memory
+     * and writes in large bulk batches.
+     */
+    private Pool imdb = new Pool(1, 4);
+
+    /**
+     * TMDB collections. One worker by default: collections share the API rate limit.
+     */
+    private Pool tmdb = new Pool(1, 2);
+
+    /**
+     * Finished jobs kept in the registry for status queries
+     */
+    private int historySize = 100;
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int threads;
+        private int queueCapacity; // Jobs waiting for a worker before submissions are rejected
+
+        public Pool() {
+        }
+
+        public Pool(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.flicknames.service.collector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ssa.import")
+@Getter
+@Setter
+public class SsaImportConfig {
+
+    /**
+     * Worker threads used to decompress and parse year files in parallel imports.
+     * 0 = one per available processor.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Parsed year files allowed to wait for the writer before parsing pauses
+     */
+    private int maxPendingYears = 8;
+
+    /**
+     * Years ranked concurrently by parallel ranking runs. Each worker holds a database
+     * connection for its year, so runs are capped at the connection pool size minus 2.
+     */
+    private int rankingParallelism = 4;
+
+    /**
+     * Memory-mapped SSA series snapshot, rewritten after each import and reused on startup.
+     * Empty = keep the series store on the heap and rebuild it from the database on every boot.
+     */
+    private String snapshotPath = "data/ssa-series.snapshot";
+
+    public int effectiveParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
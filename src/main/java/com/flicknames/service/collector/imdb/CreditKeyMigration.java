@@ -0,0 +1,120 @@
+package com.flicknames.service.collector.imdb;
+
+import com.flicknames.service.collector.config.IMDbImportConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves existing credits tables to the uk_credit_movie_person_role_job key.
+ *
+ * ddl-auto only adds constraints, and fails to add this one while duplicates exist. With
+ * {@code imdb.import.migrate-credit-key} set, startup deletes duplicate credits (keeping the
+ * oldest row), drops the old unique constraint including character_id and adds the new one
+ * whenever either is needed; a failed migration stops startup. Credit imports check
+ * {@link #requireKey} first, since their inserts rely on the key.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CreditKeyMigration {
+
+    static final String CONSTRAINT = "uk_credit_movie_person_role_job";
+
+    // Unique constraints on credits covering a given column
+    private static final String UNIQUE_CONSTRAINTS_SQL = """
+        SELECT DISTINCT tc.constraint_name
+        FROM information_schema.table_constraints tc
+        JOIN information_schema.key_column_usage k
+          ON k.constraint_schema = tc.constraint_schema AND k.constraint_name = tc.constraint_name
+        WHERE LOWER(tc.table_name) = 'credits' AND tc.constraint_type = 'UNIQUE' AND LOWER(k.column_name) = ?
+        """;
+
+    private static final String COUNT_DUPLICATES = """
+        SELECT COALESCE(SUM(d.copies - 1), 0) FROM (
+            SELECT COUNT(*) AS copies FROM credits
+            GROUP BY movie_id, person_id, role_type, job
+            HAVING COUNT(*) > 1) d
+        """;
+
+    private static final String DELETE_DUPLICATES = """
+        DELETE FROM credits WHERE id IN (
+            SELECT id FROM (SELECT id, ROW_NUMBER() OVER (
+                                PARTITION BY movie_id, person_id, role_type, job ORDER BY id) AS copy
+                            FROM credits) d
+            WHERE d.copy > 1)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IMDbImportConfig importConfig;
+
+    private volatile boolean keyInPlace;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (importConfig.isMigrateCreditKey()) {
+            migrate();
+        } else if (!hasKey()) {
+            log.warn("credits has no {} key; credit imports are refused until imdb.import.migrate-credit-key=true "
+                    + "migrates it", CONSTRAINT);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the credits table has no uk_credit_movie_person_role_job key
+     */
+    public void requireKey() {
+        if (!hasKey()) {
+            throw new IllegalStateException("credits has no " + CONSTRAINT + " key; restart with "
+                    + "imdb.import.migrate-credit-key=true to delete duplicate credits and add it");
+        }
+    }
+
+    /**
+     * @return number of duplicate credits deleted
+     */
+    int migrate() {
+        List<String> oldConstraints = jdbcTemplate.queryForList(UNIQUE_CONSTRAINTS_SQL, String.class, "character_id");
+        boolean keyExists = hasKey();
+        if (keyExists && oldConstraints.isEmpty()) {
+            return 0;
+        }
+
+        Long deleted = transactionTemplate.execute(status -> {
+            long duplicates = 0;
+            if (!keyExists) {
+                duplicates = jdbcTemplate.queryForObject(COUNT_DUPLICATES, Long.class);
+                log.warn("Deleting {} duplicate credits before adding {}", duplicates, CONSTRAINT);
+                if (duplicates > 0) {
+                    jdbcTemplate.update(DELETE_DUPLICATES);
+                }
+            }
+            for (String name : oldConstraints) {
+                jdbcTemplate.execute("ALTER TABLE credits DROP CONSTRAINT " + name);
+            }
+            if (!keyExists) {
+                jdbcTemplate.execute("ALTER TABLE credits ADD CONSTRAINT " + CONSTRAINT
+                        + " UNIQUE (movie_id, person_id, role_type, job)");
+            }
+            return duplicates;
+        });
+        keyInPlace = true;
+        log.info("Migrated credits to {}: {} duplicates deleted, dropped {}", CONSTRAINT, deleted, oldConstraints);
+        return deleted != null ? deleted.intValue() : 0;
+    }
+
+    private boolean hasKey() {
+        if (!keyInPlace) {
+            keyInPlace = jdbcTemplate.queryForList(UNIQUE_CONSTRAINTS_SQL, String.class, "job").stream()
+                    .anyMatch(name -> name.equalsIgnoreCase(CONSTRAINT));
+        }
+        return keyInPlace;
+    }
+}
@@ -0,0 +1,111 @@
+package com.flicknames.service.collector.imdb;
+
+import com.flicknames.service.collector.bulk.BulkLoader;
+import com.flicknames.service.collector.bulk.BulkWriter;
+import com.flicknames.service.collector.bulk.DatabasePlatform;
+import com.flicknames.service.entity.Credit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Id-only credit writer for IMDb principals.
+ *
+ * Credits are buffered as plain ids, bulk-loaded into a transaction-scoped staging table and
+ * moved into credits with one INSERT ... SELECT per batch. Duplicates are dropped by the
+ * uk_credit_movie_person_role_job key (ON CONFLICT ... DO NOTHING; NOT EXISTS on H2), so no entity
+ * is loaded and no existence query runs per row. {@link CreditKeyMigration} puts that key in place
+ * on existing databases. Batches must be flushed inside a transaction.
+ */
+final class IMDbCreditWriter implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 20_000;
+
+    private static final String STAGING_TABLE = "imdb_credit_staging";
+
+    private static final String STAGING_COLUMNS = """
+        (movie_id BIGINT NOT NULL, person_id BIGINT NOT NULL, character_id BIGINT,
+         role_type VARCHAR(10) NOT NULL, department VARCHAR(100), job VARCHAR(100) NOT NULL, cast_order INTEGER)
+        """;
+
+    private static final String POSTGRES_INSERT = """
+        INSERT INTO credits (movie_id, person_id, character_id, role_type, department, job, cast_order, created_at)
+        SELECT movie_id, person_id, character_id, role_type, department, job, cast_order, CAST(? AS TIMESTAMP)
+        FROM imdb_credit_staging
+        ON CONFLICT ON CONSTRAINT uk_credit_movie_person_role_job DO NOTHING
+        """;
+
+    // Duplicates within a batch are collapsed first, since NOT EXISTS only sees committed rows
+    private static final String H2_INSERT = """
+        INSERT INTO credits (movie_id, person_id, character_id, role_type, department, job, cast_order, created_at)
+        SELECT s.movie_id, s.person_id, MIN(s.character_id), s.role_type, MIN(s.department), s.job,
+               MIN(s.cast_order), CAST(? AS TIMESTAMP)
+        FROM imdb_credit_staging s
+        WHERE NOT EXISTS (SELECT 1 FROM credits c
+                          WHERE c.movie_id = s.movie_id AND c.person_id = s.person_id
+                            AND c.role_type = s.role_type AND c.job = s.job)
+        GROUP BY s.movie_id, s.person_id, s.role_type, s.job
+        """;
+
+    private final BulkLoader bulkLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    private long inserted;
+
+    IMDbCreditWriter(BulkLoader bulkLoader, JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+        this.bulkLoader = bulkLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+    }
+
+    void add(long movieId, long personId, Long characterId, Credit.RoleType roleType, String department,
+             String job, Integer order) {
+        rows.add(new Object[]{movieId, personId, characterId, roleType.name(), department, job, order});
+        if (rows.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Write buffered credits, skipping any that already exist
+     */
+    void flush() {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute(databasePlatform.temporaryTableDdl(STAGING_TABLE, STAGING_COLUMNS));
+        try (BulkWriter staging = bulkLoader.writer(STAGING_TABLE,
+                "movie_id", "person_id", "character_id", "role_type", "department", "job", "cast_order")) {
+            for (Object[] row : rows) {
+                staging.add(row);
+            }
+        }
+        inserted += jdbcTemplate.update(databasePlatform.isPostgres() ? POSTGRES_INSERT : H2_INSERT,
+                LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM " + STAGING_TABLE);
+        rows.clear();
+    }
+
+    /**
+     * Drop buffered credits, e.g. when the transaction they belong to was rolled back
+     */
+    void discard() {
+        rows.clear();
+    }
+
+    /**
+     * Credits actually inserted so far (duplicates excluded)
+     */
+    long inserted() {
+        return inserted;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
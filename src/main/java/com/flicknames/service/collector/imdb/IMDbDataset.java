@@ -1,5 +1,7 @@
 package com.flicknames.service.collector.imdb;
 
+import com.flicknames.service.collector.io.DelimitedRecordReader;
+
 /**
  * IMDb dataset file names and URLs
  * https://datasets.imdbws.com/
@@ -27,6 +29,13 @@ public class IMDbDataset {
         public String getUrl() {
             return BASE_URL + filename;
         }
+
+        /**
+         * Name used in configuration keys, e.g. title-principals
+         */
+        public String getKey() {
+            return filename.substring(0, filename.indexOf(".tsv")).replace('.', '-');
+        }
     }
 
     // Column indices for title.basics.tsv
@@ -74,4 +83,8 @@ public class IMDbDataset {
     public static boolean isNull(String value) {
         return value == null || value.equals(NULL_VALUE) || value.isBlank();
     }
+
+    public static boolean isNull(DelimitedRecordReader record, int field) {
+        return field >= record.fieldCount() || record.equalsAscii(field, NULL_VALUE) || record.isBlank(field);
+    }
 }
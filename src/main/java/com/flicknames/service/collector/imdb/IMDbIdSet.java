@@ -0,0 +1,75 @@
+package com.flicknames.service.collector.imdb;
+
+import com.flicknames.service.collector.io.DelimitedRecordReader;
+
+import java.util.BitSet;
+
+/**
+ * Membership set of IMDb ids (tt1234567, nm1234567) stored by their numeric part.
+ *
+ * IMDb issues ids sequentially, so a bit per possible id stays small (a few MB for every
+ * title or name ever issued) and lookups need neither boxing nor hashing. A set holds one
+ * kind of id only, since tt and nm numbers overlap.
+ */
+public final class IMDbIdSet {
+
+    // Longer numbers do not fit a bit index
+    private static final int MAX_DIGITS = 9;
+
+    private final BitSet ids = new BitSet();
+
+    public boolean contains(int id) {
+        return id >= 0 && ids.get(id);
+    }
+
+    void add(int id) {
+        ids.set(id);
+    }
+
+    public int size() {
+        return ids.cardinality();
+    }
+
+    /**
+     * Numeric part of an IMDb id, or -1 if the value is not a two-letter prefix followed by digits
+     */
+    static int parse(String externalId) {
+        if (externalId == null || externalId.length() < 3 || externalId.length() > 2 + MAX_DIGITS
+                || !isLetter(externalId.charAt(0)) || !isLetter(externalId.charAt(1))) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = 2; i < externalId.length(); i++) {
+            int digit = externalId.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    /**
+     * Numeric part of the IMDb id in a record field, read without decoding it to a String
+     */
+    static int parse(DelimitedRecordReader records, int field) {
+        int length = records.length(field);
+        if (length < 3 || length > 2 + MAX_DIGITS
+                || !isLetter((char) records.byteAt(field, 0)) || !isLetter((char) records.byteAt(field, 1))) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = 2; i < length; i++) {
+            int digit = records.byteAt(field, i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
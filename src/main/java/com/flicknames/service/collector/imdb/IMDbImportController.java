@@ -1,16 +1,22 @@
 package com.flicknames.service.collector.imdb;
 
+import com.flicknames.service.collector.job.ImportJob;
+import com.flicknames.service.collector.job.ImportJobService;
+import com.flicknames.service.collector.job.JobRejectedException;
+import com.flicknames.service.collector.job.JobTask;
+import com.flicknames.service.collector.job.JobType;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/imdb")
@@ -20,18 +26,35 @@ import java.util.Set;
 public class IMDbImportController {
 
     private final IMDbImportService imdbImportService;
+    private final ImportJobService jobService;
 
     @PostMapping("/import/movies")
     @Operation(summary = "Import movies from title.basics.tsv.gz file")
     public ResponseEntity<Map<String, String>> importMovies(
             @RequestParam String filePath,
             @RequestParam(defaultValue = "2000") int minYear,
-            @RequestParam(defaultValue = "2025") int maxYear) {
+            @RequestParam(defaultValue = "2025") int maxYear,
+            @Parameter(description = "Commit every imdb.import.chunk-size lines in its own transaction")
+            @RequestParam(defaultValue = "false") boolean chunked,
+            @Parameter(description = "Continue the latest unfinished chunked import of this file")
+            @RequestParam(defaultValue = "false") boolean resume,
+            @Parameter(description = "Decompress and parse on background threads while rows are written " +
+                                     "(imdb.import.pipeline settings)")
+            @RequestParam(defaultValue = "false") boolean pipelined,
+            @Parameter(description = "Queue the import on the IMDb job pool and return immediately")
+            @RequestParam(defaultValue = "false") boolean async) {
 
         log.info("Starting movie import from {} (years {}-{})", filePath, minYear, maxYear);
 
+        if (async) {
+            return submit(String.format("Movie import from %s (years %d-%d)", filePath, minYear, maxYear), job -> {
+                importMovies(Paths.get(filePath), minYear, maxYear, chunked, resume, pipelined);
+                return null;
+            });
+        }
+
         try {
-            imdbImportService.importMovies(Paths.get(filePath), minYear, maxYear);
+            importMovies(Paths.get(filePath), minYear, maxYear, chunked, resume, pipelined);
             return ResponseEntity.ok(Map.of(
                     "status", "success",
                     "message", String.format("Successfully imported movies from %s", filePath)
@@ -49,20 +72,32 @@ public class IMDbImportController {
     @Operation(summary = "Import people from name.basics.tsv.gz file")
     public ResponseEntity<Map<String, String>> importPeople(
             @RequestParam String principalsFilePath,
-            @RequestParam String peopleFilePath) {
+            @RequestParam String peopleFilePath,
+            @Parameter(description = "Commit every imdb.import.chunk-size lines in its own transaction")
+            @RequestParam(defaultValue = "false") boolean chunked,
+            @Parameter(description = "Continue the latest unfinished chunked import of this file")
+            @RequestParam(defaultValue = "false") boolean resume,
+            @Parameter(description = "Decompress and parse on background threads while rows are written " +
+                                     "(imdb.import.pipeline settings)")
+            @RequestParam(defaultValue = "false") boolean pipelined,
+            @Parameter(description = "Queue the import on the IMDb job pool and return immediately")
+            @RequestParam(defaultValue = "false") boolean async) {
 
         log.info("Starting people import from {} (filtering from {})", peopleFilePath, principalsFilePath);
 
-        try {
-            // First extract which people are actually referenced
-            Set<String> referencedPeople = imdbImportService.extractReferencedPeople(Paths.get(principalsFilePath));
+        if (async) {
+            return submit(String.format("People import from %s", peopleFilePath),
+                    job -> importPeople(Paths.get(principalsFilePath), Paths.get(peopleFilePath), chunked, resume,
+                            pipelined));
+        }
 
-            // Then import only those people
-            imdbImportService.importPeople(Paths.get(peopleFilePath), referencedPeople);
+        try {
+            int referencedPeople = importPeople(Paths.get(principalsFilePath), Paths.get(peopleFilePath),
+                    chunked, resume, pipelined);
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
-                    "message", String.format("Successfully imported %d people", referencedPeople.size())
+                    "message", String.format("Successfully imported %d people", referencedPeople)
             ));
         } catch (Exception e) {
             log.error("Failed to import people", e);
@@ -75,12 +110,29 @@ public class IMDbImportController {
 
     @PostMapping("/import/credits")
     @Operation(summary = "Import credits from title.principals.tsv.gz file")
-    public ResponseEntity<Map<String, String>> importCredits(@RequestParam String filePath) {
+    public ResponseEntity<Map<String, String>> importCredits(
+            @RequestParam String filePath,
+            @Parameter(description = "Commit every imdb.import.chunk-size lines in its own transaction")
+            @RequestParam(defaultValue = "false") boolean chunked,
+            @Parameter(description = "Continue the latest unfinished chunked import of this file")
+            @RequestParam(defaultValue = "false") boolean resume,
+            @Parameter(description = "Decompress and parse on background threads while rows are written " +
+                                     "(imdb.import.pipeline settings)")
+            @RequestParam(defaultValue = "false") boolean pipelined,
+            @Parameter(description = "Queue the import on the IMDb job pool and return immediately")
+            @RequestParam(defaultValue = "false") boolean async) {
 
         log.info("Starting credits import from {}", filePath);
 
+        if (async) {
+            return submit(String.format("Credits import from %s", filePath), job -> {
+                importCredits(Paths.get(filePath), chunked, resume, pipelined);
+                return null;
+            });
+        }
+
         try {
-            imdbImportService.importCredits(Paths.get(filePath));
+            importCredits(Paths.get(filePath), chunked, resume, pipelined);
             return ResponseEntity.ok(Map.of(
                     "status", "success",
                     "message", String.format("Successfully imported credits from %s", filePath)
@@ -93,4 +145,84 @@ public class IMDbImportController {
             ));
         }
     }
+
+    @PostMapping("/import/ratings")
+    @Operation(summary = "Apply vote averages and counts from title.ratings.tsv.gz to imported movies")
+    public ResponseEntity<Map<String, String>> importRatings(
+            @RequestParam String filePath,
+            @Parameter(description = "Queue the import on the IMDb job pool and return immediately")
+            @RequestParam(defaultValue = "false") boolean async) {
+
+        log.info("Starting ratings import from {}", filePath);
+
+        if (async) {
+            return submit(String.format("Ratings import from %s", filePath), job -> {
+                imdbImportService.importRatings(Paths.get(filePath));
+                return null;
+            });
+        }
+
+        try {
+            imdbImportService.importRatings(Paths.get(filePath));
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", String.format("Successfully imported ratings from %s", filePath)
+            ));
+        } catch (Exception e) {
+            log.error("Failed to import ratings", e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    private void importMovies(Path file, int minYear, int maxYear, boolean chunked, boolean resume,
+                              boolean pipelined) throws Exception {
+        if (chunked) {
+            imdbImportService.importMoviesInChunks(file, minYear, maxYear, resume, pipelined);
+        } else {
+            imdbImportService.importMovies(file, minYear, maxYear, pipelined);
+        }
+    }
+
+    /**
+     * Extract which people are credited on imported movies, then import only those people
+     *
+     * @return number of referenced people
+     */
+    private int importPeople(Path principalsFile, Path peopleFile, boolean chunked, boolean resume,
+                             boolean pipelined) throws Exception {
+        IMDbIdSet referencedPeople = imdbImportService.extractReferencedPeople(principalsFile);
+        if (chunked) {
+            imdbImportService.importPeopleInChunks(peopleFile, referencedPeople, resume, pipelined);
+        } else {
+            imdbImportService.importPeople(peopleFile, referencedPeople, pipelined);
+        }
+        return referencedPeople.size();
+    }
+
+    private void importCredits(Path file, boolean chunked, boolean resume, boolean pipelined) throws Exception {
+        if (chunked) {
+            imdbImportService.importCreditsInChunks(file, resume, pipelined);
+        } else {
+            imdbImportService.importCredits(file, pipelined);
+        }
+    }
+
+    private ResponseEntity<Map<String, String>> submit(String description, JobTask task) {
+        try {
+            ImportJob job = jobService.submit(JobType.IMDB, description, task);
+            return ResponseEntity.accepted().body(Map.of(
+                    "status", "accepted",
+                    "jobId", String.valueOf(job.getId()),
+                    "message", "Import queued. Poll /api/v1/admin/jobs/" + job.getId() + " to check status."
+            ));
+        } catch (JobRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
 }
@@ -2,30 +2,39 @@ package com.flicknames.service.collector.imdb;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flicknames.service.collector.bulk.BulkLoader;
+import com.flicknames.service.collector.bulk.BulkWriter;
+import com.flicknames.service.collector.bulk.DatabasePlatform;
+import com.flicknames.service.collector.config.IMDbImportConfig;
+import com.flicknames.service.collector.io.DelimitedRecordReader;
+import com.flicknames.service.collector.job.JobContext;
 import com.flicknames.service.entity.Credit;
 import com.flicknames.service.entity.DataSource;
+import com.flicknames.service.entity.IMDbImportCheckpoint;
 import com.flicknames.service.entity.Movie;
 import com.flicknames.service.entity.Person;
 import com.flicknames.service.entity.ScreenCharacter;
 import com.flicknames.service.repository.*;
 import com.flicknames.service.util.CharacterNameParser;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
 @Service
@@ -33,228 +42,482 @@ import java.util.zip.GZIPInputStream;
 @Slf4j
 public class IMDbImportService {
 
+    // Lines between job progress reports (and cancellation checks)
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private static final String KNOWN_IDS_SQL =
+            "SELECT external_id, status, internal_id FROM data_sources WHERE source_type = ? AND entity_type = ?";
+
+    private static final String MOVIE_VOTES_SQL =
+            "SELECT id, imdb_id, vote_average, vote_count FROM movies WHERE imdb_id IS NOT NULL";
+
+    private static final RowKind MOVIES = new RowKind("movie", "movies", 1000);
+    private static final RowKind PEOPLE = new RowKind("person", "people", 1000);
+    private static final RowKind CREDITS = new RowKind("credit", "credits", 5000);
+
+    private final BulkLoader bulkLoader;
     private final MovieRepository movieRepository;
     private final PersonRepository personRepository;
     private final ScreenCharacterRepository screenCharacterRepository;
-    private final CreditRepository creditRepository;
     private final DataSourceRepository dataSourceRepository;
+    private final IMDbImportCheckpointRepository checkpointRepository;
     private final CharacterNameParser characterNameParser;
+    private final IMDbImportConfig importConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final CreditKeyMigration creditKeyMigration;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // In-memory caches for batch processing
-    private final Map<String, Long> imdbMovieIdCache = new HashMap<>();
-    private final Map<String, Long> imdbPersonIdCache = new HashMap<>();
-    private final Map<String, Long> imdbCharacterCache = new HashMap<>();
-
     /**
      * Import movies from title.basics.tsv.gz file
      * Filters for movies only (excludes TV shows, etc.)
+     *
+     * @param pipelined decompress and parse on background threads while this thread writes
      */
     @Transactional
-    public void importMovies(Path tsvFilePath, int minYear, int maxYear) throws IOException {
-        log.info("Importing movies from {} (years {}-{})", tsvFilePath, minYear, maxYear);
-
-        int totalLines = 0;
-        int imported = 0;
-        int skipped = 0;
-
-        try (BufferedReader reader = createReader(tsvFilePath)) {
-            // Skip header line
-            String headerLine = reader.readLine();
-            log.debug("Header: {}", headerLine);
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                totalLines++;
-
-                try {
-                    String[] fields = line.split("\t");
+    public void importMovies(Path tsvFilePath, int minYear, int maxYear, boolean pipelined) throws IOException {
+        log.info("Importing movies from {} (years {}-{}, pipelined={})", tsvFilePath, minYear, maxYear, pipelined);
+        ImportProgress progress;
+        try (BulkWriter dataSources = openDataSourceWriter()) {
+            progress = importAll(tsvFilePath, movieImport(minYear, maxYear, dataSources), pipelined);
+        }
+        log.info("Movie import complete: {} imported, {} skipped, {} total lines",
+                progress.imported, progress.skipped, progress.lines);
+    }
 
-                    // Filter: only movies, within year range
-                    String titleType = fields[IMDbDataset.TitleBasics.TITLE_TYPE];
-                    String startYearStr = fields[IMDbDataset.TitleBasics.START_YEAR];
+    /**
+     * Import movies committing every {@code imdb.import.chunk-size} lines in its own transaction
+     *
+     * @param resume    continue the latest unfinished chunked import of this file after its last committed line
+     * @param pipelined decompress and parse on background threads while this thread writes
+     */
+    public void importMoviesInChunks(Path tsvFilePath, int minYear, int maxYear, boolean resume,
+                                     boolean pipelined) throws IOException {
+        log.info("Importing movies from {} in chunks (years {}-{}, resume={}, pipelined={})",
+                tsvFilePath, minYear, maxYear, resume, pipelined);
+        ImportProgress progress;
+        try (BulkWriter dataSources = openDataSourceWriter()) {
+            progress = importInChunks(tsvFilePath, movieImport(minYear, maxYear, dataSources), resume, pipelined,
+                    new PendingRows(dataSources::flush, dataSources::discard));
+        }
+        log.info("Movie import complete: {} imported, {} skipped, {} total lines",
+                progress.imported, progress.skipped, progress.lines);
+    }
 
-                    if (!"movie".equals(titleType)) {
-                        continue;
-                    }
+    /**
+     * Import people from name.basics.tsv.gz file
+     *
+     * @param pipelined decompress and parse on background threads while this thread writes
+     */
+    @Transactional
+    public void importPeople(Path tsvFilePath, IMDbIdSet filterNconsts, boolean pipelined) throws IOException {
+        log.info("Importing {} people from {} (pipelined={})", filterNconsts.size(), tsvFilePath, pipelined);
+        ImportProgress progress;
+        try (BulkWriter dataSources = openDataSourceWriter()) {
+            progress = importAll(tsvFilePath, personImport(filterNconsts, dataSources), pipelined);
+        }
+        log.info("People import complete: {} imported, {} total lines", progress.imported, progress.lines);
+    }
 
-                    if (IMDbDataset.isNull(startYearStr)) {
-                        continue;
-                    }
+    /**
+     * Import people committing every {@code imdb.import.chunk-size} lines in its own transaction
+     *
+     * @param resume    continue the latest unfinished chunked import of this file after its last committed line
+     * @param pipelined decompress and parse on background threads while this thread writes
+     */
+    public void importPeopleInChunks(Path tsvFilePath, IMDbIdSet filterNconsts, boolean resume,
+                                     boolean pipelined) throws IOException {
+        log.info("Importing {} people from {} in chunks (resume={}, pipelined={})",
+                filterNconsts.size(), tsvFilePath, resume, pipelined);
+        ImportProgress progress;
+        try (BulkWriter dataSources = openDataSourceWriter()) {
+            progress = importInChunks(tsvFilePath, personImport(filterNconsts, dataSources), resume, pipelined,
+                    new PendingRows(dataSources::flush, dataSources::discard));
+        }
+        log.info("People import complete: {} imported, {} total lines", progress.imported, progress.lines);
+    }
 
-                    int year = Integer.parseInt(startYearStr);
-                    if (year < minYear || year > maxYear) {
-                        continue;
-                    }
+    /**
+     * Import credits (cast and crew) from title.principals.tsv.gz file
+     *
+     * @param pipelined decompress and parse on background threads while this thread writes
+     */
+    @Transactional
+    public void importCredits(Path tsvFilePath, boolean pipelined) throws IOException {
+        log.info("Importing credits from {} (pipelined={})", tsvFilePath, pipelined);
+        ImportProgress progress;
+        IMDbCreditWriter credits = newCreditWriter();
+        try (credits) {
+            progress = importAll(tsvFilePath, creditImport(credits), pipelined);
+        }
+        log.info("Credits import complete: {} read, {} new, {} total lines",
+                progress.imported, credits.inserted(), progress.lines);
+    }
 
-                    // Check if already imported
-                    String tconst = fields[IMDbDataset.TitleBasics.TCONST];
-                    if (dataSourceRepository.existsBySourceTypeAndExternalIdAndEntityTypeAndStatus(
-                            DataSource.SourceType.IMDB, tconst, DataSource.EntityType.MOVIE,
-                            DataSource.FetchStatus.SUCCESS)) {
-                        skipped++;
-                        continue;
-                    }
+    /**
+     * Import credits committing every {@code imdb.import.chunk-size} lines in its own transaction
+     *
+     * @param resume    continue the latest unfinished chunked import of this file after its last committed line
+     * @param pipelined decompress and parse on background threads while this thread writes
+     */
+    public void importCreditsInChunks(Path tsvFilePath, boolean resume, boolean pipelined) throws IOException {
+        log.info("Importing credits from {} in chunks (resume={}, pipelined={})", tsvFilePath, resume, pipelined);
+        ImportProgress progress;
+        IMDbCreditWriter credits = newCreditWriter();
+        try (credits) {
+            progress = importInChunks(tsvFilePath, creditImport(credits), resume, pipelined,
+                    new PendingRows(credits::flush, credits::discard));
+        }
+        log.info("Credits import complete: {} read, {} new, {} total lines",
+                progress.imported, credits.inserted(), progress.lines);
+    }
 
-                    // Import movie
-                    Movie movie = importMovie(fields);
-                    if (movie != null) {
-                        imported++;
-                        imdbMovieIdCache.put(tconst, movie.getId());
+    /**
+     * Apply title.ratings.tsv.gz to movies with an IMDb id. The file is streamed and hash-joined on
+     * tconst against the movies table, loaded once; only movies whose vote average or count changed
+     * are updated, in batches.
+     */
+    @Transactional
+    public void importRatings(Path tsvFilePath) throws IOException {
+        log.info("Importing ratings from {}", tsvFilePath);
+        long start = System.currentTimeMillis();
+        Map<Integer, MovieVotes> movies = loadMovieVotes();
+        long lines = 0;
+        long matched = 0;
+        IMDbRatingWriter ratings = new IMDbRatingWriter(bulkLoader, jdbcTemplate, databasePlatform);
+        try (ratings; InputStream in = openDataset(tsvFilePath)) {
+            DelimitedRecordReader records = DelimitedRecordReader.tsv(in, null);
+            records.next(); // Skip header
+
+            while (records.next()) {
+                lines++;
+                if (lines % PROGRESS_INTERVAL == 0) {
+                    JobContext.advance(PROGRESS_INTERVAL);
+                }
 
-                        if (imported % 1000 == 0) {
-                            log.info("Imported {} movies ({} total lines processed)", imported, totalLines);
-                        }
+                // Only lines of imported movies get their fields parsed
+                MovieVotes current = movies.get(IMDbIdSet.parse(records, IMDbDataset.TitleRatings.TCONST));
+                if (current == null) {
+                    continue;
+                }
+                matched++;
+                try {
+                    double average = Double.parseDouble(records.string(IMDbDataset.TitleRatings.AVERAGE_RATING));
+                    int votes = records.parseInt(IMDbDataset.TitleRatings.NUM_VOTES);
+                    if (!Objects.equals(current.voteAverage(), average)
+                            || !Objects.equals(current.voteCount(), votes)) {
+                        ratings.add(current.movieId(), average, votes);
                     }
-
-                } catch (Exception e) {
-                    log.warn("Failed to import movie at line {}: {}", totalLines, e.getMessage());
+                } catch (RuntimeException e) {
+                    log.warn("Failed to import rating at line {}: {}", lines, e.getMessage());
                 }
             }
         }
 
-        log.info("Movie import complete: {} imported, {} skipped, {} total lines",
-                imported, skipped, totalLines);
+        JobContext.advance(lines % PROGRESS_INTERVAL);
+        log.info("Ratings import complete: {} lines, {} imported movies rated, {} updated, in {}ms",
+                lines, matched, ratings.updated(), System.currentTimeMillis() - start);
     }
 
-    /**
-     * Import people from name.basics.tsv.gz file
-     */
-    @Transactional
-    public void importPeople(Path tsvFilePath, Set<String> filterNconsts) throws IOException {
-        log.info("Importing {} people from {}", filterNconsts.size(), tsvFilePath);
+    private DatasetImport<MovieRow> movieImport(int minYear, int maxYear, BulkWriter dataSources) {
+        KnownIds known = loadKnownIds(DataSource.EntityType.MOVIE);
+        IMDbRowSource.RowParser<MovieRow> parser = records -> {
+            // Filter: only movies, within year range
+            if (!records.equalsAscii(IMDbDataset.TitleBasics.TITLE_TYPE, "movie")) {
+                return null;
+            }
 
-        int totalLines = 0;
-        int imported = 0;
+            if (IMDbDataset.isNull(records, IMDbDataset.TitleBasics.START_YEAR)) {
+                return null;
+            }
 
-        try (BufferedReader reader = createReader(tsvFilePath)) {
-            // Skip header
-            reader.readLine();
+            int year = records.parseInt(IMDbDataset.TitleBasics.START_YEAR);
+            if (year < minYear || year > maxYear) {
+                return null;
+            }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                totalLines++;
+            Integer runtime = IMDbDataset.isNull(records, IMDbDataset.TitleBasics.RUNTIME_MINUTES)
+                    ? null : records.parseInt(IMDbDataset.TitleBasics.RUNTIME_MINUTES);
+            return new MovieRow(IMDbIdSet.parse(records, IMDbDataset.TitleBasics.TCONST),
+                    records.string(IMDbDataset.TitleBasics.TCONST),
+                    records.string(IMDbDataset.TitleBasics.PRIMARY_TITLE), year, runtime);
+        };
+        RowWriter<MovieRow> writer = row -> {
+            // Check if already imported
+            if (isImported(known, row.id(), row.tconst(), DataSource.EntityType.MOVIE)) {
+                return LineOutcome.SKIPPED;
+            }
 
-                try {
-                    String[] fields = line.split("\t");
-                    String nconst = fields[IMDbDataset.NameBasics.NCONST];
+            Movie movie = importMovie(row.tconst(), row.title(), row.year(), row.runtime());
+            recordImported(dataSources, known, row.id(), row.tconst(), DataSource.EntityType.MOVIE, movie.getId());
+            return LineOutcome.IMPORTED;
+        };
+        return new DatasetImport<>(IMDbDataset.Dataset.TITLE_BASICS, MOVIES, false, parser, writer);
+    }
 
-                    // Filter: only import people referenced in our movies
-                    if (!filterNconsts.contains(nconst)) {
-                        continue;
-                    }
+    private DatasetImport<PersonRow> personImport(IMDbIdSet filterNconsts, BulkWriter dataSources) {
+        KnownIds known = loadKnownIds(DataSource.EntityType.PERSON);
+        IMDbRowSource.RowParser<PersonRow> parser = records -> {
+            // Filter: only import people referenced in our movies
+            int id = IMDbIdSet.parse(records, IMDbDataset.NameBasics.NCONST);
+            if (!filterNconsts.contains(id)) {
+                return null;
+            }
+            return new PersonRow(id, records.string(IMDbDataset.NameBasics.NCONST),
+                    records.string(IMDbDataset.NameBasics.PRIMARY_NAME));
+        };
+        RowWriter<PersonRow> writer = row -> {
+            // Check if already imported
+            if (isImported(known, row.id(), row.nconst(), DataSource.EntityType.PERSON)) {
+                return LineOutcome.SKIPPED;
+            }
 
-                    // Check if already imported
-                    if (dataSourceRepository.existsBySourceTypeAndExternalIdAndEntityTypeAndStatus(
-                            DataSource.SourceType.IMDB, nconst, DataSource.EntityType.PERSON,
-                            DataSource.FetchStatus.SUCCESS)) {
-                        continue;
-                    }
+            Person person = importPerson(row.nconst(), row.fullName());
+            recordImported(dataSources, known, row.id(), row.nconst(), DataSource.EntityType.PERSON, person.getId());
+            return LineOutcome.IMPORTED;
+        };
+        return new DatasetImport<>(IMDbDataset.Dataset.NAME_BASICS, PEOPLE, false, parser, writer);
+    }
 
-                    Person person = importPerson(fields);
-                    if (person != null) {
-                        imported++;
-                        imdbPersonIdCache.put(nconst, person.getId());
+    /**
+     * Movie and person ids are loaded from data_sources for every run, so credits only reference
+     * committed rows. The id maps are only read while credits are parsed, so pipelined parsers
+     * can share them. Every run has its own maps, so concurrent imports never share one.
+     */
+    private DatasetImport<CreditRow> creditImport(IMDbCreditWriter credits) {
+        Map<String, Long> movieIds = new HashMap<>();
+        Map<String, Long> personIds = new HashMap<>();
+        // Character name -> id, written only by this run's writer
+        Map<String, Long> characterIds = new HashMap<>();
+        loadKnownIds(DataSource.EntityType.MOVIE, movieIds);
+        loadKnownIds(DataSource.EntityType.PERSON, personIds);
+        IMDbRowSource.RowParser<CreditRow> parser = records -> {
+            // Only import credits for movies/people we have
+            Long movieId = movieIds.get(records.string(IMDbDataset.TitlePrincipals.TCONST));
+            Long personId = personIds.get(records.string(IMDbDataset.TitlePrincipals.NCONST));
+
+            if (movieId == null || personId == null) {
+                return null;
+            }
 
-                        if (imported % 1000 == 0) {
-                            log.info("Imported {} people ({} total lines processed)", imported, totalLines);
-                        }
-                    }
+            String category = records.intern(IMDbDataset.TitlePrincipals.CATEGORY);
+            String job = IMDbDataset.isNull(records, IMDbDataset.TitlePrincipals.JOB)
+                    ? null : records.intern(IMDbDataset.TitlePrincipals.JOB);
+            String charactersJson = IMDbDataset.isNull(records, IMDbDataset.TitlePrincipals.CHARACTERS)
+                    ? null : records.string(IMDbDataset.TitlePrincipals.CHARACTERS);
+            Integer order = IMDbDataset.isNull(records, IMDbDataset.TitlePrincipals.ORDERING)
+                    ? null : records.parseInt(IMDbDataset.TitlePrincipals.ORDERING);
+            return new CreditRow(movieId, personId, category, job, charactersJson, order);
+        };
+        RowWriter<CreditRow> writer = row -> {
+            Credit.RoleType roleType = mapCategoryToRoleType(row.category());
+            Long characterId = row.charactersJson() != null && roleType == Credit.RoleType.CAST
+                    ? characterId(row.charactersJson(), characterIds) : null;
+            credits.add(row.movieId(), row.personId(), characterId, roleType, mapCategoryToDepartment(row.category()),
+                    row.job() == null ? row.category() : row.job(), row.order());
+            return LineOutcome.IMPORTED;
+        };
+        // Categories and jobs repeat across millions of rows
+        return new DatasetImport<>(IMDbDataset.Dataset.TITLE_PRINCIPALS, CREDITS, true, parser, writer);
+    }
 
-                } catch (Exception e) {
-                    log.warn("Failed to import person at line {}: {}", totalLines, e.getMessage());
-                }
+    /**
+     * Import every line of a dataset in the caller's transaction
+     */
+    private <T> ImportProgress importAll(Path tsvFilePath, DatasetImport<T> rows, boolean pipelined)
+            throws IOException {
+        ImportProgress progress = new ImportProgress();
+        try (InputStream in = openDataset(tsvFilePath);
+             IMDbRowSource<T> source = openRowSource(in, 0, rows, pipelined)) {
+            IMDbRowSource.Block<T> block;
+            while ((block = source.next()) != null) {
+                writeBlock(block, progress, rows);
             }
         }
-
-        log.info("People import complete: {} imported, {} total lines", imported, totalLines);
+        return progress;
     }
 
     /**
-     * Import credits (cast and crew) from title.principals.tsv.gz file
+     * Import a dataset in chunks of {@code imdb.import.chunk-size} lines, each committed in its own
+     * transaction together with the checkpoint. The persistence context is cleared after every chunk,
+     * so memory use does not grow with the file. A failed chunk is rolled back on its own and the
+     * import can be resumed from the last committed line.
      */
-    @Transactional
-    public void importCredits(Path tsvFilePath) throws IOException {
-        log.info("Importing credits from {}", tsvFilePath);
-
-        int totalLines = 0;
-        int imported = 0;
+    private <T> ImportProgress importInChunks(Path tsvFilePath, DatasetImport<T> rows, boolean resume,
+                                              boolean pipelined, PendingRows pending) throws IOException {
+        int chunkSize = Math.max(1, importConfig.getChunkSize());
+        IMDbDataset.Dataset dataset = rows.dataset();
+        IMDbImportCheckpoint checkpoint = startCheckpoint(dataset, tsvFilePath, resume);
+        ImportProgress progress = new ImportProgress();
+        progress.imported = checkpoint.getImportedCount();
+
+        // Lines committed by the run being resumed are skipped by the row source
+        long resumeAfter = checkpoint.getLinesCommitted();
+        try (InputStream in = openDataset(tsvFilePath);
+             IMDbRowSource<T> source = openRowSource(in, resumeAfter, rows, pipelined)) {
+            if (resumeAfter > 0) {
+                progress.lines = resumeAfter;
+                JobContext.advance(resumeAfter);
+                log.info("Resuming {} import after line {} ({} rows imported before)",
+                        dataset.getFilename(), resumeAfter, checkpoint.getImportedCount());
+            }
 
-        try (BufferedReader reader = createReader(tsvFilePath)) {
-            // Skip header
-            reader.readLine();
+            boolean more = true;
+            while (more) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                        importChunk(source, chunkSize, progress, rows, pending, checkpoint)));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Rows of the failed chunk were rolled back
+            pending.discard().run();
+            failCheckpoint(checkpoint, e instanceof UncheckedIOException unchecked ? unchecked.getCause() : e);
+            if (e instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw e;
+        }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                totalLines++;
+        checkpoint.setStatus(IMDbImportCheckpoint.Status.COMPLETED);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        return progress;
+    }
 
-                try {
-                    String[] fields = line.split("\t", -1); // -1 to keep trailing empty strings
+    /**
+     * Import blocks until at least {@code chunkSize} more lines are done, then advance the checkpoint
+     * in the current transaction. Chunks end on block boundaries.
+     *
+     * @return false once the end of the file has been reached
+     */
+    private <T> boolean importChunk(IMDbRowSource<T> source, int chunkSize, ImportProgress progress,
+                                    DatasetImport<T> rows, PendingRows pending, IMDbImportCheckpoint checkpoint) {
+        long chunkEnd = progress.lines + chunkSize;
+        IMDbRowSource.Block<T> block = null;
+        try {
+            while (progress.lines < chunkEnd && (block = source.next()) != null) {
+                writeBlock(block, progress, rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pending.flush().run();
 
-                    String tconst = fields[IMDbDataset.TitlePrincipals.TCONST];
-                    String nconst = fields[IMDbDataset.TitlePrincipals.NCONST];
+        checkpoint.setLinesCommitted(progress.lines);
+        checkpoint.setImportedCount(progress.imported);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
 
-                    // Only import credits for movies/people we have
-                    Long movieId = imdbMovieIdCache.get(tconst);
-                    Long personId = imdbPersonIdCache.get(nconst);
+        entityManager.flush();
+        entityManager.clear();
+        return block != null;
+    }
 
-                    if (movieId == null || personId == null) {
-                        continue;
+    /**
+     * Write the rows of one block and report its lines to the running job
+     */
+    private <T> void writeBlock(IMDbRowSource.Block<T> block, ImportProgress progress, DatasetImport<T> rows) {
+        RowKind kind = rows.kind();
+        for (IMDbRowSource.LineFailure failure : block.failures()) {
+            log.warn("Failed to import {} at line {}: {}", kind.singular, progress.lines + failure.line(),
+                    failure.message());
+        }
+        progress.lines += block.lines();
+
+        for (T row : block.rows()) {
+            try {
+                switch (rows.writer().write(row)) {
+                    case IMPORTED -> {
+                        progress.imported++;
+                        if (progress.imported % kind.logInterval == 0) {
+                            log.info("Imported {} {} ({} total lines processed)",
+                                    progress.imported, kind.plural, progress.lines);
+                        }
                     }
-
-                    importCredit(fields, movieId, personId);
-                    imported++;
-
-                    if (imported % 5000 == 0) {
-                        log.info("Imported {} credits ({} total lines processed)", imported, totalLines);
+                    case SKIPPED -> progress.skipped++;
+                    case IGNORED -> {
                     }
-
-                } catch (Exception e) {
-                    log.warn("Failed to import credit at line {}: {}", totalLines, e.getMessage());
                 }
+            } catch (Exception e) {
+                log.warn("Failed to import {}: {}", row, e.getMessage());
             }
         }
+        JobContext.advance(block.lines());
+    }
 
-        log.info("Credits import complete: {} imported, {} total lines", imported, totalLines);
+    private <T> IMDbRowSource<T> openRowSource(InputStream in, long skipLines, DatasetImport<T> rows,
+                                               boolean pipelined) throws IOException {
+        if (!pipelined) {
+            return IMDbRowSource.serial(in, skipLines, rows.interning(), rows.parser());
+        }
+        String key = rows.dataset().getKey();
+        return IMDbIngestPipeline.start(key, in, skipLines, rows.interning(), rows.parser(),
+                importConfig.pipelineFor(key));
     }
 
     /**
-     * Import a single movie from TSV fields
+     * Reopen the latest unfinished checkpoint of this file when resuming, otherwise start a new one
      */
-    private Movie importMovie(String[] fields) {
-        String tconst = fields[IMDbDataset.TitleBasics.TCONST];
-        String title = fields[IMDbDataset.TitleBasics.PRIMARY_TITLE];
-        String startYearStr = fields[IMDbDataset.TitleBasics.START_YEAR];
-        String runtimeStr = fields[IMDbDataset.TitleBasics.RUNTIME_MINUTES];
-
-        Movie movie = new Movie();
-        movie.setImdbId(tconst);
-        movie.setTitle(title);
-
-        if (!IMDbDataset.isNull(startYearStr)) {
-            int year = Integer.parseInt(startYearStr);
-            movie.setReleaseDate(LocalDate.of(year, 1, 1));
+    private IMDbImportCheckpoint startCheckpoint(IMDbDataset.Dataset dataset, Path tsvFilePath, boolean resume) {
+        String filePath = tsvFilePath.toAbsolutePath().toString();
+        if (resume) {
+            Optional<IMDbImportCheckpoint> latest = checkpointRepository
+                    .findFirstByDatasetAndFilePathOrderByIdDesc(dataset.getFilename(), filePath)
+                    .filter(checkpoint -> checkpoint.getStatus() != IMDbImportCheckpoint.Status.COMPLETED);
+            if (latest.isPresent()) {
+                IMDbImportCheckpoint checkpoint = latest.get();
+                checkpoint.setStatus(IMDbImportCheckpoint.Status.IN_PROGRESS);
+                checkpoint.setErrorMessage(null);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                return checkpointRepository.save(checkpoint);
+            }
+            log.info("No unfinished {} import of {} to resume, starting from the first line",
+                    dataset.getFilename(), filePath);
         }
 
-        if (!IMDbDataset.isNull(runtimeStr)) {
-            movie.setRuntime(Integer.parseInt(runtimeStr));
-        }
+        return checkpointRepository.save(IMDbImportCheckpoint.builder()
+                .dataset(dataset.getFilename())
+                .filePath(filePath)
+                .status(IMDbImportCheckpoint.Status.IN_PROGRESS)
+                .linesCommitted(0L)
+                .importedCount(0L)
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
 
-        movie = movieRepository.save(movie);
+    private void failCheckpoint(IMDbImportCheckpoint checkpoint, Throwable failure) {
+        try {
+            // Reload: the failed chunk may have advanced the in-memory copy before rolling back
+            IMDbImportCheckpoint committed = checkpointRepository.findById(checkpoint.getId()).orElse(checkpoint);
+            committed.setStatus(IMDbImportCheckpoint.Status.FAILED);
+            committed.setErrorMessage(failure.getMessage());
+            committed.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(committed);
+            log.error("{} import failed after line {}; resume to continue from there",
+                    committed.getDataset(), committed.getLinesCommitted());
+        } catch (RuntimeException e) {
+            log.warn("Failed to record IMDb import failure on checkpoint {}", checkpoint.getId(), e);
+        }
+    }
 
-        // Record successful import
-        recordDataSource(DataSource.SourceType.IMDB, tconst, DataSource.EntityType.MOVIE,
-                movie.getId(), DataSource.FetchStatus.SUCCESS, null);
+    /**
+     * Import a single movie from parsed TSV fields
+     */
+    private Movie importMovie(String tconst, String title, int year, Integer runtime) {
+        Movie movie = new Movie();
+        movie.setImdbId(tconst);
+        movie.setTitle(title);
+        movie.setReleaseDate(LocalDate.of(year, 1, 1));
+        movie.setRuntime(runtime);
 
-        return movie;
+        return movieRepository.save(movie);
     }
 
     /**
-     * Import a single person from TSV fields
+     * Import a single person from parsed TSV fields
      */
-    private Person importPerson(String[] fields) {
-        String nconst = fields[IMDbDataset.NameBasics.NCONST];
-        String fullName = fields[IMDbDataset.NameBasics.PRIMARY_NAME];
+    private Person importPerson(String nconst, String fullName) {
 
         Person person = new Person();
         person.setImdbId(nconst);
@@ -265,65 +528,14 @@ public class IMDbImportService {
         person.setFirstName(nameParts[0]);
         person.setLastName(nameParts[1]);
 
-        person = personRepository.save(person);
-
-        // Record successful import
-        recordDataSource(DataSource.SourceType.IMDB, nconst, DataSource.EntityType.PERSON,
-                person.getId(), DataSource.FetchStatus.SUCCESS, null);
-
-        return person;
-    }
-
-    /**
-     * Import a single credit from TSV fields
-     */
-    private void importCredit(String[] fields, Long movieId, Long personId) {
-        Movie movie = movieRepository.findById(movieId).orElse(null);
-        Person person = personRepository.findById(personId).orElse(null);
-
-        if (movie == null || person == null) {
-            return;
-        }
-
-        String category = fields[IMDbDataset.TitlePrincipals.CATEGORY];
-        String job = fields[IMDbDataset.TitlePrincipals.JOB];
-        String charactersJson = fields[IMDbDataset.TitlePrincipals.CHARACTERS];
-        String orderingStr = fields[IMDbDataset.TitlePrincipals.ORDERING];
-
-        Credit.RoleType roleType = mapCategoryToRoleType(category);
-        String department = mapCategoryToDepartment(category);
-        String jobTitle = IMDbDataset.isNull(job) ? category : job;
-        Integer order = IMDbDataset.isNull(orderingStr) ? null : Integer.parseInt(orderingStr);
-
-        // Parse character names from JSON array
-        ScreenCharacter character = null;
-        if (!IMDbDataset.isNull(charactersJson) && roleType == Credit.RoleType.CAST) {
-            character = parseAndCreateCharacter(charactersJson);
-        }
-
-        // Check if credit already exists
-        boolean exists = creditRepository.existsByMovieAndPersonAndRoleTypeAndJob(
-                movie, person, roleType, jobTitle);
-        if (exists) {
-            return;
-        }
-
-        Credit credit = new Credit();
-        credit.setMovie(movie);
-        credit.setPerson(person);
-        credit.setCharacter(character);
-        credit.setRoleType(roleType);
-        credit.setDepartment(department);
-        credit.setJob(jobTitle);
-        credit.setOrder(order);
-
-        creditRepository.save(credit);
+        return personRepository.save(person);
     }
 
     /**
-     * Parse character name from IMDb JSON array format: ["Character Name"]
+     * Id of the character named first in IMDb JSON array format ["Character Name"],
+     * created if it does not exist yet; null if the JSON holds no name
      */
-    private ScreenCharacter parseAndCreateCharacter(String charactersJson) {
+    private Long characterId(String charactersJson, Map<String, Long> characterIds) {
         try {
             // IMDb uses JSON array format like: ["Tony Stark","Iron Man"]
             JsonNode jsonNode = objectMapper.readTree(charactersJson);
@@ -331,14 +543,15 @@ public class IMDbImportService {
                 String characterName = jsonNode.get(0).asText();
 
                 // Check cache first
-                if (imdbCharacterCache.containsKey(characterName)) {
-                    return screenCharacterRepository.findById(imdbCharacterCache.get(characterName)).orElse(null);
+                Long cached = characterIds.get(characterName);
+                if (cached != null) {
+                    return cached;
                 }
 
                 Optional<ScreenCharacter> existing = screenCharacterRepository.findByFullName(characterName);
                 if (existing.isPresent()) {
-                    imdbCharacterCache.put(characterName, existing.get().getId());
-                    return existing.get();
+                    characterIds.put(characterName, existing.get().getId());
+                    return existing.get().getId();
                 }
 
                 ScreenCharacter character = new ScreenCharacter();
@@ -351,9 +564,9 @@ public class IMDbImportService {
                 character.setNameType(parseResult.getNameType());
 
                 character = screenCharacterRepository.save(character);
-                imdbCharacterCache.put(characterName, character.getId());
+                characterIds.put(characterName, character.getId());
 
-                return character;
+                return character.getId();
             }
         } catch (Exception e) {
             log.warn("Failed to parse character JSON: {}", charactersJson, e);
@@ -401,15 +614,102 @@ public class IMDbImportService {
         }
     }
 
-    private BufferedReader createReader(Path filePath) throws IOException {
+    private InputStream openDataset(Path filePath) throws IOException {
         InputStream inputStream = Files.newInputStream(filePath);
 
         // Auto-detect gzip compression
         if (filePath.toString().endsWith(".gz")) {
-            inputStream = new GZIPInputStream(inputStream);
+            inputStream = new GZIPInputStream(inputStream, 1 << 16);
         }
 
-        return new BufferedReader(new InputStreamReader(inputStream));
+        return inputStream;
+    }
+
+    /**
+     * Current votes of every movie with a regular IMDb id, keyed by its numeric tconst
+     */
+    private Map<Integer, MovieVotes> loadMovieVotes() {
+        Map<Integer, MovieVotes> movies = new HashMap<>();
+        bulkLoader.stream(MOVIE_VOTES_SQL, rs -> {
+            int id = IMDbIdSet.parse(rs.getString(2));
+            if (id >= 0) {
+                movies.put(id, new MovieVotes(rs.getLong(1), rs.getObject(3, Double.class),
+                        rs.getObject(4, Integer.class)));
+            }
+        });
+        log.info("Loaded votes of {} movies with an IMDb id", movies.size());
+        return movies;
+    }
+
+    /**
+     * Load the IMDb ids of one entity type that already have a data_sources row, in a single query
+     */
+    private KnownIds loadKnownIds(DataSource.EntityType entityType) {
+        return loadKnownIds(entityType, null);
+    }
+
+    /**
+     * Load the IMDb ids of one entity type that already have a data_sources row and, unless
+     * {@code internalIds} is null, map each successfully imported external id to its internal id
+     */
+    private KnownIds loadKnownIds(DataSource.EntityType entityType, Map<String, Long> internalIds) {
+        KnownIds known = new KnownIds(new IMDbIdSet(), new IMDbIdSet());
+        bulkLoader.stream(KNOWN_IDS_SQL, rs -> {
+            String externalId = rs.getString(1);
+            int id = IMDbIdSet.parse(externalId);
+            boolean imported = DataSource.FetchStatus.SUCCESS.name().equals(rs.getString(2));
+            if (id >= 0) {
+                known.recorded().add(id);
+                if (imported) {
+                    known.imported().add(id);
+                }
+            }
+            Long internalId = rs.getObject(3, Long.class);
+            if (internalIds != null && imported && internalId != null) {
+                internalIds.put(externalId, internalId);
+            }
+        }, DataSource.SourceType.IMDB.name(), entityType.name());
+        log.info("Loaded {} imported IMDb {} ids ({} with a data source row)",
+                known.imported().size(), entityType, known.recorded().size());
+        return known;
+    }
+
+    private boolean isImported(KnownIds known, int id, String externalId, DataSource.EntityType entityType) {
+        if (id >= 0) {
+            return known.imported().contains(id);
+        }
+        // Not a regular IMDb id, so it cannot be in the preloaded set
+        return dataSourceRepository.existsBySourceTypeAndExternalIdAndEntityTypeAndStatus(
+                DataSource.SourceType.IMDB, externalId, entityType, DataSource.FetchStatus.SUCCESS);
+    }
+
+    /**
+     * Record a successful import: new ids are queued on the bulk writer, ids that already
+     * have a (failed or partial) row are updated in place
+     */
+    private void recordImported(BulkWriter dataSources, KnownIds known, int id, String externalId,
+                                DataSource.EntityType entityType, Long internalId) {
+        if (id >= 0 && !known.recorded().contains(id)) {
+            dataSources.add(DataSource.SourceType.IMDB.name(), externalId, entityType.name(), internalId,
+                    LocalDateTime.now(), DataSource.FetchStatus.SUCCESS.name());
+            known.recorded().add(id);
+        } else {
+            recordDataSource(DataSource.SourceType.IMDB, externalId, entityType, internalId,
+                    DataSource.FetchStatus.SUCCESS, null);
+        }
+        if (id >= 0) {
+            known.imported().add(id);
+        }
+    }
+
+    private IMDbCreditWriter newCreditWriter() {
+        creditKeyMigration.requireKey();
+        return new IMDbCreditWriter(bulkLoader, jdbcTemplate, databasePlatform);
+    }
+
+    private BulkWriter openDataSourceWriter() {
+        return bulkLoader.writer("data_sources",
+                "source_type", "external_id", "entity_type", "internal_id", "fetched_at", "status");
     }
 
     private void recordDataSource(DataSource.SourceType sourceType, String externalId,
@@ -438,24 +738,102 @@ public class IMDbImportService {
     }
 
     /**
-     * Build person filter set by loading referenced nconsts from principals file
+     * Build person filter set from the principals file: the people credited on movies that
+     * have been imported (a semi-join on tconst against the imported movie ids)
      */
-    public Set<String> extractReferencedPeople(Path principalsFilePath) throws IOException {
-        log.info("Extracting referenced people from {}", principalsFilePath);
-        Set<String> nconsts = new HashSet<>();
-
-        try (BufferedReader reader = createReader(principalsFilePath)) {
-            reader.readLine(); // Skip header
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] fields = line.split("\t");
-                String nconst = fields[IMDbDataset.TitlePrincipals.NCONST];
-                nconsts.add(nconst);
+    public IMDbIdSet extractReferencedPeople(Path principalsFilePath) throws IOException {
+        log.info("Extracting people credited on imported movies from {}", principalsFilePath);
+        IMDbIdSet movies = loadKnownIds(DataSource.EntityType.MOVIE).imported();
+        if (movies.size() == 0) {
+            log.warn("No imported IMDb movies; import movies before people");
+        }
+        IMDbIdSet nconsts = new IMDbIdSet();
+        long references = 0;
+
+        try (InputStream in = openDataset(principalsFilePath)) {
+            DelimitedRecordReader records = DelimitedRecordReader.tsv(in, null);
+            records.next(); // Skip header
+
+            while (records.next()) {
+                if (records.lineNumber() % PROGRESS_INTERVAL == 0) {
+                    JobContext.checkCancelled();
+                }
+                // Ids are compared as parsed ints, so no String is created per line
+                if (movies.contains(IMDbIdSet.parse(records, IMDbDataset.TitlePrincipals.TCONST))) {
+                    int nconst = IMDbIdSet.parse(records, IMDbDataset.TitlePrincipals.NCONST);
+                    if (nconst >= 0) {
+                        nconsts.add(nconst);
+                        references++;
+                    }
+                }
             }
         }
 
-        log.info("Extracted {} unique people references", nconsts.size());
+        log.info("Extracted {} unique people from {} credits on {} imported movies",
+                nconsts.size(), references, movies.size());
         return nconsts;
     }
+
+    /**
+     * Writes one parsed row; runs on the importing thread, inside its transaction
+     */
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        LineOutcome write(T row) throws Exception;
+    }
+
+    private enum LineOutcome {
+        IMPORTED,
+        // Already imported by an earlier run
+        SKIPPED,
+        // Filtered out
+        IGNORED
+    }
+
+    /**
+     * Row type of a dataset, for progress logging
+     */
+    private record RowKind(String singular, String plural, int logInterval) {
+    }
+
+    /**
+     * How one dataset is parsed and written
+     *
+     * @param interning whether the parser interns fields
+     */
+    private record DatasetImport<T>(IMDbDataset.Dataset dataset, RowKind kind, boolean interning,
+                                    IMDbRowSource.RowParser<T> parser, RowWriter<T> writer) {
+    }
+
+    private record MovieRow(int id, String tconst, String title, int year, Integer runtime) {
+    }
+
+    private record PersonRow(int id, String nconst, String fullName) {
+    }
+
+    private record CreditRow(long movieId, long personId, String category, String job, String charactersJson,
+                             Integer order) {
+    }
+
+    private record MovieVotes(long movieId, Double voteAverage, Integer voteCount) {
+    }
+
+    /**
+     * Flush and discard actions for rows a row writer buffers outside the persistence context,
+     * which must be written before their chunk commits
+     */
+    private record PendingRows(Runnable flush, Runnable discard) {
+    }
+
+    /**
+     * IMDb ids with a SUCCESS data_sources row, and with any row at all
+     */
+    private record KnownIds(IMDbIdSet imported, IMDbIdSet recorded) {
+    }
+
+    private static final class ImportProgress {
+        private long lines;
+        private long imported;
+        private long skipped;
+    }
 }
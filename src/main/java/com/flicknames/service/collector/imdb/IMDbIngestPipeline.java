@@ -0,0 +1,289 @@
+package com.flicknames.service.collector.imdb;
+
+import com.flicknames.service.collector.config.IMDbImportConfig;
+import com.flicknames.service.collector.io.DelimitedRecordReader;
+import com.flicknames.service.collector.io.StringInterner;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pipelined ingest of one dataset file in three stages:
+ * <ol>
+ * <li>a reader thread decompresses the file and cuts it into line-aligned byte blocks,</li>
+ * <li>a pool of parser threads parses and filters blocks into rows,</li>
+ * <li>the caller writes the rows, receiving blocks strictly in file order from {@link #next()}.</li>
+ * </ol>
+ * Stages are connected by bounded queues, so a slow writer pauses the parsers and slow parsers
+ * pause decompression; at most about twice {@code queueCapacity} blocks are held in memory.
+ * Throughput and stall time of every stage are logged periodically and when the pipeline closes,
+ * which shows whether decompression, parsing or the database is the bottleneck.
+ */
+@Slf4j
+final class IMDbIngestPipeline<T> implements IMDbRowSource<T> {
+
+    private static final byte[] END = new byte[0];
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final String name;
+    private final InputStream in;
+    private final boolean interning;
+    private final RowParser<T> parser;
+    private final int workers;
+    private final int blockBytes;
+    private final int maxParsing;
+    private final BlockingQueue<byte[]> blocks;
+    private final ForkJoinPool pool;
+    private final Thread reader;
+    private final Deque<ForkJoinTask<Block<T>>> parsing = new ArrayDeque<>();
+    private final long startedAt = System.nanoTime();
+
+    // Reader stage
+    private long linesToSkip;
+    private volatile Throwable readFailure;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong readerBlockedNanos = new AtomicLong();
+
+    // Parser stage
+    private final LongAdder parsedLines = new LongAdder();
+    private final LongAdder parsedRows = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+
+    // Writer stage, on the caller's thread
+    private boolean endOfInput;
+    private long writerRows;
+    private long writerWaitNanos;
+    private long lastReport = startedAt;
+
+    private IMDbIngestPipeline(String name, InputStream in, long skipLines, boolean interning,
+                               RowParser<T> parser, IMDbImportConfig.Pipeline settings) {
+        this.name = name;
+        this.in = in;
+        this.interning = interning;
+        this.parser = parser;
+        this.workers = settings.effectiveWorkers();
+        this.blockBytes = Math.max(64, settings.getBlockSizeKb()) * 1024;
+        int queueCapacity = Math.max(1, settings.getQueueCapacity());
+        this.maxParsing = Math.max(workers, queueCapacity);
+        this.blocks = new ArrayBlockingQueue<>(queueCapacity);
+        this.pool = new ForkJoinPool(workers);
+        this.linesToSkip = skipLines + 1; // Header line
+        this.reader = new Thread(this::read, "imdb-reader-" + name);
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Start reading and parsing a decompressed dataset stream
+     *
+     * @param skipLines data lines to skip after the header, e.g. when resuming
+     * @param interning whether the parser uses {@link DelimitedRecordReader#intern}; each block
+     *                  gets its own interner
+     */
+    static <T> IMDbIngestPipeline<T> start(String name, InputStream in, long skipLines, boolean interning,
+                                           RowParser<T> parser, IMDbImportConfig.Pipeline settings) {
+        IMDbIngestPipeline<T> pipeline = new IMDbIngestPipeline<>(name, in, skipLines, interning, parser, settings);
+        log.info("Started {} pipeline: {} parser workers, {} KB blocks, {} blocks per queue",
+                name, pipeline.workers, pipeline.blockBytes / 1024, pipeline.blocks.remainingCapacity());
+        pipeline.reader.start();
+        return pipeline;
+    }
+
+    @Override
+    public Block<T> next() throws IOException {
+        long start = System.nanoTime();
+        try {
+            // Keep the parse window full, waiting on the reader only when nothing is being parsed
+            while (!endOfInput && parsing.size() < maxParsing) {
+                byte[] block = parsing.isEmpty() ? blocks.take() : blocks.poll();
+                if (block == null) {
+                    break;
+                }
+                if (block == END) {
+                    endOfInput = true;
+                    break;
+                }
+                parsing.addLast(pool.submit(() -> parse(block)));
+            }
+
+            if (parsing.isEmpty()) {
+                if (readFailure != null) {
+                    throw rethrow(readFailure);
+                }
+                return null;
+            }
+            Block<T> block = parsing.removeFirst().get();
+            writerRows += block.rows().size();
+            return block;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(name + " pipeline interrupted");
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            long now = System.nanoTime();
+            writerWaitNanos += now - start;
+            if (now - lastReport >= REPORT_INTERVAL_NANOS) {
+                lastReport = now;
+                report("running");
+            }
+        }
+    }
+
+    /**
+     * Stop the reader and parsers; the input stream itself is left for the caller to close
+     */
+    @Override
+    public void close() {
+        reader.interrupt();
+        pool.shutdownNow();
+        blocks.clear();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        report(endOfInput && parsing.isEmpty() ? "finished" : "stopped");
+    }
+
+    /**
+     * Reader stage: decompress into blocks ending at a line break and queue them
+     */
+    private void read() {
+        try {
+            byte[] buffer = new byte[blockBytes];
+            int filled = 0;
+            int n;
+            while (!Thread.currentThread().isInterrupted()
+                    && (n = in.read(buffer, filled, buffer.length - filled)) >= 0) {
+                filled += n;
+                bytesRead.addAndGet(n);
+                if (filled < buffer.length) {
+                    continue;
+                }
+
+                int end = lastNewline(buffer, filled) + 1;
+                if (end == 0) {
+                    // Line longer than a block
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                emit(buffer, end);
+                System.arraycopy(buffer, end, buffer, 0, filled - end);
+                filled -= end;
+            }
+            if (filled > 0) {
+                emit(buffer, filled);
+            }
+            put(END);
+        } catch (InterruptedException e) {
+            // Closed before the end of the file
+        } catch (Throwable e) {
+            readFailure = e;
+            try {
+                put(END);
+            } catch (InterruptedException closed) {
+                // Nobody is waiting for the failure any more
+            }
+        }
+    }
+
+    /**
+     * Queue a copy of {@code buffer[0, length)}, minus any lines still to be skipped
+     */
+    private void emit(byte[] buffer, int length) throws InterruptedException {
+        int from = 0;
+        while (linesToSkip > 0 && from < length) {
+            int newline = indexOfNewline(buffer, from, length);
+            from = newline < 0 ? length : newline + 1;
+            linesToSkip--;
+        }
+        if (from < length) {
+            put(Arrays.copyOfRange(buffer, from, length));
+        }
+    }
+
+    private void put(byte[] block) throws InterruptedException {
+        long start = System.nanoTime();
+        blocks.put(block);
+        readerBlockedNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Parser stage: runs on the pool, any number of blocks at once
+     */
+    private Block<T> parse(byte[] block) throws IOException {
+        long start = System.nanoTime();
+        DelimitedRecordReader records = DelimitedRecordReader.tsv(new ByteArrayInputStream(block),
+                interning ? new StringInterner() : null);
+        Block<T> parsed = IMDbRowSource.parseBlock(records, Integer.MAX_VALUE, parser);
+        parsedLines.add(parsed.lines());
+        parsedRows.add(parsed.rows().size());
+        parseNanos.add(System.nanoTime() - start);
+        return parsed;
+    }
+
+    private void report(String state) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+        double seconds = elapsedNanos / 1e9;
+        long lines = parsedLines.sum();
+        log.info("{} pipeline {} after {}s: reader {} MB ({} MB/s, {}s blocked by parsers), "
+                        + "parsers {} lines -> {} rows ({} lines/s, {}% busy on {} workers), "
+                        + "writer {} rows ({} rows/s, {}s waiting for parsers)",
+                name, state, format(seconds),
+                bytesRead.get() >> 20, format(bytesRead.get() / 1048576.0 / seconds),
+                format(readerBlockedNanos.get() / 1e9),
+                lines, parsedRows.sum(), format(lines / seconds),
+                format(100.0 * parseNanos.sum() / elapsedNanos / workers), workers,
+                writerRows, format(writerRows / seconds), format(writerWaitNanos / 1e9));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static int lastNewline(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfNewline(byte[] buffer, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Throw a stage failure on the writer's thread as it was raised
+     */
+    private static IOException rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return failure instanceof IOException io ? io : new IOException(failure);
+    }
+}
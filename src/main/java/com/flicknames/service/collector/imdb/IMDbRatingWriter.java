@@ -0,0 +1,93 @@
+package com.flicknames.service.collector.imdb;
+
+import com.flicknames.service.collector.bulk.BulkLoader;
+import com.flicknames.service.collector.bulk.BulkWriter;
+import com.flicknames.service.collector.bulk.DatabasePlatform;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batched vote updates for IMDb ratings.
+ *
+ * New (movie id, average, count) values are bulk-loaded into a transaction-scoped staging table
+ * and applied with one UPDATE ... FROM per batch (MERGE on H2), so no entity is loaded and no
+ * statement runs per movie. Callers only add movies whose votes changed. Batches must be flushed
+ * inside a transaction.
+ */
+final class IMDbRatingWriter implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 20_000;
+
+    private static final String STAGING_TABLE = "imdb_rating_staging";
+
+    private static final String STAGING_COLUMNS =
+            "(movie_id BIGINT NOT NULL, vote_average DOUBLE PRECISION NOT NULL, vote_count INTEGER NOT NULL)";
+
+    private static final String POSTGRES_UPDATE = """
+        UPDATE movies m
+        SET vote_average = s.vote_average, vote_count = s.vote_count, updated_at = CAST(? AS TIMESTAMP)
+        FROM imdb_rating_staging s
+        WHERE m.id = s.movie_id
+        """;
+
+    private static final String H2_UPDATE = """
+        MERGE INTO movies m
+        USING imdb_rating_staging s ON m.id = s.movie_id
+        WHEN MATCHED THEN UPDATE
+        SET vote_average = s.vote_average, vote_count = s.vote_count, updated_at = CAST(? AS TIMESTAMP)
+        """;
+
+    private final BulkLoader bulkLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    private long updated;
+
+    IMDbRatingWriter(BulkLoader bulkLoader, JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+        this.bulkLoader = bulkLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+    }
+
+    void add(long movieId, double voteAverage, int voteCount) {
+        rows.add(new Object[]{movieId, voteAverage, voteCount});
+        if (rows.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Apply buffered votes
+     */
+    void flush() {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute(databasePlatform.temporaryTableDdl(STAGING_TABLE, STAGING_COLUMNS));
+        try (BulkWriter staging = bulkLoader.writer(STAGING_TABLE, "movie_id", "vote_average", "vote_count")) {
+            for (Object[] row : rows) {
+                staging.add(row);
+            }
+        }
+        updated += jdbcTemplate.update(databasePlatform.isPostgres() ? POSTGRES_UPDATE : H2_UPDATE,
+                LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM " + STAGING_TABLE);
+        rows.clear();
+    }
+
+    /**
+     * Movies updated so far
+     */
+    long updated() {
+        return updated;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,107 @@
+package com.flicknames.service.collector.imdb;
+
+import com.flicknames.service.collector.io.DelimitedRecordReader;
+import com.flicknames.service.collector.io.StringInterner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed and filtered rows of a dataset, handed out in blocks of whole lines in file order.
+ * The header line is never part of a block.
+ *
+ * {@link #serial} parses on the calling thread; {@link IMDbIngestPipeline} decompresses and
+ * parses on background threads while the caller writes.
+ */
+interface IMDbRowSource<T> extends AutoCloseable {
+
+    // Lines per block when parsing on the calling thread
+    int SERIAL_BLOCK_LINES = 1000;
+
+    /**
+     * Next block, or null at the end of the dataset
+     */
+    Block<T> next() throws IOException;
+
+    @Override
+    void close();
+
+    /**
+     * Parse on the calling thread
+     *
+     * @param skipLines data lines to skip after the header, e.g. when resuming
+     * @param interning whether the parser uses {@link DelimitedRecordReader#intern}
+     */
+    static <T> IMDbRowSource<T> serial(InputStream in, long skipLines, boolean interning,
+                                       RowParser<T> parser) throws IOException {
+        DelimitedRecordReader records = DelimitedRecordReader.tsv(in, interning ? new StringInterner() : null);
+
+        // Skip header line
+        records.next();
+
+        for (long skipped = 0; skipped < skipLines && records.next(); skipped++) {
+            // Lines committed by an earlier run
+        }
+
+        return new IMDbRowSource<>() {
+            @Override
+            public Block<T> next() throws IOException {
+                Block<T> block = parseBlock(records, SERIAL_BLOCK_LINES, parser);
+                return block.lines() > 0 ? block : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Parse up to {@code maxLines} lines. A line the parser fails on is recorded and skipped.
+     */
+    static <T> Block<T> parseBlock(DelimitedRecordReader records, int maxLines, RowParser<T> parser)
+            throws IOException {
+        List<T> rows = new ArrayList<>();
+        List<LineFailure> failures = new ArrayList<>(0);
+        int lines = 0;
+        while (lines < maxLines && records.next()) {
+            lines++;
+            try {
+                T row = parser.parse(records);
+                if (row != null) {
+                    rows.add(row);
+                }
+            } catch (Exception e) {
+                failures.add(new LineFailure(lines, e.getMessage()));
+            }
+        }
+        return new Block<>(rows, lines, failures);
+    }
+
+    /**
+     * Parses and filters one data line. Parsers of pipelined imports run on several threads
+     * at once, so they must not write shared state or touch the database.
+     */
+    @FunctionalInterface
+    interface RowParser<T> {
+
+        /**
+         * Row for the current line, or null if the line is filtered out
+         */
+        T parse(DelimitedRecordReader records) throws Exception;
+    }
+
+    /**
+     * Rows parsed from {@code lines} consecutive lines
+     */
+    record Block<T>(List<T> rows, int lines, List<LineFailure> failures) {
+    }
+
+    /**
+     * Line that could not be parsed, numbered from 1 within its block
+     */
+    record LineFailure(int line, String message) {
+    }
+}
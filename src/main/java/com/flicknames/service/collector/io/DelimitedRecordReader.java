@@ -0,0 +1,273 @@
+package com.flicknames.service.collector.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Streaming reader for delimited text records (unquoted CSV, TSV) that works on raw bytes.
+ *
+ * Each {@link #next()} exposes the fields of the current line as offsets into an internal
+ * buffer, so nothing is allocated per row unless the caller asks for a String. Integers are
+ * parsed straight from the bytes and repeated values can be interned. Lines end with
+ * {@code \n}; a trailing {@code \r} is dropped. The underlying stream is never closed,
+ * so the reader can be used on a single ZIP entry.
+ */
+public class DelimitedRecordReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte delimiter;
+    private final boolean trim;
+    private final StringInterner interner;
+
+    private byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+    private long lineNumber;
+
+    /**
+     * @param interner interner used by {@link #intern(int)}; may be null if that method is not used
+     */
+    public DelimitedRecordReader(InputStream in, char delimiter, boolean trim, StringInterner interner) {
+        this.in = in;
+        this.delimiter = (byte) delimiter;
+        this.trim = trim;
+        this.interner = interner;
+    }
+
+    /**
+     * Comma-separated records with surrounding spaces trimmed from each field
+     */
+    public static DelimitedRecordReader csv(InputStream in, StringInterner interner) {
+        return new DelimitedRecordReader(in, ',', true, interner);
+    }
+
+    /**
+     * Tab-separated records with fields taken verbatim
+     */
+    public static DelimitedRecordReader tsv(InputStream in, StringInterner interner) {
+        return new DelimitedRecordReader(in, '\t', false, interner);
+    }
+
+    /**
+     * Advance to the next line
+     *
+     * @return false at end of input
+     */
+    public boolean next() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            int lineEnd = indexOfNewline(scanFrom);
+            if (lineEnd < 0) {
+                if (!eof) {
+                    scanFrom = limit - position;
+                    fill();
+                    scanFrom += position;
+                    continue;
+                }
+                if (position >= limit) {
+                    fieldCount = 0;
+                    return false;
+                }
+                lineEnd = limit; // Last line without a terminator
+            }
+
+            int lineStart = position;
+            position = Math.min(lineEnd + 1, limit);
+            int end = lineEnd;
+            if (end > lineStart && buffer[end - 1] == '\r') {
+                end--;
+            }
+            lineNumber++;
+            split(lineStart, end);
+            return true;
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 1-based number of the current line
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Backing buffer for the current line; valid until the next call to {@link #next()}
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int start(int field) {
+        return starts[Objects.checkIndex(field, fieldCount)];
+    }
+
+    public int length(int field) {
+        Objects.checkIndex(field, fieldCount);
+        return ends[field] - starts[field];
+    }
+
+    public byte byteAt(int field, int offset) {
+        return buffer[start(field) + Objects.checkIndex(offset, length(field))];
+    }
+
+    /**
+     * Field decoded as a new String
+     */
+    public String string(int field) {
+        return new String(buffer, start(field), length(field), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Field decoded through the reader's interner, reusing Strings for repeated values
+     */
+    public String intern(int field) {
+        return interner.intern(buffer, start(field), length(field));
+    }
+
+    /**
+     * Parse an optionally signed decimal int directly from the field bytes
+     *
+     * @throws NumberFormatException if the field is empty, not numeric or out of range
+     */
+    public int parseInt(int field) {
+        int from = start(field);
+        int to = from + length(field);
+        if (from == to) {
+            throw new NumberFormatException("Empty field " + field + " at line " + lineNumber);
+        }
+
+        boolean negative = buffer[from] == '-';
+        int i = negative || buffer[from] == '+' ? from + 1 : from;
+        if (i == to) {
+            throw invalidNumber(field);
+        }
+
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber(field);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw invalidNumber(field);
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw invalidNumber(field);
+        }
+        return (int) value;
+    }
+
+    /**
+     * True if the field holds exactly the given ASCII text (no allocation)
+     */
+    public boolean equalsAscii(int field, String ascii) {
+        int from = start(field);
+        int length = length(field);
+        if (length != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[from + i] != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if the field is empty or contains only whitespace
+     */
+    public boolean isBlank(int field) {
+        int from = start(field);
+        int to = from + length(field);
+        for (int i = from; i < to; i++) {
+            if (!isSpace(buffer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private NumberFormatException invalidNumber(int field) {
+        return new NumberFormatException("Invalid integer '" + string(field) + "' in field " + field
+                + " at line " + lineNumber);
+    }
+
+    private void split(int from, int to) {
+        fieldCount = 0;
+        int fieldStart = from;
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == delimiter) {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, to);
+    }
+
+    private void addField(int from, int to) {
+        if (trim) {
+            while (from < to && isSpace(buffer[from])) from++;
+            while (to > from && isSpace(buffer[to - 1])) to--;
+        }
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount << 1);
+            ends = Arrays.copyOf(ends, fieldCount << 1);
+        }
+        starts[fieldCount] = from;
+        ends[fieldCount] = to;
+        fieldCount++;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Move the unread tail to the front of the buffer (growing it for very long lines) and read more
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length << 1);
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f' || b == 0x0B;
+    }
+}
@@ -0,0 +1,100 @@
+package com.flicknames.service.collector.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Deduplicates Strings decoded from UTF-8 byte ranges.
+ *
+ * Bulk files repeat the same small set of values millions of times (SSA names across
+ * years, state codes, IMDb categories). Looking the bytes up here returns the existing
+ * String instead of decoding a new one. The table stops growing at {@code maxEntries};
+ * after that unseen values are decoded without being retained. Not thread-safe.
+ */
+public class StringInterner {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+
+    private final int maxEntries;
+
+    private String[] strings;
+    private byte[][] encoded;
+    private int[] hashes;
+    private int mask;
+    private int size;
+
+    public StringInterner() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public StringInterner(int maxEntries) {
+        this.maxEntries = maxEntries;
+        allocate(1024);
+    }
+
+    /**
+     * String for the UTF-8 bytes {@code buffer[offset, offset + length)}
+     */
+    public String intern(byte[] buffer, int offset, int length) {
+        int hash = hash(buffer, offset, length);
+        int slot = hash & mask;
+        String existing;
+        while ((existing = strings[slot]) != null) {
+            if (hashes[slot] == hash
+                    && Arrays.equals(encoded[slot], 0, encoded[slot].length, buffer, offset, offset + length)) {
+                return existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        String value = new String(buffer, offset, length, StandardCharsets.UTF_8);
+        if (size < maxEntries) {
+            strings[slot] = value;
+            encoded[slot] = Arrays.copyOfRange(buffer, offset, offset + length);
+            hashes[slot] = hash;
+            if (++size > (strings.length >> 1)) {
+                rehash(strings.length << 1);
+            }
+        }
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldStrings = strings;
+        byte[][] oldEncoded = encoded;
+        int[] oldHashes = hashes;
+        allocate(capacity);
+        for (int i = 0; i < oldStrings.length; i++) {
+            if (oldStrings[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (strings[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                strings[slot] = oldStrings[i];
+                encoded[slot] = oldEncoded[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        strings = new String[capacity];
+        encoded = new byte[capacity][];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(byte[] buffer, int offset, int length) {
+        int h = 1;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + buffer[i];
+        }
+        // Spread similar values (e.g. names differing in their last letter) to avoid probe clusters
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,147 @@
+package com.flicknames.service.collector.job;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Handle for a background import or collection: status, progress and cancellation.
+ * Progress is reported by the task through {@link JobContext#advance(long)}.
+ */
+@Getter
+public class ImportJob {
+
+    private final long id;
+    private final JobType type;
+    private final String description;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Object result;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    private final AtomicReference<JobStatus> status = new AtomicReference<>(JobStatus.QUEUED);
+    private final AtomicLong processed = new AtomicLong();
+
+    @Getter(AccessLevel.NONE)
+    private volatile Future<?> future;
+    @Getter(AccessLevel.NONE)
+    private volatile Runnable cancelHook;
+
+    ImportJob(long id, JobType type, String description) {
+        this.id = id;
+        this.type = type;
+        this.description = description;
+    }
+
+    public JobStatus getStatus() {
+        return status.get();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * Milliseconds spent running so far (or in total once finished); 0 while queued
+     */
+    public long getDurationMs() {
+        LocalDateTime start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        return Duration.between(start, end).toMillis();
+    }
+
+    /**
+     * Processed rows per second over the running time, or null before any progress
+     */
+    public Long getRowsPerSecond() {
+        long durationMs = getDurationMs();
+        long rows = processed.get();
+        return durationMs > 0 && rows > 0 ? rows * 1000 / durationMs : null;
+    }
+
+    /**
+     * Register an action to run when cancellation is requested, for tasks with their own stop flag
+     */
+    public void onCancel(Runnable hook) {
+        this.cancelHook = hook;
+        if (cancelRequested) {
+            hook.run();
+        }
+    }
+
+    public void advance(long rows) {
+        processed.addAndGet(rows);
+    }
+
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new JobCancelledException(id);
+        }
+    }
+
+    /**
+     * Request cancellation. A queued job never starts; a running job stops at its next
+     * progress report. Running threads are not interrupted so JDBC connections stay usable.
+     *
+     * @return false if the job had already finished
+     */
+    boolean cancel() {
+        if (status.get().isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        if (status.compareAndSet(JobStatus.QUEUED, JobStatus.CANCELLED)) {
+            finishedAt = LocalDateTime.now();
+        }
+        Runnable hook = cancelHook;
+        if (hook != null) {
+            hook.run();
+        }
+        Future<?> queued = future;
+        if (queued != null) {
+            queued.cancel(false);
+        }
+        return true;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * @return false if the job was cancelled while queued and must not run
+     */
+    boolean markStarted() {
+        if (!status.compareAndSet(JobStatus.QUEUED, JobStatus.RUNNING)) {
+            return false;
+        }
+        startedAt = LocalDateTime.now();
+        return true;
+    }
+
+    void markSucceeded(Object result) {
+        this.result = result;
+        finish(JobStatus.SUCCEEDED);
+    }
+
+    void markFailed(Throwable failure) {
+        this.error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        finish(cancelRequested ? JobStatus.CANCELLED : JobStatus.FAILED);
+    }
+
+    private void finish(JobStatus finalStatus) {
+        finishedAt = LocalDateTime.now();
+        status.set(finalStatus);
+    }
+}
@@ -0,0 +1,167 @@
+package com.flicknames.service.collector.job;
+
+import com.flicknames.service.collector.config.JobExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs long imports and collections on bounded per-workload pools (SSA, IMDb, TMDB) instead of
+ * request threads, and keeps a registry of submitted jobs for status queries and cancellation.
+ */
+@Service
+@Slf4j
+public class ImportJobService implements DisposableBean {
+
+    private final JobExecutorConfig config;
+    private final Map<JobType, ThreadPoolTaskExecutor> executors = new EnumMap<>(JobType.class);
+    private final Map<Long, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ImportJobService(JobExecutorConfig config) {
+        this.config = config;
+        executors.put(JobType.SSA, executor("ssa-job-", config.getSsa()));
+        executors.put(JobType.IMDB, executor("imdb-job-", config.getImdb()));
+        executors.put(JobType.TMDB, executor("tmdb-job-", config.getTmdb()));
+    }
+
+    /**
+     * Queue a task on its workload's pool
+     *
+     * @throws JobRejectedException if the pool is busy and its queue is full
+     */
+    public ImportJob submit(JobType type, String description, JobTask task) {
+        ImportJob job = new ImportJob(sequence.incrementAndGet(), type, description);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executors.get(type).submit(() -> run(job, task)));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new JobRejectedException(type, poolConfig(type).getQueueCapacity());
+        }
+        log.info("Queued {} job {}: {}", type, job.getId(), description);
+        return job;
+    }
+
+    public Optional<ImportJob> find(long id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Registered jobs, newest first
+     *
+     * @param type workload to filter by, or null for all
+     */
+    public List<ImportJob> list(JobType type) {
+        return jobs.values().stream()
+                .filter(job -> type == null || job.getType() == type)
+                .sorted(Comparator.comparingLong(ImportJob::getId).reversed())
+                .toList();
+    }
+
+    /**
+     * True if a job of this type is queued or running
+     */
+    public boolean hasActiveJob(JobType type) {
+        return jobs.values().stream()
+                .anyMatch(job -> job.getType() == type && !job.getStatus().isFinished());
+    }
+
+    /**
+     * Request cancellation of a job
+     *
+     * @return false if the job does not exist or has already finished
+     */
+    public boolean cancel(long id) {
+        ImportJob job = jobs.get(id);
+        if (job == null || !job.cancel()) {
+            return false;
+        }
+        log.warn("Cancellation requested for {} job {}", job.getType(), id);
+        return true;
+    }
+
+    /**
+     * Active and queued thread counts per pool
+     */
+    public Map<JobType, Map<String, Integer>> poolStats() {
+        Map<JobType, Map<String, Integer>> stats = new EnumMap<>(JobType.class);
+        executors.forEach((type, executor) -> stats.put(type, Map.of(
+                "threads", executor.getMaxPoolSize(),
+                "active", executor.getActiveCount(),
+                "queued", executor.getThreadPoolExecutor().getQueue().size(),
+                "queueCapacity", executor.getQueueCapacity()
+        )));
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        jobs.values().forEach(ImportJob::cancel);
+        executors.values().forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    private void run(ImportJob job, JobTask task) {
+        if (!job.markStarted()) {
+            return; // Cancelled while queued
+        }
+        log.info("{} job {} started: {}", job.getType(), job.getId(), job.getDescription());
+        JobContext.bind(job);
+        try {
+            job.markSucceeded(task.run(job));
+            log.info("{} job {} finished in {} ms ({} rows, {} rows/sec)", job.getType(), job.getId(),
+                    job.getDurationMs(), job.getProcessed(), job.getRowsPerSecond());
+        } catch (Throwable e) {
+            job.markFailed(e);
+            if (job.getStatus() == JobStatus.CANCELLED) {
+                log.warn("{} job {} cancelled after {} rows", job.getType(), job.getId(), job.getProcessed());
+            } else {
+                log.error("{} job {} failed", job.getType(), job.getId(), e);
+            }
+        } finally {
+            JobContext.unbind();
+            pruneHistory();
+        }
+    }
+
+    /**
+     * Drop the oldest finished jobs beyond the configured history size
+     */
+    private void pruneHistory() {
+        List<ImportJob> finished = jobs.values().stream()
+                .filter(job -> job.getStatus().isFinished())
+                .sorted(Comparator.comparingLong(ImportJob::getId).reversed())
+                .toList();
+        for (int i = config.getHistorySize(); i < finished.size(); i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    private JobExecutorConfig.Pool poolConfig(JobType type) {
+        return switch (type) {
+            case SSA -> config.getSsa();
+            case IMDB -> config.getImdb();
+            case TMDB -> config.getTmdb();
+        };
+    }
+
+    private static ThreadPoolTaskExecutor executor(String threadNamePrefix, JobExecutorConfig.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getThreads());
+        executor.setMaxPoolSize(pool.getThreads());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+}
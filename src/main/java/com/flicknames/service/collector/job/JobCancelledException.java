@@ -0,0 +1,11 @@
+package com.flicknames.service.collector.job;
+
+/**
+ * Thrown from {@link JobContext#advance(long)} to unwind a job whose cancellation was requested
+ */
+public class JobCancelledException extends RuntimeException {
+
+    public JobCancelledException(long jobId) {
+        super("Job " + jobId + " was cancelled");
+    }
+}
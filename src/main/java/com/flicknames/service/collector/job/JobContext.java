@@ -0,0 +1,44 @@
+package com.flicknames.service.collector.job;
+
+/**
+ * Access to the job running on the current thread, so import loops can report progress
+ * and stop on cancellation without taking a job parameter. Outside a job every call is a no-op.
+ */
+public final class JobContext {
+
+    private static final ThreadLocal<ImportJob> CURRENT = new ThreadLocal<>();
+
+    private JobContext() {
+    }
+
+    /**
+     * Add processed rows to the current job
+     *
+     * @throws JobCancelledException if the job has been cancelled
+     */
+    public static void advance(long rows) {
+        ImportJob job = CURRENT.get();
+        if (job != null) {
+            job.advance(rows);
+            job.checkCancelled();
+        }
+    }
+
+    /**
+     * @throws JobCancelledException if the current job has been cancelled
+     */
+    public static void checkCancelled() {
+        ImportJob job = CURRENT.get();
+        if (job != null) {
+            job.checkCancelled();
+        }
+    }
+
+    static void bind(ImportJob job) {
+        CURRENT.set(job);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,95 @@
+package com.flicknames.service.collector.job;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Admin Jobs", description = "Background import and collection jobs")
+public class JobController {
+
+    private final ImportJobService jobService;
+
+    @GetMapping
+    @Operation(summary = "List background jobs",
+               description = "Queued, running and recently finished jobs (newest first) with pool usage")
+    public ResponseEntity<Map<String, Object>> listJobs(
+            @Parameter(description = "Only jobs of this workload: SSA, IMDB or TMDB")
+            @RequestParam(required = false) JobType type) {
+        List<Map<String, Object>> jobs = jobService.list(type).stream()
+                .map(JobController::describe)
+                .toList();
+
+        return ResponseEntity.ok(Map.of(
+                "jobs", jobs,
+                "pools", jobService.poolStats()
+        ));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a background job", description = "Status, progress, throughput and result of one job")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable long id) {
+        return jobService.find(id)
+                .map(job -> ResponseEntity.ok(describe(job)))
+                .orElseGet(() -> notFound(id));
+    }
+
+    @PostMapping("/{id}/cancel")
+    @Operation(summary = "Cancel a background job",
+               description = "Queued jobs never start; running jobs stop at their next progress report")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable long id) {
+        if (jobService.find(id).isEmpty()) {
+            return notFound(id);
+        }
+        if (!jobService.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "status", "error",
+                    "message", "Job " + id + " has already finished"
+            ));
+        }
+        return ResponseEntity.accepted().body(Map.of(
+                "status", "cancelling",
+                "jobId", id
+        ));
+    }
+
+    private static Map<String, Object> describe(ImportJob job) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", job.getId());
+        result.put("type", job.getType());
+        result.put("description", job.getDescription());
+        result.put("status", job.getStatus());
+        result.put("submittedAt", job.getSubmittedAt());
+        result.put("startedAt", job.getStartedAt());
+        result.put("finishedAt", job.getFinishedAt());
+        result.put("durationMs", job.getDurationMs());
+        result.put("processed", job.getProcessed());
+        result.put("rowsPerSecond", job.getRowsPerSecond());
+        result.put("cancelRequested", job.isCancelRequested());
+        result.put("result", job.getResult());
+        result.put("error", job.getError());
+        return result;
+    }
+
+    private static ResponseEntity<Map<String, Object>> notFound(long id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "status", "error",
+                "message", "No job with id " + id
+        ));
+    }
+}
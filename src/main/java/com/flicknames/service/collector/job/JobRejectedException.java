@@ -0,0 +1,11 @@
+package com.flicknames.service.collector.job;
+
+/**
+ * Thrown when a workload's pool and queue are full
+ */
+public class JobRejectedException extends RuntimeException {
+
+    public JobRejectedException(JobType type, int queueCapacity) {
+        super(String.format("Too many %s jobs: %d already waiting, try again later", type, queueCapacity));
+    }
+}
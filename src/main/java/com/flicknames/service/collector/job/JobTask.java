@@ -0,0 +1,10 @@
+package com.flicknames.service.collector.job;
+
+/**
+ * Work executed by an {@link ImportJob}; the returned value is kept as the job result
+ */
+@FunctionalInterface
+public interface JobTask {
+
+    Object run(ImportJob job) throws Exception;
+}
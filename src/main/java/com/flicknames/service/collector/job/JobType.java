@@ -0,0 +1,10 @@
+package com.flicknames.service.collector.job;
+
+/**
+ * Workloads with their own bounded worker pool
+ */
+public enum JobType {
+    SSA,
+    IMDB,
+    TMDB
+}
@@ -0,0 +1,343 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.bulk.BulkLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory aggregation cube over SSA (name, sex, year, state) counts for top-N queries
+ * across year ranges and state sets.
+ *
+ * Counts are stored as sparse (key, count) blocks per area and period. Areas are the nation,
+ * each state and each aggregated {@link SsaRegion}; periods are single years and decades.
+ * A query is covered with as few blocks as possible (whole decades and whole regions first),
+ * summed into a dense per-key total and reduced with a bounded heap.
+ * The cube is rebuilt from the {@link SsaSeriesStore} whenever the store is.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaAggregateCube {
+
+    private static final String STATES_SQL = """
+        SELECT y.ssa_name_id, y.year, b.state_code, b.count
+        FROM ssa_name_state_breakdowns b
+        JOIN ssa_name_yearly_stats y ON y.id = b.yearly_stat_id
+        ORDER BY y.ssa_name_id, y.year, b.state_code
+        """;
+
+    private static final int NATIONAL_AREA = 0;
+    private static final int STATE_COUNT = 51;
+    private static final int FIRST_STATE_AREA = 1;
+    private static final SsaRegion[] AGGREGATED_REGIONS = Arrays.stream(SsaRegion.values())
+            .filter(SsaRegion::isAggregated)
+            .toArray(SsaRegion[]::new);
+    private static final int FIRST_REGION_AREA = FIRST_STATE_AREA + STATE_COUNT;
+    private static final int AREA_COUNT = FIRST_REGION_AREA + AGGREGATED_REGIONS.length;
+
+    // State ordinal -> index into AGGREGATED_REGIONS
+    private static final int[] REGION_OF_STATE = new int[STATE_COUNT];
+
+    static {
+        for (int r = 0; r < AGGREGATED_REGIONS.length; r++) {
+            for (String stateCode : AGGREGATED_REGIONS[r].getStateCodes()) {
+                REGION_OF_STATE[SsaStateCodes.ordinal(stateCode)] = r;
+            }
+        }
+    }
+
+    private final BulkLoader bulkLoader;
+
+    private volatile Cube cube;
+
+    public boolean isLoaded() {
+        return cube != null;
+    }
+
+    /**
+     * Most popular names over an inclusive year range
+     *
+     * @param stateCodes states to include; empty for national counts
+     * @param sex        F, M or null for both
+     * @throws IllegalArgumentException for an unknown state code or an empty year range
+     * @throws IllegalStateException    if the cube has not been built yet
+     */
+    public TopNames top(int fromYear, int toYear, Collection<String> stateCodes, String sex, int limit) {
+        Cube current = cube;
+        if (current == null) {
+            throw new IllegalStateException("SSA aggregate cube is not built yet");
+        }
+        int from = Math.max(fromYear, current.firstYear);
+        int to = Math.min(toYear, current.lastYear);
+        if (from > to) {
+            throw new IllegalArgumentException("No SSA data between " + fromYear + " and " + toYear);
+        }
+        if (!stateCodes.isEmpty() && !current.hasStates) {
+            throw new IllegalStateException("State data is not loaded into the SSA aggregate cube");
+        }
+
+        long[] totals = new long[current.source.size()];
+        for (int area : cover(stateCodes)) {
+            int year = from;
+            while (year <= to) {
+                if (year % 10 == 0 && year + 9 <= to) {
+                    current.addTo(totals, area, current.decadePeriod(year));
+                    year += 10;
+                } else {
+                    current.addTo(totals, area, current.yearPeriod(year));
+                    year++;
+                }
+            }
+        }
+
+        // Min-heap of the best keys so far; ties keep the lower key
+        Comparator<Integer> byTotal = Comparator.<Integer>comparingLong(key -> totals[key])
+                .thenComparing(Comparator.<Integer>naturalOrder().reversed());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, byTotal);
+        long totalCount = 0;
+        for (int key = 0; key < totals.length; key++) {
+            if (totals[key] == 0 || (sex != null && !sex.equals(current.source.sex(key)))) {
+                continue;
+            }
+            totalCount += totals[key];
+            heap.offer(key);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<TopName> names = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int key = heap.poll();
+            names.add(new TopName(0, current.source.name(key), current.source.sex(key), totals[key],
+                    totalCount > 0 ? (double) totals[key] / totalCount : 0));
+        }
+        List<TopName> ranked = new ArrayList<>(names.size());
+        for (int i = names.size() - 1; i >= 0; i--) {
+            TopName name = names.get(i);
+            ranked.add(new TopName(ranked.size() + 1, name.name(), name.sex(), name.count(), name.share()));
+        }
+        return new TopNames(from, to, totalCount, ranked);
+    }
+
+    /**
+     * Areas covering a state set: aggregated regions it contains completely, then single states
+     */
+    private static List<Integer> cover(Collection<String> stateCodes) {
+        if (stateCodes.isEmpty()) {
+            return List.of(NATIONAL_AREA);
+        }
+        BitSet states = new BitSet(STATE_COUNT);
+        for (String stateCode : stateCodes) {
+            int ordinal = SsaStateCodes.ordinal(stateCode);
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("Unknown state code: " + stateCode);
+            }
+            states.set(ordinal);
+        }
+
+        List<Integer> areas = new ArrayList<>();
+        for (int r = 0; r < AGGREGATED_REGIONS.length; r++) {
+            List<String> regionStates = AGGREGATED_REGIONS[r].getStateCodes();
+            if (regionStates.stream().allMatch(code -> states.get(SsaStateCodes.ordinal(code)))) {
+                areas.add(FIRST_REGION_AREA + r);
+                regionStates.forEach(code -> states.clear(SsaStateCodes.ordinal(code)));
+            }
+        }
+        states.stream().forEach(ordinal -> areas.add(FIRST_STATE_AREA + ordinal));
+        return areas;
+    }
+
+    /**
+     * Rebuild from a series source. Sources without state breakdowns (heap-built stores)
+     * get them streamed from the database.
+     */
+    void rebuild(SsaSeriesSource source) {
+        long start = System.currentTimeMillis();
+        int firstYear = Integer.MAX_VALUE;
+        int lastYear = Integer.MIN_VALUE;
+        for (int key = 0; key < source.size(); key++) {
+            if (source.lastYear(key) != 0) {
+                firstYear = Math.min(firstYear, source.firstYear(key));
+                lastYear = Math.max(lastYear, source.lastYear(key));
+            }
+        }
+        if (firstYear > lastYear) {
+            cube = null;
+            log.info("SSA aggregate cube is empty (no yearly stats)");
+            return;
+        }
+
+        CubeBuilder builder = new CubeBuilder(firstYear, lastYear);
+        for (int key = 0; key < source.size(); key++) {
+            if (source.lastYear(key) == 0) {
+                continue;
+            }
+            for (int year = source.firstYear(key); year <= source.lastYear(key); year++) {
+                int count = source.count(key, year);
+                if (count > 0) {
+                    builder.add(NATIONAL_AREA, key, year, count);
+                }
+            }
+            if (source.hasStates()) {
+                int stateKey = key;
+                source.forEachState(key, (year, ordinal, count) -> builder.addState(stateKey, year, ordinal, count));
+            }
+        }
+
+        boolean hasStates = source.hasStates();
+        if (!hasStates && source instanceof SsaSeriesData data) {
+            bulkLoader.stream(STATES_SQL, rs -> {
+                int key = data.keyForNameId(rs.getLong(1));
+                int ordinal = SsaStateCodes.ordinal(rs.getString(3));
+                if (key >= 0 && ordinal >= 0) {
+                    builder.addState(key, rs.getInt(2), ordinal, rs.getInt(4));
+                }
+            });
+            hasStates = true;
+        }
+
+        Cube built = builder.build(source, hasStates);
+        cube = built;
+        log.info("Built SSA aggregate cube for {}-{}: {} cells in {} blocks in {}ms",
+                firstYear, lastYear, built.cellCount(), built.blockCount(), System.currentTimeMillis() - start);
+    }
+
+    public record TopName(int rank, String name, String sex, long count, double share) {
+    }
+
+    public record TopNames(int fromYear, int toYear, long totalCount, List<TopName> names) {
+    }
+
+    /**
+     * Immutable blocks indexed by area * periodCount + period
+     */
+    private static final class Cube {
+
+        private final SsaSeriesSource source;
+        private final boolean hasStates;
+        private final int firstYear;
+        private final int lastYear;
+        private final int firstDecade;
+        private final int periodCount;
+        private final int[][] keys;
+        private final int[][] counts;
+
+        Cube(SsaSeriesSource source, boolean hasStates, int firstYear, int lastYear, int[][] keys, int[][] counts) {
+            this.source = source;
+            this.hasStates = hasStates;
+            this.firstYear = firstYear;
+            this.lastYear = lastYear;
+            this.firstDecade = firstYear / 10 * 10;
+            this.periodCount = keys.length / AREA_COUNT;
+            this.keys = keys;
+            this.counts = counts;
+        }
+
+        int yearPeriod(int year) {
+            return year - firstYear;
+        }
+
+        int decadePeriod(int year) {
+            return lastYear - firstYear + 1 + (year - firstDecade) / 10;
+        }
+
+        void addTo(long[] totals, int area, int period) {
+            int block = area * periodCount + period;
+            int[] blockKeys = keys[block];
+            int[] blockCounts = counts[block];
+            for (int i = 0; i < blockKeys.length; i++) {
+                totals[blockKeys[i]] += blockCounts[i];
+            }
+        }
+
+        long cellCount() {
+            long cells = 0;
+            for (int[] block : keys) {
+                cells += block.length;
+            }
+            return cells;
+        }
+
+        int blockCount() {
+            return keys.length;
+        }
+    }
+
+    /**
+     * Appends counts in key order; consecutive additions for the same key and block are merged,
+     * which holds because every source is visited key by key
+     */
+    private static final class CubeBuilder {
+
+        private static final int[] EMPTY = new int[0];
+
+        private final int firstYear;
+        private final int lastYear;
+        private final int firstDecade;
+        private final int periodCount;
+        private final int[][] keys;
+        private final int[][] counts;
+        private final int[] sizes;
+
+        CubeBuilder(int firstYear, int lastYear) {
+            this.firstYear = firstYear;
+            this.lastYear = lastYear;
+            this.firstDecade = firstYear / 10 * 10;
+            int decades = (lastYear / 10 * 10 - firstDecade) / 10 + 1;
+            this.periodCount = lastYear - firstYear + 1 + decades;
+            this.keys = new int[AREA_COUNT * periodCount][];
+            this.counts = new int[AREA_COUNT * periodCount][];
+            this.sizes = new int[AREA_COUNT * periodCount];
+            Arrays.fill(keys, EMPTY);
+            Arrays.fill(counts, EMPTY);
+        }
+
+        void addState(int key, int year, int ordinal, int count) {
+            add(FIRST_STATE_AREA + ordinal, key, year, count);
+            add(FIRST_REGION_AREA + REGION_OF_STATE[ordinal], key, year, count);
+        }
+
+        void add(int area, int key, int year, int count) {
+            if (year < firstYear || year > lastYear) {
+                return;
+            }
+            int base = area * periodCount;
+            append(base + year - firstYear, key, count);
+            append(base + lastYear - firstYear + 1 + (year - firstDecade) / 10, key, count);
+        }
+
+        private void append(int block, int key, int count) {
+            int size = sizes[block];
+            if (size > 0 && keys[block][size - 1] == key) {
+                counts[block][size - 1] += count;
+                return;
+            }
+            if (size == keys[block].length) {
+                int capacity = Math.max(16, size * 2);
+                keys[block] = Arrays.copyOf(keys[block], capacity);
+                counts[block] = Arrays.copyOf(counts[block], capacity);
+            }
+            keys[block][size] = key;
+            counts[block][size] = count;
+            sizes[block] = size + 1;
+        }
+
+        Cube build(SsaSeriesSource source, boolean hasStates) {
+            for (int block = 0; block < keys.length; block++) {
+                keys[block] = Arrays.copyOf(keys[block], sizes[block]);
+                counts[block] = Arrays.copyOf(counts[block], sizes[block]);
+            }
+            return new Cube(source, hasStates, firstYear, lastYear, keys, counts);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.flicknames.service.collector.ssa;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Streaming download of an SSA archive that computes the MD5 checksum while the bytes arrive.
+ *
+ * The body is parsed straight from the network; closing the parser's stream drains whatever
+ * the parser did not read (e.g. the ZIP central directory) so the checksum always covers the
+ * whole file. Only callers that need random access spool the body to a temp file.
+ */
+@Slf4j
+class SsaArchiveDownload implements Closeable {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    private final String url;
+    private final InputStream rawBody;
+    private final DigestInputStream body;
+    private final String etag;
+    private final Long contentLength;
+    private long bytesRead;
+
+    private SsaArchiveDownload(String url, HttpResponse<InputStream> response) throws IOException {
+        this.url = url;
+        this.rawBody = response.body();
+        this.etag = response.headers().firstValue("ETag").orElse(null);
+        this.contentLength = contentLength(response);
+        try {
+            this.body = new DigestInputStream(new BufferedInputStream(rawBody, 1 << 16),
+                    MessageDigest.getInstance("MD5"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("MD5 not available", e);
+        }
+    }
+
+    /**
+     * Start downloading the archive; the body is consumed through {@link #body()} or {@link #spoolToTempFile()}
+     */
+    static SsaArchiveDownload open(String url) throws IOException, InterruptedException {
+        log.info("Streaming download from {}", url);
+        HttpResponse<InputStream> response = CLIENT.send(request(url).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Failed to download file: HTTP " + response.statusCode());
+        }
+        return new SsaArchiveDownload(url, response);
+    }
+
+    /**
+     * ETag and Content-Length of the remote archive from a HEAD request.
+     * Returns empty info (never throws) when the server does not answer HEAD.
+     */
+    static RemoteArchiveInfo probe(String url) {
+        try {
+            HttpResponse<Void> response = CLIENT.send(
+                    request(url).method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                log.info("HEAD {} returned HTTP {}, cannot check for changes", url, response.statusCode());
+                return RemoteArchiveInfo.UNKNOWN;
+            }
+            return new RemoteArchiveInfo(response.headers().firstValue("ETag").orElse(null), contentLength(response));
+        } catch (IOException e) {
+            log.info("HEAD {} failed ({}), cannot check for changes", url, e.getMessage());
+            return RemoteArchiveInfo.UNKNOWN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RemoteArchiveInfo.UNKNOWN;
+        }
+    }
+
+    /**
+     * Archive bytes as they arrive. Closing the returned stream drains the rest of the body
+     * into the digest instead of aborting the download.
+     */
+    InputStream body() {
+        return new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesRead += read;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                drain();
+            }
+        };
+    }
+
+    /**
+     * Write the whole body to a temp file (hashing it on the way) for parsers that need random access
+     */
+    Path spoolToTempFile() throws IOException {
+        Path tempFile = Files.createTempFile("ssa-names-", ".zip");
+        try {
+            bytesRead += Files.copy(body, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        log.info("Spooled {} bytes from {} to {}", bytesRead, url, tempFile);
+        return tempFile;
+    }
+
+    /**
+     * Hex MD5 of the full body; only valid once the body has been fully read
+     */
+    String checksum() {
+        return HexFormat.of().formatHex(body.getMessageDigest().digest());
+    }
+
+    String etag() {
+        return etag;
+    }
+
+    Long contentLength() {
+        return contentLength;
+    }
+
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        rawBody.close();
+    }
+
+    private void drain() throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        int read;
+        while ((read = body.read(buffer)) >= 0) {
+            bytesRead += read;
+        }
+    }
+
+    private static HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMinutes(5))
+                .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                .header("Accept-Language", "en-US,en;q=0.9")
+                .header("Referer", "https://www.ssa.gov/");
+    }
+
+    private static Long contentLength(HttpResponse<?> response) {
+        return response.headers().firstValueAsLong("Content-Length").stream().boxed().findFirst().orElse(null);
+    }
+
+    /**
+     * Change-detection headers of a remote archive (fields are null when unknown)
+     */
+    record RemoteArchiveInfo(String etag, Long contentLength) {
+
+        static final RemoteArchiveInfo UNKNOWN = new RemoteArchiveInfo(null, null);
+
+        /**
+         * True if an unchanged ETag proves this is the file of a previous import. Without an ETag
+         * the file is only recognised by its checksum after downloading it.
+         */
+        boolean sameEtag(String previousEtag) {
+            return etag != null && etag.equals(previousEtag);
+        }
+
+        /**
+         * True if this response plausibly identifies the file a resumed import started on.
+         * ETags are compared when both sides have one; otherwise only an exact Content-Length match counts.
+         */
+        boolean matches(String previousEtag, Long previousContentLength) {
+            if (etag != null && previousEtag != null) {
+                return etag.equals(previousEtag);
+            }
+            return etag == null && previousEtag == null
+                    && contentLength != null && contentLength.equals(previousContentLength);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.bulk.BulkLoader;
+import com.flicknames.service.collector.bulk.BulkWriter;
+import com.flicknames.service.collector.job.ImportJobService;
+import com.flicknames.service.collector.job.JobRejectedException;
+import com.flicknames.service.collector.job.JobType;
+import com.flicknames.service.util.PackedInts;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the compact ssa_name_series table: one row per name with year-indexed counts and
+ * ranks packed into binary columns.
+ *
+ * Import and ranking paths refresh only the rows of names with data in the years they wrote,
+ * re-reading those names' full histories in ranges of name ids. Inside a transaction the
+ * refresh commits with the writes; otherwise it runs in its own transaction, so readers keep
+ * seeing the previous rows until it commits. A database with SSA data but no compact rows is
+ * backfilled once on startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaCompactSeriesWriter {
+
+    private static final int NAME_ID_RANGE = 2_000;
+
+    // Params: first and last name id, then the scope's year range if any
+    private static final String NATIONAL_SQL = """
+        SELECT y.ssa_name_id, y.year, y.count, y.rank
+        FROM ssa_name_yearly_stats y
+        WHERE y.ssa_name_id BETWEEN ? AND ?
+        """;
+
+    // Names with national data in a year range
+    private static final String NAMES_IN_YEARS = """
+        ssa_name_id IN (SELECT t.ssa_name_id FROM ssa_name_yearly_stats t WHERE t.year BETWEEN ? AND ?)""";
+
+    private static final String[] COLUMNS = {"ssa_name_id", "first_year", "counts", "ranks", "total_count"};
+
+    private final BulkLoader bulkLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportJobService jobService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (hasRows("ssa_name_series") || !hasRows("ssa_name_yearly_stats")) {
+            return;
+        }
+        try {
+            jobService.submit(JobType.SSA, "Backfill compact SSA series", job ->
+                    Map.of("names", refreshNational(null, null)));
+        } catch (JobRejectedException e) {
+            log.warn("Could not queue compact SSA series backfill: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the rows of names with yearly stats between {@code fromYear} and {@code toYear}
+     * (inclusive, null for open), or of every name when both are null
+     *
+     * @return number of rows written
+     */
+    int refreshNational(Integer fromYear, Integer toYear) {
+        long start = System.currentTimeMillis();
+        boolean scoped = fromYear != null || toYear != null;
+        Object[] scope = scoped ? new Object[]{bound(fromYear, 0), bound(toYear, 9999)} : new Object[0];
+
+        Integer written = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("DELETE FROM ssa_name_series" + (scoped ? " WHERE " + NAMES_IN_YEARS : ""), scope);
+            String sql = NATIONAL_SQL + (scoped ? " AND y." + NAMES_IN_YEARS : "") + " ORDER BY y.ssa_name_id, y.year";
+            return write(sql, scope);
+        });
+        log.info("Refreshed compact SSA series for years {}-{}: {} name rows in {}ms",
+                fromYear, toYear, written, System.currentTimeMillis() - start);
+        return written != null ? written : 0;
+    }
+
+    private int write(String sql, Object[] scope) {
+        Map<String, Object> idRange = jdbcTemplate.queryForMap(
+                "SELECT COALESCE(MIN(id), 0) AS min_id, COALESCE(MAX(id), -1) AS max_id FROM ssa_names");
+        long minId = ((Number) idRange.get("min_id")).longValue();
+        long maxId = ((Number) idRange.get("max_id")).longValue();
+
+        int rows = 0;
+        try (BulkWriter writer = bulkLoader.writer("ssa_name_series", COLUMNS)) {
+            for (long from = minId; from <= maxId; from += NAME_ID_RANGE) {
+                // Read the whole range before writing, so no cursor is open during COPY
+                SeriesPacker packer = new SeriesPacker();
+                List<Object> params = new ArrayList<>(List.of(from, from + NAME_ID_RANGE - 1));
+                params.addAll(Arrays.asList(scope));
+                jdbcTemplate.query(sql, rs -> {
+                    packer.add(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+                }, params.toArray());
+                for (Object[] row : packer.finish()) {
+                    writer.add(row);
+                }
+                rows += packer.rows.size();
+            }
+        }
+        return rows;
+    }
+
+    private boolean hasRows(String table) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM " + table + " LIMIT 1").isEmpty();
+    }
+
+    private static int bound(Integer year, int open) {
+        return year != null ? year : open;
+    }
+
+    /**
+     * Packs rows ordered by (name id, year) into one row per name
+     */
+    private static final class SeriesPacker {
+
+        private final List<Object[]> rows = new ArrayList<>();
+        private long nameId = -1;
+        private int firstYear;
+        private int[] counts = new int[160];
+        private int[] ranks = new int[160];
+        private int span;
+        private long total;
+
+        void add(long nameId, int year, int count, int rank) {
+            if (nameId != this.nameId) {
+                flush();
+                this.nameId = nameId;
+                this.firstYear = year;
+            }
+            int index = year - firstYear;
+            if (index < span) {
+                return; // Duplicate year
+            }
+            if (index >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+                ranks = Arrays.copyOf(ranks, counts.length);
+            }
+            Arrays.fill(counts, span, index, 0);
+            Arrays.fill(ranks, span, index, 0);
+            counts[index] = count;
+            ranks[index] = rank;
+            span = index + 1;
+            total += count;
+        }
+
+        List<Object[]> finish() {
+            flush();
+            return rows;
+        }
+
+        private void flush() {
+            if (span > 0) {
+                byte[] packedCounts = PackedInts.pack(counts, 0, span);
+                byte[] packedRanks = PackedInts.pack(ranks, 0, span);
+                rows.add(new Object[]{nameId, firstYear, packedCounts, packedRanks, total});
+            }
+            span = 0;
+            total = 0;
+        }
+    }
+}
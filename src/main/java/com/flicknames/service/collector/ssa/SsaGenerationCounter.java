@@ -0,0 +1,56 @@
+package com.flicknames.service.collector.ssa;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Generation of the SSA data, kept in the single ssa_data_generation row.
+ *
+ * Every write path bumps the generation once its rows are written. Inside a transaction the
+ * bump commits with the writes; otherwise it commits on its own.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaGenerationCounter {
+
+    private static final int ROW_ID = 1;
+
+    private static final String BUMP_SQL = "UPDATE ssa_data_generation SET generation = generation + 1 WHERE id = ?";
+
+    private static final String SEED_SQL = "INSERT INTO ssa_data_generation (id, generation) VALUES (?, 1)";
+
+    private static final String CURRENT_SQL = "SELECT generation FROM ssa_data_generation WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Record that SSA data changed
+     *
+     * @return the new generation
+     */
+    public long bump() {
+        Long generation = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(BUMP_SQL, ROW_ID) == 0) {
+                jdbcTemplate.update(SEED_SQL, ROW_ID);
+            }
+            return current();
+        });
+        log.debug("SSA data generation is now {}", generation);
+        return generation != null ? generation : 0;
+    }
+
+    /**
+     * Current generation, 0 before the first write
+     */
+    public long current() {
+        List<Long> generation = jdbcTemplate.queryForList(CURRENT_SQL, Long.class, ROW_ID);
+        return generation.isEmpty() ? 0 : generation.get(0);
+    }
+}
@@ -0,0 +1,118 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.entity.SsaImportMetadata;
+import com.flicknames.service.repository.SsaImportMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Resume point of one SSA import, persisted on its {@link SsaImportMetadata} record.
+ *
+ * National imports advance year by year: the checkpoint only moves forward while years are
+ * committed in ascending order, so every year at or below it is known to be fully written.
+ * State imports record the set of state files committed, whatever order the archive lists
+ * them in. Rows of an entry not yet recorded may be partly committed; a resumed run re-reads
+ * that entry and skips them as duplicates.
+ */
+@Slf4j
+class SsaImportCheckpoint {
+
+    private final SsaImportMetadata metadata;
+    private final SsaImportMetadataRepository repository;
+
+    // Where the run being resumed stopped (null for a fresh import)
+    private final Integer resumeAfterYear;
+    private final Set<String> resumedStates;
+    private final long resumedRowCount;
+
+    private final Set<String> committedStates;
+    private boolean ordered = true;
+
+    SsaImportCheckpoint(SsaImportMetadata metadata, SsaImportMetadataRepository repository) {
+        this.metadata = metadata;
+        this.repository = repository;
+        this.resumeAfterYear = metadata.getDatasetType() == SsaImportMetadata.DatasetType.NATIONAL
+                ? metadata.getCheckpointYear()
+                : null;
+        this.resumedStates = metadata.getDatasetType() == SsaImportMetadata.DatasetType.STATE
+                && metadata.getCheckpointStates() != null
+                ? Set.copyOf(Arrays.asList(metadata.getCheckpointStates().split(",")))
+                : Set.of();
+        this.committedStates = new LinkedHashSet<>(resumedStates);
+        this.resumedRowCount = metadata.getCheckpointRowOffset() != null ? metadata.getCheckpointRowOffset() : 0;
+    }
+
+    boolean isResumed() {
+        return resumeAfterYear != null || !resumedStates.isEmpty();
+    }
+
+    /**
+     * First national year still to import, or null when nothing was committed before
+     */
+    Integer resumeFromYear() {
+        return resumeAfterYear != null ? resumeAfterYear + 1 : null;
+    }
+
+    /**
+     * State codes committed before the resume (empty for a fresh import)
+     */
+    Set<String> resumedStates() {
+        return Collections.unmodifiableSet(resumedStates);
+    }
+
+    boolean isYearDone(int year) {
+        return resumeAfterYear != null && year <= resumeAfterYear;
+    }
+
+    boolean isStateDone(String stateCode) {
+        return resumedStates.contains(stateCode);
+    }
+
+    /**
+     * Rows counted by earlier runs of this import, carried into the resumed totals
+     */
+    long resumedRowCount() {
+        return resumedRowCount;
+    }
+
+    /**
+     * Record a committed national year file
+     */
+    void yearCommitted(int year, long rowOffset) {
+        String entryName = "yob" + year + ".txt";
+        Integer current = metadata.getCheckpointYear();
+        if (!advance(current == null || year > current, entryName)) {
+            return;
+        }
+        metadata.setCheckpointYear(year);
+        save(entryName, rowOffset);
+    }
+
+    /**
+     * Record a committed state file
+     */
+    void stateCommitted(String entryName, long rowOffset) {
+        committedStates.add(entryName.substring(0, 2));
+        metadata.setCheckpointStates(String.join(",", committedStates));
+        save(entryName, rowOffset);
+    }
+
+    private boolean advance(boolean inOrder, String entryName) {
+        if (ordered && !inOrder) {
+            ordered = false;
+            log.warn("Import {} committed {} out of order; checkpoint stays at {}",
+                    metadata.getId(), entryName, metadata.getCheckpointEntry());
+        }
+        return ordered;
+    }
+
+    private void save(String entryName, long rowOffset) {
+        metadata.setCheckpointEntry(entryName);
+        metadata.setCheckpointRowOffset(rowOffset);
+        repository.save(metadata);
+    }
+}
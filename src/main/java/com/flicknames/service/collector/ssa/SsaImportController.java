@@ -1,11 +1,14 @@
 package com.flicknames.service.collector.ssa;
 
+import com.flicknames.service.collector.job.ImportJob;
+import com.flicknames.service.collector.job.JobRejectedException;
 import com.flicknames.service.entity.SsaImportMetadata;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -37,12 +40,23 @@ public class SsaImportController {
             @Parameter(description = "Minimum year to import (inclusive)")
             @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year to import (inclusive)")
-            @RequestParam(required = false) Integer maxYear) {
-
-        log.info("Starting national SSA import (force={}, years={}-{})", force, minYear, maxYear);
+            @RequestParam(required = false) Integer maxYear,
+            @Parameter(description = "Parse year files in parallel (national data only)")
+            @RequestParam(defaultValue = "false") boolean parallel,
+            @Parameter(description = "Assign ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks,
+            @Parameter(description = "Continue the latest interrupted import of this source from its checkpoint")
+            @RequestParam(defaultValue = "false") boolean resume,
+            @Parameter(description = "Merge rows in the database instead of preloading existing rows (national data only)")
+            @RequestParam(defaultValue = "false") boolean upsert,
+            @Parameter(description = "Build a staging table and swap it in when done (national data, PostgreSQL only)")
+            @RequestParam(defaultValue = "false") boolean rebuild) {
+
+        log.info("Starting national SSA import (force={}, years={}-{}, parallel={})", force, minYear, maxYear, parallel);
 
         try {
-            SsaImportService.SsaImportResult result = ssaImportService.importNationalData(force, minYear, maxYear);
+            SsaImportService.SsaImportResult result = ssaImportService.importNationalData(force,
+                    importOptions(minYear, maxYear, parallel, withRanks, resume, upsert, rebuild));
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -72,12 +86,23 @@ public class SsaImportController {
             @Parameter(description = "Minimum year to import (inclusive)")
             @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year to import (inclusive)")
-            @RequestParam(required = false) Integer maxYear) {
+            @RequestParam(required = false) Integer maxYear,
+            @Parameter(description = "Parse year files in parallel (national data only)")
+            @RequestParam(defaultValue = "false") boolean parallel,
+            @Parameter(description = "Assign ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks,
+            @Parameter(description = "Continue the latest interrupted import of this source from its checkpoint")
+            @RequestParam(defaultValue = "false") boolean resume,
+            @Parameter(description = "Merge rows in the database instead of preloading existing rows (national data only)")
+            @RequestParam(defaultValue = "false") boolean upsert,
+            @Parameter(description = "Build a staging table and swap it in when done (national data, PostgreSQL only)")
+            @RequestParam(defaultValue = "false") boolean rebuild) {
 
         log.info("Starting national SSA import from custom URL: {}", url);
 
         try {
-            SsaImportService.SsaImportResult result = ssaImportService.importNationalDataFromUrl(url, force, minYear, maxYear);
+            SsaImportService.SsaImportResult result = ssaImportService.importNationalDataFromUrl(url, force,
+                    importOptions(minYear, maxYear, parallel, withRanks, resume, upsert, rebuild));
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -105,12 +130,17 @@ public class SsaImportController {
             @Parameter(description = "Minimum year to import (inclusive)")
             @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year to import (inclusive)")
-            @RequestParam(required = false) Integer maxYear) {
+            @RequestParam(required = false) Integer maxYear,
+            @Parameter(description = "Assign state ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks,
+            @Parameter(description = "Continue the latest interrupted import of this source from its checkpoint")
+            @RequestParam(defaultValue = "false") boolean resume) {
 
         log.info("Starting state SSA import (force={}, years={}-{})", force, minYear, maxYear);
 
         try {
-            SsaImportService.SsaImportResult result = ssaImportService.importStateData(force, minYear, maxYear);
+            SsaImportService.SsaImportResult result = ssaImportService.importStateData(force,
+                    importOptions(minYear, maxYear, false, withRanks, resume, false, false));
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -139,12 +169,17 @@ public class SsaImportController {
             @Parameter(description = "Minimum year to import (inclusive)")
             @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year to import (inclusive)")
-            @RequestParam(required = false) Integer maxYear) {
+            @RequestParam(required = false) Integer maxYear,
+            @Parameter(description = "Assign state ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks,
+            @Parameter(description = "Continue the latest interrupted import of this source from its checkpoint")
+            @RequestParam(defaultValue = "false") boolean resume) {
 
         log.info("Starting state SSA import from custom URL: {}", url);
 
         try {
-            SsaImportService.SsaImportResult result = ssaImportService.importStateDataFromUrl(url, force, minYear, maxYear);
+            SsaImportService.SsaImportResult result = ssaImportService.importStateDataFromUrl(url, force,
+                    importOptions(minYear, maxYear, false, withRanks, resume, false, false));
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -172,7 +207,15 @@ public class SsaImportController {
             @Parameter(description = "Minimum year to import (inclusive)")
             @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year to import (inclusive)")
-            @RequestParam(required = false) Integer maxYear) {
+            @RequestParam(required = false) Integer maxYear,
+            @Parameter(description = "Parse year files in parallel (national data only)")
+            @RequestParam(defaultValue = "false") boolean parallel,
+            @Parameter(description = "Assign ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks,
+            @Parameter(description = "Merge rows in the database instead of preloading existing rows (national data only)")
+            @RequestParam(defaultValue = "false") boolean upsert,
+            @Parameter(description = "Build a staging table and swap it in when done (national data, PostgreSQL only)")
+            @RequestParam(defaultValue = "false") boolean rebuild) {
 
         log.info("Starting SSA import from uploaded file: {} (type={}, years={}-{})",
                 file.getOriginalFilename(), datasetType, minYear, maxYear);
@@ -184,7 +227,8 @@ public class SsaImportController {
             file.transferTo(tempFile);
 
             SsaImportService.SsaImportResult result = ssaImportService.importFromLocalFile(
-                    tempFile, datasetType, minYear, maxYear);
+                    tempFile, datasetType,
+                    importOptions(minYear, maxYear, parallel, withRanks, false, upsert, rebuild));
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -222,14 +266,23 @@ public class SsaImportController {
             @Parameter(description = "Minimum year to import (inclusive)")
             @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year to import (inclusive)")
-            @RequestParam(required = false) Integer maxYear) {
+            @RequestParam(required = false) Integer maxYear,
+            @Parameter(description = "Parse year files in parallel (national data only)")
+            @RequestParam(defaultValue = "false") boolean parallel,
+            @Parameter(description = "Assign ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks,
+            @Parameter(description = "Merge rows in the database instead of preloading existing rows (national data only)")
+            @RequestParam(defaultValue = "false") boolean upsert,
+            @Parameter(description = "Build a staging table and swap it in when done (national data, PostgreSQL only)")
+            @RequestParam(defaultValue = "false") boolean rebuild) {
 
         log.info("Starting local SSA import from {} (type={}, years={}-{})",
                 filePath, datasetType, minYear, maxYear);
 
         try {
             SsaImportService.SsaImportResult result = ssaImportService.importFromLocalFile(
-                    Paths.get(filePath), datasetType, minYear, maxYear);
+                    Paths.get(filePath), datasetType,
+                    importOptions(minYear, maxYear, parallel, withRanks, false, upsert, rebuild));
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -249,7 +302,8 @@ public class SsaImportController {
 
     @PostMapping("/import/local-async")
     @Operation(summary = "Import SSA data from local ZIP file (async)",
-               description = "Starts import in background and returns immediately. Poll /import/history to check status.")
+               description = "Queues the import on the SSA job pool and returns immediately. " +
+                           "Track it under /api/v1/admin/jobs or poll /import/history.")
     public ResponseEntity<Map<String, Object>> importFromLocalFileAsync(
             @Parameter(description = "Path to local ZIP file")
             @RequestParam String filePath,
@@ -258,19 +312,37 @@ public class SsaImportController {
             @Parameter(description = "Minimum year to import (inclusive)")
             @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year to import (inclusive)")
-            @RequestParam(required = false) Integer maxYear) {
+            @RequestParam(required = false) Integer maxYear,
+            @Parameter(description = "Parse year files in parallel (national data only)")
+            @RequestParam(defaultValue = "false") boolean parallel,
+            @Parameter(description = "Assign ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks,
+            @Parameter(description = "Continue the latest interrupted import of this source from its checkpoint")
+            @RequestParam(defaultValue = "false") boolean resume,
+            @Parameter(description = "Merge rows in the database instead of preloading existing rows (national data only)")
+            @RequestParam(defaultValue = "false") boolean upsert,
+            @Parameter(description = "Build a staging table and swap it in when done (national data, PostgreSQL only)")
+            @RequestParam(defaultValue = "false") boolean rebuild) {
 
         log.info("Starting ASYNC local SSA import from {} (type={}, years={}-{})",
                 filePath, datasetType, minYear, maxYear);
 
         try {
-            Long importId = ssaImportService.importFromLocalFileAsync(
-                    Paths.get(filePath), datasetType, minYear, maxYear);
+            SsaImportService.SsaAsyncImport started = ssaImportService.importFromLocalFileAsync(
+                    Paths.get(filePath), datasetType,
+                    importOptions(minYear, maxYear, parallel, withRanks, resume, upsert, rebuild));
 
             return ResponseEntity.accepted().body(Map.of(
                     "status", "accepted",
-                    "importId", importId,
-                    "message", "Import started in background. Poll /api/v1/ssa/import/history to check status."
+                    "importId", started.importId(),
+                    "jobId", started.jobId(),
+                    "message", "Import queued in background. Poll /api/v1/admin/jobs/" + started.jobId()
+                            + " or /api/v1/ssa/import/history to check status."
+            ));
+        } catch (JobRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
             ));
         } catch (Exception e) {
             log.error("Failed to start async import", e);
@@ -309,27 +381,43 @@ public class SsaImportController {
 
     @PostMapping("/rankings/calculate-range")
     @Operation(summary = "Calculate rankings for a range of years",
-               description = "Calculates rankings for all years in the specified range")
+               description = "Calculates rank, proportion and rank change for all years in the specified range " +
+                           "in a single set-based pass. With parallel=true the years are ranked concurrently, " +
+                           "one transaction per year, as a background job.")
     public ResponseEntity<Map<String, Object>> calculateRankingsRange(
             @Parameter(description = "Start year (inclusive)")
             @RequestParam Integer startYear,
             @Parameter(description = "End year (inclusive)")
-            @RequestParam Integer endYear) {
+            @RequestParam Integer endYear,
+            @Parameter(description = "Rank years concurrently in a background job")
+            @RequestParam(defaultValue = "false") boolean parallel) {
 
-        log.info("Calculating rankings for years {} to {}", startYear, endYear);
+        log.info("Calculating rankings for years {} to {} (parallel={})", startYear, endYear, parallel);
 
         try {
-            int yearsProcessed = 0;
-            for (int year = startYear; year <= endYear; year++) {
-                ssaImportService.calculateRankings(year);
-                yearsProcessed++;
+            if (parallel) {
+                ImportJob job = ssaImportService.calculateRankingsInParallel(startYear, endYear);
+                return ResponseEntity.accepted().body(Map.of(
+                        "status", "accepted",
+                        "jobId", job.getId(),
+                        "message", "Ranking queued in background. Poll /api/v1/admin/jobs/" + job.getId()
+                                + " to check progress."
+                ));
             }
 
+            int rowsUpdated = ssaImportService.calculateRankings(startYear.intValue(), endYear.intValue());
+
             return ResponseEntity.ok(Map.of(
                     "status", "success",
-                    "yearsProcessed", yearsProcessed,
+                    "yearsProcessed", Math.max(0, endYear - startYear + 1),
+                    "rowsUpdated", rowsUpdated,
                     "message", String.format("Rankings calculated for years %d to %d", startYear, endYear)
             ));
+        } catch (JobRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
         } catch (Exception e) {
             log.error("Failed to calculate rankings for range {}-{}", startYear, endYear, e);
             return ResponseEntity.internalServerError().body(Map.of(
@@ -365,6 +453,38 @@ public class SsaImportController {
         }
     }
 
+    @PostMapping("/rankings/state-range")
+    @Operation(summary = "Calculate state rankings for a range of years",
+               description = "Calculates state ranks for all years in the range, for one state or all states")
+    public ResponseEntity<Map<String, Object>> calculateStateRankingsRange(
+            @Parameter(description = "Start year (inclusive)")
+            @RequestParam Integer startYear,
+            @Parameter(description = "End year (inclusive)")
+            @RequestParam Integer endYear,
+            @Parameter(description = "Two-letter state code (omit for all states)")
+            @RequestParam(required = false) String stateCode) {
+
+        log.info("Calculating state rankings for {} in {} to {}",
+                stateCode != null ? stateCode : "all states", startYear, endYear);
+
+        try {
+            String state = stateCode != null ? stateCode.toUpperCase() : null;
+            int rowsUpdated = ssaImportService.calculateStateRankings(startYear, endYear, state);
+
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "rowsUpdated", rowsUpdated,
+                    "message", String.format("State rankings calculated for years %d to %d", startYear, endYear)
+            ));
+        } catch (Exception e) {
+            log.error("Failed to calculate state rankings for range {}-{}", startYear, endYear, e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
     @GetMapping("/import/history")
     @Operation(summary = "Get import history",
                description = "Returns a list of all SSA import operations with their status")
@@ -388,11 +508,13 @@ public class SsaImportController {
 
     @PostMapping("/import/full-state-history")
     @Operation(summary = "Import full historical state data (1910-2024)",
-               description = "Imports state data in year-range chunks to manage memory efficiently. " +
-                           "Runs multiple imports sequentially for different year ranges.")
+               description = "Reads the state ZIP once and imports it in year-range chunks, " +
+                           "each loaded with its own yearly stat ids and committed independently.")
     public ResponseEntity<Map<String, Object>> importFullStateHistory(
             @Parameter(description = "Path to local state ZIP file")
-            @RequestParam String filePath) {
+            @RequestParam String filePath,
+            @Parameter(description = "Assign state ranks during import instead of a separate ranking pass")
+            @RequestParam(defaultValue = "false") boolean withRanks) {
 
         log.info("Starting full state history import from {}", filePath);
         long overallStartTime = System.currentTimeMillis();
@@ -408,46 +530,34 @@ public class SsaImportController {
                 {1910, 1949}
         };
 
-        long totalRecords = 0;
-        int chunksCompleted = 0;
-        List<Map<String, Object>> chunkResults = new ArrayList<>();
+        List<SsaImportOptions> ranges = new ArrayList<>();
+        for (int[] yearRange : yearRanges) {
+            ranges.add(importOptions(yearRange[0], yearRange[1], false, withRanks, false, false, false));
+        }
 
         try {
-            Path zipFile = Paths.get(filePath);
-
-            for (int[] yearRange : yearRanges) {
-                int minYear = yearRange[0];
-                int maxYear = yearRange[1];
-
-                log.info("Processing chunk {}/{}: years {}-{}", chunksCompleted + 1, yearRanges.length, minYear, maxYear);
-                long chunkStart = System.currentTimeMillis();
-
-                try {
-                    SsaImportService.SsaImportResult result = ssaImportService.importFromLocalFile(
-                            zipFile, SsaImportMetadata.DatasetType.STATE, minYear, maxYear);
-
-                    long chunkDuration = System.currentTimeMillis() - chunkStart;
-                    totalRecords += result.recordCount();
-                    chunksCompleted++;
-
-                    Map<String, Object> chunkResult = Map.of(
-                            "yearRange", minYear + "-" + maxYear,
-                            "recordCount", result.recordCount(),
-                            "durationMs", chunkDuration
-                    );
-                    chunkResults.add(chunkResult);
-
-                    log.info("Chunk {}/{} complete: {} records in {}ms",
-                            chunksCompleted, yearRanges.length, result.recordCount(), chunkDuration);
-
-                } catch (Exception e) {
-                    log.error("Failed to import chunk {}-{}", minYear, maxYear, e);
-                    // Add error result
+            List<SsaImportService.StateRangeResult> results =
+                    ssaImportService.importStateHistory(Paths.get(filePath), ranges);
+
+            long totalRecords = 0;
+            int chunksCompleted = 0;
+            List<Map<String, Object>> chunkResults = new ArrayList<>();
+            for (SsaImportService.StateRangeResult result : results) {
+                String yearRange = result.minYear() + "-" + result.maxYear();
+                if (result.error() != null) {
                     chunkResults.add(Map.of(
-                            "yearRange", minYear + "-" + maxYear,
-                            "error", e.getMessage()
+                            "yearRange", yearRange,
+                            "error", result.error()
                     ));
+                    continue;
                 }
+                totalRecords += result.recordCount();
+                chunksCompleted++;
+                chunkResults.add(Map.of(
+                        "yearRange", yearRange,
+                        "recordCount", result.recordCount(),
+                        "durationMs", result.durationMs()
+                ));
             }
 
             long totalDuration = System.currentTimeMillis() - overallStartTime;
@@ -468,10 +578,22 @@ public class SsaImportController {
             log.error("Failed to import full state history", e);
             return ResponseEntity.internalServerError().body(Map.of(
                     "status", "error",
-                    "message", e.getMessage(),
-                    "chunksCompleted", chunksCompleted,
-                    "chunkResults", chunkResults
+                    "message", e.getMessage()
             ));
         }
     }
+
+    private static SsaImportOptions importOptions(Integer minYear, Integer maxYear, boolean parallel,
+                                                  boolean withRanks, boolean resume, boolean upsert,
+                                                  boolean rebuild) {
+        return SsaImportOptions.builder()
+                .minYear(minYear)
+                .maxYear(maxYear)
+                .parallel(parallel)
+                .withRanks(withRanks)
+                .resume(resume)
+                .upsert(upsert)
+                .rebuild(rebuild)
+                .build();
+    }
 }
@@ -0,0 +1,56 @@
+package com.flicknames.service.collector.ssa;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options controlling how an SSA import runs.
+ * Defaults reproduce the original sequential import over all years.
+ */
+@Value
+@Builder
+public class SsaImportOptions {
+
+    /**
+     * Minimum year to import (inclusive), or null for no lower bound
+     */
+    Integer minYear;
+
+    /**
+     * Maximum year to import (inclusive), or null for no upper bound
+     */
+    Integer maxYear;
+
+    /**
+     * Parse national year entries in parallel (random-access ZIP + fork-join pool)
+     */
+    boolean parallel;
+
+    /**
+     * Assign rank, proportion and rank change while importing instead of in a separate ranking pass
+     */
+    boolean withRanks;
+
+    /**
+     * Continue the latest interrupted import of the same source from its checkpoint instead of starting over
+     */
+    boolean resume;
+
+    /**
+     * Merge national rows with INSERT ... ON CONFLICT instead of warming up caches of existing rows
+     */
+    boolean upsert;
+
+    /**
+     * Load national rows into a staging table and swap it in for the live yearly stats table when complete
+     */
+    boolean rebuild;
+
+    public static SsaImportOptions yearRange(Integer minYear, Integer maxYear) {
+        return SsaImportOptions.builder().minYear(minYear).maxYear(maxYear).build();
+    }
+
+    public boolean includesYear(int year) {
+        return (minYear == null || year >= minYear) && (maxYear == null || year <= maxYear);
+    }
+}
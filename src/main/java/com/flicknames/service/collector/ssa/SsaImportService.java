@@ -1,31 +1,38 @@
 package com.flicknames.service.collector.ssa;
 
+import com.flicknames.service.collector.bulk.BulkLoader;
+import com.flicknames.service.collector.bulk.BulkWriter;
+import com.flicknames.service.collector.config.SsaImportConfig;
+import com.flicknames.service.collector.io.DelimitedRecordReader;
+import com.flicknames.service.collector.io.StringInterner;
+import com.flicknames.service.collector.job.ImportJob;
+import com.flicknames.service.collector.job.ImportJobService;
+import com.flicknames.service.collector.job.JobContext;
+import com.flicknames.service.collector.job.JobStatus;
+import com.flicknames.service.collector.job.JobType;
 import com.flicknames.service.entity.SsaImportMetadata;
-import com.flicknames.service.entity.SsaName;
-import com.flicknames.service.entity.SsaNameStateBreakdown;
-import com.flicknames.service.entity.SsaNameYearlyStat;
 import com.flicknames.service.repository.SsaImportMetadataRepository;
-import com.flicknames.service.repository.SsaNameRepository;
-import com.flicknames.service.repository.SsaNameStateBreakdownRepository;
-import com.flicknames.service.repository.SsaNameYearlyStatRepository;
+import com.flicknames.service.util.LongHashSet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.MessageDigest;
-import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 @Service
@@ -35,16 +42,20 @@ public class SsaImportService {
 
     private static final String NATIONAL_DATA_URL = "https://www.ssa.gov/oact/babynames/names.zip";
     private static final String STATE_DATA_URL = "https://www.ssa.gov/oact/babynames/state/namesbystate.zip";
-    private static final int BATCH_SIZE = 1000;
+    private static final Pattern NATIONAL_FILE_PATTERN = Pattern.compile("yob\\d{4}\\.txt");
+    private static final Pattern STATE_FILE_PATTERN = Pattern.compile("[A-Z]{2}\\.TXT");
 
-    private final SsaNameRepository ssaNameRepository;
-    private final SsaNameYearlyStatRepository yearlyStatRepository;
-    private final SsaNameStateBreakdownRepository stateBreakdownRepository;
     private final SsaImportMetadataRepository importMetadataRepository;
-
-    // In-memory caches for efficient lookups during import
-    private final Map<String, SsaName> nameCache = new HashMap<>();
-    private final Map<String, SsaNameYearlyStat> yearlyStatCache = new HashMap<>();
+    private final BulkLoader bulkLoader;
+    private final SsaImportConfig importConfig;
+    private final SsaRankingEngine rankingEngine;
+    private final ImportJobService jobService;
+    private final SsaUpsertLoader upsertLoader;
+    private final SsaTableRebuilder tableRebuilder;
+    private final SsaSeriesStore seriesStore;
+    private final SsaSummaryTables summaryTables;
+    private final SsaGenerationCounter generationCounter;
+    private final SsaCompactSeriesWriter compactSeriesWriter;
 
     /**
      * Import national SSA data from remote URL
@@ -60,49 +71,75 @@ public class SsaImportService {
         return importNationalDataFromUrl(NATIONAL_DATA_URL, forceReimport, minYear, maxYear);
     }
 
+    /**
+     * Import national SSA data with explicit import options
+     */
+    public SsaImportResult importNationalData(boolean forceReimport, SsaImportOptions options) {
+        return importNationalDataFromUrl(NATIONAL_DATA_URL, forceReimport, options);
+    }
+
     /**
      * Import national SSA data from custom URL
      */
     public SsaImportResult importNationalDataFromUrl(String sourceUrl, boolean forceReimport, Integer minYear, Integer maxYear) {
-        log.info("Starting national SSA data import from {} (force={}, years={}-{})", sourceUrl, forceReimport, minYear, maxYear);
+        return importNationalDataFromUrl(sourceUrl, forceReimport, SsaImportOptions.yearRange(minYear, maxYear));
+    }
+
+    /**
+     * Import national SSA data from custom URL with explicit import options
+     */
+    public SsaImportResult importNationalDataFromUrl(String sourceUrl, boolean forceReimport, SsaImportOptions options) {
+        log.info("Starting national SSA data import from {} (force={}, {})", sourceUrl, forceReimport, options);
+        checkNationalOptions(options);
         long startTime = System.currentTimeMillis();
 
-        SsaImportMetadata metadata = SsaImportMetadata.builder()
-                .datasetType(SsaImportMetadata.DatasetType.NATIONAL)
-                .sourceUrl(sourceUrl)
-                .status(SsaImportMetadata.ImportStatus.IN_PROGRESS)
-                .build();
-        metadata = importMetadataRepository.save(metadata);
+        SsaArchiveDownload.RemoteArchiveInfo remote = SsaArchiveDownload.probe(sourceUrl);
+        SsaImportMetadata metadata = startImport(SsaImportMetadata.DatasetType.NATIONAL, sourceUrl, remote,
+                options.isResume());
+        SsaImportCheckpoint checkpoint = nationalCheckpoint(metadata, options);
 
         try {
-            // Download the ZIP file
-            Path zipFile = downloadFile(sourceUrl);
-            String checksum = calculateChecksum(zipFile);
-
-            // Check if already imported (unless forcing)
-            if (!forceReimport && importMetadataRepository.findByFileChecksumAndDatasetType(
-                    checksum, SsaImportMetadata.DatasetType.NATIONAL).isPresent()) {
-                log.info("National data already imported (checksum match), skipping");
-                metadata.setStatus(SsaImportMetadata.ImportStatus.SUCCESS);
-                metadata.setFileChecksum(checksum);
-                metadata.setErrorMessage("Skipped - already imported");
-                importMetadataRepository.save(metadata);
-                Files.deleteIfExists(zipFile);
-                return new SsaImportResult(0, 0, "Already imported");
+            // Check if already imported (unless forcing or resuming) without downloading the file
+            boolean checkUnchanged = !forceReimport && (checkpoint == null || !checkpoint.isResumed());
+            if (checkUnchanged
+                    && isUnchangedSinceLastImport(remote, SsaImportMetadata.DatasetType.NATIONAL, sourceUrl)) {
+                log.info("National data unchanged since last import (ETag match), skipping");
+                return skipUnchangedImport(metadata, remote);
             }
-
-            metadata.setFileChecksum(checksum);
-
-            // Clear caches for fresh import
-            nameCache.clear();
-            yearlyStatCache.clear();
-
-            // Load existing names and stats into cache to avoid duplicates
-            loadExistingNamesIntoCache();
-            loadExistingYearlyStatsIntoCache();
-
-            // Parse and import the data
-            SsaImportResult result = parseAndImportNationalZip(zipFile, minYear, maxYear);
+            // Without an ETag the file can only be recognised by its checksum, so it is hashed before writing
+            boolean checkChecksum = checkUnchanged && remote.etag() == null;
+
+            // Load existing names and stats to avoid duplicates, into a dictionary owned by this run
+            SsaKeyDictionary keys = new SsaKeyDictionary();
+            loadNationalKeys(keys, options, checkpoint);
+
+            // Download, hash and parse the ZIP in a single pass
+            SsaImportResult result;
+            try (SsaArchiveDownload download = SsaArchiveDownload.open(sourceUrl)) {
+                if (options.isParallel() || checkChecksum) {
+                    // The parallel parser needs random access and the checksum must be known before
+                    // writing, so only these cases spool to disk
+                    Path zipFile = download.spoolToTempFile();
+                    try {
+                        recordDownload(metadata, download);
+                        if (checkChecksum && isKnownChecksum(SsaImportMetadata.DatasetType.NATIONAL,
+                                metadata.getFileChecksum())) {
+                            log.info("National data unchanged since last import (checksum match), skipping");
+                            return skipUnchangedImport(metadata, remote);
+                        }
+                        result = importNationalZip(zipFile, options, checkpoint, keys);
+                    } finally {
+                        Files.deleteIfExists(zipFile);
+                    }
+                } else {
+                    InputStream body = download.body();
+                    result = intoYearlyStatTable(options,
+                            table -> parseAndImportNationalZip(body, options, checkpoint, table, keys));
+                    recordDownload(metadata, download);
+                }
+            }
+            summaryTables.refresh();
+            refreshCompactNational(options);
 
             // Update metadata
             metadata.setStatus(SsaImportMetadata.ImportStatus.SUCCESS);
@@ -110,18 +147,20 @@ public class SsaImportService {
             metadata.setNameCount(result.nameCount());
             metadata.setDataYear(result.maxYear());
             metadata.setImportDurationMs(System.currentTimeMillis() - startTime);
+            metadata.setRowsPerSecond(rowsPerSecond(result.recordCount(), metadata.getImportDurationMs()));
             importMetadataRepository.save(metadata);
 
-            // Cleanup
-            Files.deleteIfExists(zipFile);
-
-            log.info("National import complete: {} records, {} names in {}ms",
-                    result.recordCount(), result.nameCount(), metadata.getImportDurationMs());
+            log.info("National import complete: {} records, {} names in {}ms ({} rows/sec)",
+                    result.recordCount(), result.nameCount(), metadata.getImportDurationMs(), metadata.getRowsPerSecond());
+            generationCounter.bump();
+            seriesStore.requestRefresh();
 
             return result;
 
         } catch (Exception e) {
             log.error("Failed to import national SSA data", e);
+            // Batches committed before the failure changed the data too
+            generationCounter.bump();
             metadata.setStatus(SsaImportMetadata.ImportStatus.FAILED);
             metadata.setErrorMessage(e.getMessage());
             metadata.setImportDurationMs(System.currentTimeMillis() - startTime);
@@ -149,63 +188,86 @@ public class SsaImportService {
      * Import state-level SSA data from custom URL
      */
     public SsaImportResult importStateDataFromUrl(String sourceUrl, boolean forceReimport, Integer minYear, Integer maxYear) {
-        log.info("Starting state SSA data import from {} (force={}, years={}-{})", sourceUrl, forceReimport, minYear, maxYear);
+        return importStateDataFromUrl(sourceUrl, forceReimport, SsaImportOptions.yearRange(minYear, maxYear));
+    }
+
+    /**
+     * Import state-level SSA data with explicit import options
+     */
+    public SsaImportResult importStateData(boolean forceReimport, SsaImportOptions options) {
+        return importStateDataFromUrl(STATE_DATA_URL, forceReimport, options);
+    }
+
+    /**
+     * Import state-level SSA data from custom URL with explicit import options
+     */
+    public SsaImportResult importStateDataFromUrl(String sourceUrl, boolean forceReimport, SsaImportOptions options) {
+        log.info("Starting state SSA data import from {} (force={}, {})", sourceUrl, forceReimport, options);
         long startTime = System.currentTimeMillis();
 
-        SsaImportMetadata metadata = SsaImportMetadata.builder()
-                .datasetType(SsaImportMetadata.DatasetType.STATE)
-                .sourceUrl(sourceUrl)
-                .status(SsaImportMetadata.ImportStatus.IN_PROGRESS)
-                .build();
-        metadata = importMetadataRepository.save(metadata);
+        SsaArchiveDownload.RemoteArchiveInfo remote = SsaArchiveDownload.probe(sourceUrl);
+        SsaImportMetadata metadata = startImport(SsaImportMetadata.DatasetType.STATE, sourceUrl, remote,
+                options.isResume());
+        SsaImportCheckpoint checkpoint = new SsaImportCheckpoint(metadata, importMetadataRepository);
 
         try {
-            // Download the ZIP file
-            Path zipFile = downloadFile(sourceUrl);
-            String checksum = calculateChecksum(zipFile);
-
-            // Check if already imported (unless forcing)
-            if (!forceReimport && importMetadataRepository.findByFileChecksumAndDatasetType(
-                    checksum, SsaImportMetadata.DatasetType.STATE).isPresent()) {
-                log.info("State data already imported (checksum match), skipping");
-                metadata.setStatus(SsaImportMetadata.ImportStatus.SUCCESS);
-                metadata.setFileChecksum(checksum);
-                metadata.setErrorMessage("Skipped - already imported");
-                importMetadataRepository.save(metadata);
-                Files.deleteIfExists(zipFile);
-                return new SsaImportResult(0, 0, "Already imported");
+            // Check if already imported (unless forcing or resuming) without downloading the file
+            boolean checkUnchanged = !forceReimport && !checkpoint.isResumed();
+            if (checkUnchanged
+                    && isUnchangedSinceLastImport(remote, SsaImportMetadata.DatasetType.STATE, sourceUrl)) {
+                log.info("State data unchanged since last import (ETag match), skipping");
+                return skipUnchangedImport(metadata, remote);
             }
+            // Without an ETag the file can only be recognised by its checksum, so it is hashed before writing
+            boolean checkChecksum = checkUnchanged && remote.etag() == null;
 
-            metadata.setFileChecksum(checksum);
-
-            // Clear caches and load only the year range being imported
-            nameCache.clear();
-            yearlyStatCache.clear();
-            loadExistingNamesIntoCache();
+            // Load names and only the year range being imported, into a dictionary owned by this run
+            SsaKeyDictionary keys = new SsaKeyDictionary();
+            loadExistingNamesIntoCache(keys);
 
             // Load yearly stats for only the years being imported (much faster than loading all 2.1M records)
-            loadYearlyStatsByYearRange(minYear, maxYear);
-
-            // Parse and import the data
-            SsaImportResult result = parseAndImportStateZip(zipFile, minYear, maxYear);
+            loadYearlyStatsByYearRange(keys, options.getMinYear(), options.getMaxYear());
+
+            // Download, hash and parse the ZIP in a single pass
+            SsaImportResult result;
+            try (SsaArchiveDownload download = SsaArchiveDownload.open(sourceUrl)) {
+                if (checkChecksum) {
+                    Path zipFile = download.spoolToTempFile();
+                    try {
+                        recordDownload(metadata, download);
+                        if (isKnownChecksum(SsaImportMetadata.DatasetType.STATE, metadata.getFileChecksum())) {
+                            log.info("State data unchanged since last import (checksum match), skipping");
+                            return skipUnchangedImport(metadata, remote);
+                        }
+                        result = parseAndImportStateZip(zipFile, options, checkpoint, keys);
+                    } finally {
+                        Files.deleteIfExists(zipFile);
+                    }
+                } else {
+                    result = parseAndImportStateZip(download.body(), options, checkpoint, keys);
+                    recordDownload(metadata, download);
+                }
+            }
 
             // Update metadata
             metadata.setStatus(SsaImportMetadata.ImportStatus.SUCCESS);
             metadata.setRecordCount(result.recordCount());
             metadata.setDataYear(result.maxYear());
             metadata.setImportDurationMs(System.currentTimeMillis() - startTime);
+            metadata.setRowsPerSecond(rowsPerSecond(result.recordCount(), metadata.getImportDurationMs()));
             importMetadataRepository.save(metadata);
 
-            // Cleanup
-            Files.deleteIfExists(zipFile);
-
-            log.info("State import complete: {} records in {}ms",
-                    result.recordCount(), metadata.getImportDurationMs());
+            log.info("State import complete: {} records in {}ms ({} rows/sec)",
+                    result.recordCount(), metadata.getImportDurationMs(), metadata.getRowsPerSecond());
+            generationCounter.bump();
+            seriesStore.requestRefresh();
 
             return result;
 
         } catch (Exception e) {
             log.error("Failed to import state SSA data", e);
+            // Batches committed before the failure changed the data too
+            generationCounter.bump();
             metadata.setStatus(SsaImportMetadata.ImportStatus.FAILED);
             metadata.setErrorMessage(e.getMessage());
             metadata.setImportDurationMs(System.currentTimeMillis() - startTime);
@@ -219,53 +281,101 @@ public class SsaImportService {
      */
     public SsaImportResult importFromLocalFile(Path zipFile, SsaImportMetadata.DatasetType type,
                                                 Integer minYear, Integer maxYear) {
+        return importFromLocalFile(zipFile, type, SsaImportOptions.yearRange(minYear, maxYear));
+    }
+
+    /**
+     * Import from a local ZIP file with explicit import options
+     */
+    public SsaImportResult importFromLocalFile(Path zipFile, SsaImportMetadata.DatasetType type,
+                                                SsaImportOptions options) {
+        return importFromLocalFile(zipFile, type, options, null);
+    }
+
+    /**
+     * Import from a local ZIP file, recording progress on (and resuming from) the given checkpoint if not null
+     */
+    private SsaImportResult importFromLocalFile(Path zipFile, SsaImportMetadata.DatasetType type,
+                                                SsaImportOptions options, SsaImportCheckpoint checkpoint) {
         log.info("Importing {} data from local file: {}", type, zipFile);
 
-        nameCache.clear();
-        yearlyStatCache.clear();
-        loadExistingNamesIntoCache();
+        SsaKeyDictionary keys = new SsaKeyDictionary();
 
         if (type == SsaImportMetadata.DatasetType.NATIONAL) {
-            loadExistingYearlyStatsIntoCache();
-            return parseAndImportNationalZip(zipFile, minYear, maxYear);
+            checkNationalOptions(options);
+            loadNationalKeys(keys, options, checkpoint);
+            SsaImportResult result = importNationalZip(zipFile, options, checkpoint, keys);
+            summaryTables.refresh();
+            refreshCompactNational(options);
+            generationCounter.bump();
+            seriesStore.requestRefresh();
+            return result;
         } else {
             // State import: load only the year range being imported
-            loadYearlyStatsByYearRange(minYear, maxYear);
-            return parseAndImportStateZip(zipFile, minYear, maxYear);
+            loadExistingNamesIntoCache(keys);
+            loadYearlyStatsByYearRange(keys, options.getMinYear(), options.getMaxYear());
+            SsaImportResult result = parseAndImportStateZip(zipFile, options, checkpoint, keys);
+            generationCounter.bump();
+            seriesStore.requestRefresh();
+            return result;
         }
     }
 
     /**
      * Import from a local ZIP file asynchronously (returns immediately, import runs in background)
      */
-    public Long importFromLocalFileAsync(Path zipFile, SsaImportMetadata.DatasetType type,
-                                          Integer minYear, Integer maxYear) {
+    public SsaAsyncImport importFromLocalFileAsync(Path zipFile, SsaImportMetadata.DatasetType type,
+                                                   Integer minYear, Integer maxYear) {
+        return importFromLocalFileAsync(zipFile, type, SsaImportOptions.yearRange(minYear, maxYear));
+    }
+
+    /**
+     * Import from a local ZIP file asynchronously with explicit import options.
+     * The import runs as an SSA job; its metadata record is created IN_PROGRESS up front.
+     *
+     * @throws com.flicknames.service.collector.job.JobRejectedException if the SSA job queue is full
+     */
+    public SsaAsyncImport importFromLocalFileAsync(Path zipFile, SsaImportMetadata.DatasetType type,
+                                                   SsaImportOptions options) {
         log.info("Starting async import of {} data from local file: {}", type, zipFile);
+        if (type == SsaImportMetadata.DatasetType.NATIONAL) {
+            checkNationalOptions(options);
+        }
 
-        // Create metadata record immediately with IN_PROGRESS status
-        SsaImportMetadata metadata = SsaImportMetadata.builder()
-                .datasetType(type)
-                .sourceUrl("local:" + zipFile.getFileName())
-                .status(SsaImportMetadata.ImportStatus.IN_PROGRESS)
-                .build();
-        metadata = importMetadataRepository.save(metadata);
+        // Create (or reopen, when resuming) the metadata record immediately with IN_PROGRESS status
+        SsaImportMetadata metadata = startImport(type, "local:" + zipFile.getFileName(),
+                new SsaArchiveDownload.RemoteArchiveInfo(null, fileSize(zipFile)), options.isResume());
         final Long importId = metadata.getId();
 
-        // Run import in background using Spring's thread pool
-        runImportAsync(zipFile, type, minYear, maxYear, importId);
-
-        return importId;
+        try {
+            ImportJob job = jobService.submit(JobType.SSA,
+                    String.format("%s import from %s (import %d)", type, zipFile.getFileName(), importId),
+                    running -> runImport(zipFile, type, options, importId));
+            job.onCancel(() -> {
+                if (job.getStatus() == JobStatus.CANCELLED) {
+                    // Cancelled before it started, so runImport never records the outcome
+                    markImportFailed(importId, "Cancelled before start", 0);
+                }
+            });
+            return new SsaAsyncImport(importId, job.getId());
+        } catch (RuntimeException e) {
+            markImportFailed(importId, e.getMessage(), 0);
+            throw e;
+        }
     }
 
-    @org.springframework.scheduling.annotation.Async
-    protected void runImportAsync(Path zipFile, SsaImportMetadata.DatasetType type,
-                                   Integer minYear, Integer maxYear, Long importId) {
+    private SsaImportResult runImport(Path zipFile, SsaImportMetadata.DatasetType type,
+                                      SsaImportOptions options, Long importId) {
         long startTime = System.currentTimeMillis();
         try {
             log.info("Background import {} started for {}", importId, type);
 
-            // Run the actual import
-            SsaImportResult result = importFromLocalFile(zipFile, type, minYear, maxYear);
+            // Run the actual import, checkpointing on the metadata record
+            SsaImportMetadata started = importMetadataRepository.findById(importId).orElseThrow();
+            SsaImportCheckpoint checkpoint = type == SsaImportMetadata.DatasetType.NATIONAL
+                    ? nationalCheckpoint(started, options)
+                    : new SsaImportCheckpoint(started, importMetadataRepository);
+            SsaImportResult result = importFromLocalFile(zipFile, type, options, checkpoint);
 
             // Update metadata with success
             SsaImportMetadata metadata = importMetadataRepository.findById(importId).orElseThrow();
@@ -274,21 +384,39 @@ public class SsaImportService {
             metadata.setNameCount(result.nameCount());
             metadata.setDataYear(result.maxYear());
             metadata.setImportDurationMs(System.currentTimeMillis() - startTime);
+            metadata.setRowsPerSecond(rowsPerSecond(result.recordCount(), metadata.getImportDurationMs()));
             importMetadataRepository.save(metadata);
 
-            log.info("Background import {} completed: {} records", importId, result.recordCount());
-        } catch (Exception e) {
+            log.info("Background import {} completed: {} records ({} rows/sec)",
+                    importId, result.recordCount(), metadata.getRowsPerSecond());
+            return result;
+        } catch (RuntimeException e) {
             log.error("Background import {} failed", importId, e);
+            generationCounter.bump();
+            markImportFailed(importId, e.getMessage(), System.currentTimeMillis() - startTime);
+            throw e;
+        }
+    }
 
-            // Update metadata with failure
-            SsaImportMetadata metadata = importMetadataRepository.findById(importId).orElseThrow();
-            metadata.setStatus(SsaImportMetadata.ImportStatus.FAILED);
-            metadata.setErrorMessage(e.getMessage());
-            metadata.setImportDurationMs(System.currentTimeMillis() - startTime);
-            importMetadataRepository.save(metadata);
+    /**
+     * Refresh the compact national series of the years a national import wrote; a rebuild replaced them all
+     */
+    private void refreshCompactNational(SsaImportOptions options) {
+        if (options.isRebuild()) {
+            compactSeriesWriter.refreshNational(null, null);
+        } else {
+            compactSeriesWriter.refreshNational(options.getMinYear(), options.getMaxYear());
         }
     }
 
+    private void markImportFailed(Long importId, String errorMessage, long durationMs) {
+        SsaImportMetadata metadata = importMetadataRepository.findById(importId).orElseThrow();
+        metadata.setStatus(SsaImportMetadata.ImportStatus.FAILED);
+        metadata.setErrorMessage(errorMessage);
+        metadata.setImportDurationMs(durationMs);
+        importMetadataRepository.save(metadata);
+    }
+
     /**
      * Calculate rankings for a specific year.
      * Should be called after import to populate rank and rankChange fields.
@@ -296,35 +424,49 @@ public class SsaImportService {
     @Transactional
     public void calculateRankings(Integer year) {
         log.info("Calculating rankings for year {}", year);
+        rankingEngine.rankYears(year, year);
+        summaryTables.refreshLatestRanks(year, year);
+        compactSeriesWriter.refreshNational(year, year);
+        generationCounter.bump();
+        seriesStore.requestRefresh();
+    }
 
-        for (String sex : List.of("M", "F")) {
-            // Get all stats for this year+sex, ordered by count desc
-            List<SsaNameYearlyStat> stats = yearlyStatRepository.findAllByYearAndSexOrderByCountDesc(year, sex);
-
-            // Calculate total births for proportion
-            long totalBirths = stats.stream().mapToLong(SsaNameYearlyStat::getCount).sum();
-
-            // Assign ranks
-            int rank = 1;
-            for (SsaNameYearlyStat stat : stats) {
-                stat.setRank(rank);
-
-                // Calculate proportion
-                if (totalBirths > 0) {
-                    BigDecimal proportion = BigDecimal.valueOf(stat.getCount())
-                            .divide(BigDecimal.valueOf(totalBirths), 8, RoundingMode.HALF_UP);
-                    stat.setProportion(proportion);
-                }
-
-                rank++;
-            }
-
-            yearlyStatRepository.saveAll(stats);
-            log.info("Calculated rankings for {} {} names in {}", stats.size(), sex, year);
-        }
+    /**
+     * Calculate rankings for every year in a range with one set-based pass
+     *
+     * @return number of yearly stat rows changed
+     */
+    @Transactional
+    public int calculateRankings(int startYear, int endYear) {
+        log.info("Calculating rankings for years {} to {}", startYear, endYear);
+        int updated = rankingEngine.rankYears(startYear, endYear);
+        summaryTables.refreshLatestRanks(startYear, endYear);
+        compactSeriesWriter.refreshNational(startYear, endYear);
+        generationCounter.bump();
+        seriesStore.requestRefresh();
+        return updated;
+    }
 
-        // Calculate rank changes (compared to previous year)
-        calculateRankChanges(year);
+    /**
+     * Calculate rankings for every year in a range on the ranking pool, one transaction per year.
+     * Runs as an SSA job that reports rows changed as years complete.
+     *
+     * @throws com.flicknames.service.collector.job.JobRejectedException if the SSA job queue is full
+     */
+    public ImportJob calculateRankingsInParallel(int startYear, int endYear) {
+        int parallelism = rankingEngine.effectiveParallelism(importConfig.getRankingParallelism());
+        return jobService.submit(JobType.SSA,
+                String.format("Rank years %d-%d (%d workers)", startYear, endYear, parallelism),
+                job -> {
+                    log.info("Calculating rankings for years {} to {} with {} workers",
+                            startYear, endYear, parallelism);
+                    int updated = rankingEngine.rankYearsInParallel(startYear, endYear, parallelism);
+                    summaryTables.refreshLatestRanks(startYear, endYear);
+                    compactSeriesWriter.refreshNational(startYear, endYear);
+                    generationCounter.bump();
+                    seriesStore.requestRefresh();
+                    return updated;
+                });
     }
 
     /**
@@ -332,33 +474,9 @@ public class SsaImportService {
      */
     @Transactional
     public void calculateRankChanges(Integer year) {
-        Integer previousYear = year - 1;
-
-        for (String sex : List.of("M", "F")) {
-            List<SsaNameYearlyStat> currentStats = yearlyStatRepository.findAllByYearAndSexOrderByCountDesc(year, sex);
-            Map<String, Integer> previousRanks = new HashMap<>();
-
-            // Build map of previous year's ranks
-            List<SsaNameYearlyStat> prevStats = yearlyStatRepository.findAllByYearAndSexOrderByCountDesc(previousYear, sex);
-            for (SsaNameYearlyStat stat : prevStats) {
-                if (stat.getRank() != null) {
-                    previousRanks.put(stat.getSsaName().getName(), stat.getRank());
-                }
-            }
-
-            // Calculate rank change
-            for (SsaNameYearlyStat stat : currentStats) {
-                Integer prevRank = previousRanks.get(stat.getSsaName().getName());
-                if (prevRank != null && stat.getRank() != null) {
-                    // Positive = improvement (lower rank number is better)
-                    stat.setRankChange(prevRank - stat.getRank());
-                }
-            }
-
-            yearlyStatRepository.saveAll(currentStats);
-        }
-
-        log.info("Calculated rank changes for year {} vs {}", year, previousYear);
+        int updated = rankingEngine.calculateRankChanges(year, year);
+        generationCounter.bump();
+        log.info("Calculated rank changes for year {} vs {} ({} rows updated)", year, year - 1, updated);
     }
 
     /**
@@ -367,19 +485,20 @@ public class SsaImportService {
     @Transactional
     public void calculateStateRankings(Integer year, String stateCode) {
         log.info("Calculating state rankings for {} in {}", stateCode, year);
+        rankingEngine.rankStates(year, year, stateCode);
+        generationCounter.bump();
+    }
 
-        for (String sex : List.of("M", "F")) {
-            List<SsaNameStateBreakdown> breakdowns =
-                    stateBreakdownRepository.findAllByStateAndYearAndSexOrderByCountDesc(stateCode, year, sex);
-
-            int rank = 1;
-            for (SsaNameStateBreakdown breakdown : breakdowns) {
-                breakdown.setRank(rank);
-                rank++;
-            }
-
-            stateBreakdownRepository.saveAll(breakdowns);
-        }
+    /**
+     * Calculate state-level rankings for a year range, for one state or all states when stateCode is null
+     *
+     * @return number of state breakdown rows changed
+     */
+    @Transactional
+    public int calculateStateRankings(int startYear, int endYear, String stateCode) {
+        int updated = rankingEngine.rankStates(startYear, endYear, stateCode);
+        generationCounter.bump();
+        return updated;
     }
 
     /**
@@ -408,223 +527,596 @@ public class SsaImportService {
 
     // ==================== Private Helper Methods ====================
 
-    private Path downloadFile(String url) throws IOException, InterruptedException {
-        log.info("Downloading file from {}", url);
+    /**
+     * Create the IN_PROGRESS metadata record for an import. When resuming, the latest interrupted
+     * import of the same source is reopened instead, provided the source file is unchanged since it started.
+     */
+    private SsaImportMetadata startImport(SsaImportMetadata.DatasetType type, String sourceUrl,
+                                          SsaArchiveDownload.RemoteArchiveInfo source, boolean resume) {
+        if (resume) {
+            SsaImportMetadata interrupted = findInterruptedImport(type, sourceUrl);
+            if (interrupted == null) {
+                log.info("No interrupted {} import from {} to resume, starting a fresh import", type, sourceUrl);
+            } else if (!source.matches(interrupted.getSourceEtag(), interrupted.getSourceContentLength())) {
+                log.warn("Source {} changed since interrupted import {}, starting a fresh import",
+                        sourceUrl, interrupted.getId());
+            } else {
+                log.info("Resuming {} import {} after {} ({} rows already processed)", type,
+                        interrupted.getId(), interrupted.getCheckpointEntry(), interrupted.getCheckpointRowOffset());
+                interrupted.setStatus(SsaImportMetadata.ImportStatus.IN_PROGRESS);
+                interrupted.setErrorMessage(null);
+                return importMetadataRepository.save(interrupted);
+            }
+        }
 
-        HttpClient client = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .connectTimeout(Duration.ofSeconds(30))
+        SsaImportMetadata metadata = SsaImportMetadata.builder()
+                .datasetType(type)
+                .sourceUrl(sourceUrl)
+                .sourceEtag(source.etag())
+                .sourceContentLength(source.contentLength())
+                .status(SsaImportMetadata.ImportStatus.IN_PROGRESS)
                 .build();
+        return importMetadataRepository.save(metadata);
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofMinutes(5))
-                .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
-                .header("Accept-Language", "en-US,en;q=0.9")
-                .header("Referer", "https://www.ssa.gov/")
-                .GET()
-                .build();
+    /**
+     * Checkpoint for a national import, or null for a rebuild, whose rows only become visible at the final swap
+     */
+    private SsaImportCheckpoint nationalCheckpoint(SsaImportMetadata metadata, SsaImportOptions options) {
+        return options.isRebuild() ? null : new SsaImportCheckpoint(metadata, importMetadataRepository);
+    }
 
-        Path tempFile = Files.createTempFile("ssa-names-", ".zip");
+    private static void checkNationalOptions(SsaImportOptions options) {
+        if (options.isRebuild() && (options.getMinYear() != null || options.getMaxYear() != null
+                || options.isResume() || options.isUpsert())) {
+            throw new IllegalArgumentException(
+                    "A rebuild replaces the whole yearly stats table and cannot use a year range, resume or upsert");
+        }
+    }
 
-        HttpResponse<Path> response = client.send(request, HttpResponse.BodyHandlers.ofFile(tempFile));
+    /**
+     * Latest import of the source if it never finished and committed at least one entry, otherwise null
+     */
+    private SsaImportMetadata findInterruptedImport(SsaImportMetadata.DatasetType type, String sourceUrl) {
+        List<SsaImportMetadata> recent = importMetadataRepository.findRecentFromUrl(type, sourceUrl);
+        if (recent.isEmpty()) {
+            return null;
+        }
+        SsaImportMetadata latest = recent.get(0);
+        boolean unfinished = latest.getStatus() == SsaImportMetadata.ImportStatus.IN_PROGRESS
+                || latest.getStatus() == SsaImportMetadata.ImportStatus.FAILED;
+        return unfinished && latest.getCheckpointEntry() != null ? latest : null;
+    }
 
-        if (response.statusCode() != 200) {
-            Files.deleteIfExists(tempFile);
-            throw new IOException("Failed to download file: HTTP " + response.statusCode());
+    private static Long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return null;
         }
+    }
 
-        log.info("Downloaded {} bytes to {}", Files.size(tempFile), tempFile);
-        return tempFile;
+    /**
+     * True if the remote file has the same ETag as the last successful import from that URL.
+     * Content-Length alone is not trusted, since a republished archive can keep its size.
+     */
+    private boolean isUnchangedSinceLastImport(SsaArchiveDownload.RemoteArchiveInfo remote,
+                                               SsaImportMetadata.DatasetType type, String sourceUrl) {
+        List<SsaImportMetadata> previous = importMetadataRepository.findLatestSuccessfulImportFromUrl(type, sourceUrl);
+        if (previous.isEmpty()) {
+            return false;
+        }
+        SsaImportMetadata latest = previous.get(0);
+        return remote.sameEtag(latest.getSourceEtag());
     }
 
-    private String calculateChecksum(Path file) throws IOException {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            try (InputStream is = Files.newInputStream(file)) {
-                byte[] buffer = new byte[8192];
-                int read;
-                while ((read = is.read(buffer)) != -1) {
-                    md.update(buffer, 0, read);
-                }
-            }
-            byte[] digest = md.digest();
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            throw new IOException("Failed to calculate checksum", e);
+    /**
+     * True if a file with this checksum was imported successfully before
+     */
+    private boolean isKnownChecksum(SsaImportMetadata.DatasetType type, String checksum) {
+        return importMetadataRepository.existsByFileChecksumAndDatasetTypeAndStatus(
+                checksum, type, SsaImportMetadata.ImportStatus.SUCCESS);
+    }
+
+    private SsaImportResult skipUnchangedImport(SsaImportMetadata metadata, SsaArchiveDownload.RemoteArchiveInfo remote) {
+        metadata.setStatus(SsaImportMetadata.ImportStatus.SUCCESS);
+        metadata.setSourceEtag(remote.etag());
+        metadata.setSourceContentLength(remote.contentLength());
+        metadata.setErrorMessage("Skipped - already imported");
+        importMetadataRepository.save(metadata);
+        if (metadata.getDatasetType() == SsaImportMetadata.DatasetType.NATIONAL) {
+            // The data is current, but its summaries may predate the summary tables
+            summaryTables.refreshIfEmpty();
         }
+        return new SsaImportResult(0, 0, "Already imported");
+    }
+
+    /**
+     * Copy checksum and change-detection headers of a completed download into the import metadata
+     */
+    private static void recordDownload(SsaImportMetadata metadata, SsaArchiveDownload download) {
+        metadata.setFileChecksum(download.checksum());
+        metadata.setSourceEtag(download.etag());
+        metadata.setSourceContentLength(download.contentLength() != null
+                ? download.contentLength()
+                : download.bytesRead());
+        log.info("Downloaded {} bytes (md5 {})", download.bytesRead(), metadata.getFileChecksum());
     }
 
-    private void loadExistingNamesIntoCache() {
+    private void loadExistingNamesIntoCache(SsaKeyDictionary keys) {
         log.info("Loading existing SSA names into cache...");
-        List<SsaName> existingNames = ssaNameRepository.findAll();
-        for (SsaName name : existingNames) {
-            nameCache.put(makeCacheKey(name.getName(), name.getSex()), name);
-        }
-        log.info("Loaded {} existing names into cache", nameCache.size());
+        bulkLoader.stream("SELECT id, name, sex FROM ssa_names",
+                rs -> keys.putName(rs.getString(2), rs.getString(3), rs.getLong(1)));
+        log.info("Loaded {} existing names into cache", keys.nameCount());
     }
 
-    private void loadExistingYearlyStatsIntoCache() {
+    private void loadExistingYearlyStatsIntoCache(SsaKeyDictionary keys) {
         log.info("Loading existing yearly stats into cache...");
-        List<SsaNameYearlyStat> existingStats = yearlyStatRepository.findAll();
-        for (SsaNameYearlyStat stat : existingStats) {
-            String key = makeYearlyStatCacheKey(stat.getSsaName().getName(), stat.getSsaName().getSex(), stat.getYear());
-            yearlyStatCache.put(key, stat);
+        bulkLoader.stream("SELECT ssa_name_id, year, id FROM ssa_name_yearly_stats",
+                rs -> keys.putYearlyStat(rs.getLong(1), rs.getInt(2), rs.getLong(3)));
+        log.info("Loaded {} existing yearly stats into cache", keys.yearlyStatCount());
+    }
+
+    /**
+     * Warm up name and yearly stat ids for a national import. A resumed import skips the years
+     * already committed; an upsert import leaves duplicate handling to the database and loads nothing.
+     */
+    private void loadNationalKeys(SsaKeyDictionary keys, SsaImportOptions options, SsaImportCheckpoint checkpoint) {
+        if (options.isUpsert()) {
+            log.info("Upsert import: skipping cache warm-up of existing names and yearly stats");
+            return;
+        }
+        loadExistingNamesIntoCache(keys);
+        if (options.isRebuild()) {
+            // The staging table starts empty, so there are no yearly stats to skip
+            return;
         }
-        log.info("Loaded {} existing yearly stats into cache", yearlyStatCache.size());
+        if (checkpoint == null || !checkpoint.isResumed()) {
+            loadExistingYearlyStatsIntoCache(keys);
+            return;
+        }
+        int fromYear = checkpoint.resumeFromYear();
+        if (options.getMinYear() != null) {
+            fromYear = Math.max(fromYear, options.getMinYear());
+        }
+        loadYearlyStatsByYearRange(keys, fromYear, options.getMaxYear());
     }
 
-    private void loadYearlyStatsByYearRange(Integer minYear, Integer maxYear) {
+    private void loadYearlyStatsByYearRange(SsaKeyDictionary keys, Integer minYear, Integer maxYear) {
         if (minYear == null) minYear = 1880;
         if (maxYear == null) maxYear = java.time.Year.now().getValue();
 
         log.info("Loading yearly stats for year range {}-{} into cache...", minYear, maxYear);
-        List<SsaNameYearlyStat> stats = yearlyStatRepository.findAllByYearRange(minYear, maxYear);
-        for (SsaNameYearlyStat stat : stats) {
-            String key = makeYearlyStatCacheKey(stat.getSsaName().getName(), stat.getSsaName().getSex(), stat.getYear());
-            yearlyStatCache.put(key, stat);
-        }
-        log.info("Loaded {} yearly stats for years {}-{} into cache", yearlyStatCache.size(), minYear, maxYear);
+        bulkLoader.stream("SELECT ssa_name_id, year, id FROM ssa_name_yearly_stats WHERE year BETWEEN ? AND ?",
+                rs -> keys.putYearlyStat(rs.getLong(1), rs.getInt(2), rs.getLong(3)),
+                minYear, maxYear);
+        log.info("Loaded {} yearly stats for years {}-{} into cache", keys.yearlyStatCount(), minYear, maxYear);
     }
 
     /**
      * Load existing state breakdown keys for duplicate checking during import.
-     * Returns a set of keys in format "yearlyStatId|stateCode"
+     * Keys are packed (yearlyStatId, state ordinal) longs; the query returns the
+     * state code as a numeric character pair so no Strings are materialized.
+     * States in {@code skipStates} (already committed by a resumed import) are not loaded.
      */
-    private Set<String> loadExistingStateBreakdownKeys(Integer minYear, Integer maxYear) {
+    private LongHashSet loadExistingStateBreakdownKeys(Integer minYear, Integer maxYear, Set<String> skipStates) {
         if (minYear == null) minYear = 1910;
         if (maxYear == null) maxYear = java.time.Year.now().getValue();
 
-        log.info("Loading existing state breakdown keys for year range {}-{}...", minYear, maxYear);
-        List<String> keys = stateBreakdownRepository.findExistingBreakdownKeysByYearRange(minYear, maxYear);
-        log.info("Loaded {} existing state breakdown keys", keys.size());
-        return new HashSet<>(keys);
+        log.info("Loading existing state breakdown keys for year range {}-{}{}...", minYear, maxYear,
+                skipStates.isEmpty() ? "" : " except committed states " + skipStates);
+        LongHashSet existingKeys = new LongHashSet(1 << 16);
+        String sql = """
+                SELECT b.yearly_stat_id, ASCII(b.state_code) * 256 + ASCII(SUBSTRING(b.state_code, 2, 1))
+                FROM ssa_name_state_breakdowns b
+                JOIN ssa_name_yearly_stats s ON s.id = b.yearly_stat_id
+                WHERE s.year BETWEEN ? AND ?
+                """;
+        RowCallbackHandler handler = rs -> {
+            int stateChars = rs.getInt(2);
+            existingKeys.add(SsaStateCodes.breakdownKey(
+                    rs.getLong(1), (char) (stateChars >>> 8), (char) (stateChars & 0xFF)));
+        };
+        if (!skipStates.isEmpty()) {
+            List<Object> params = new ArrayList<>(List.of(minYear, maxYear));
+            params.addAll(skipStates);
+            String placeholders = String.join(", ", Collections.nCopies(skipStates.size(), "?"));
+            bulkLoader.stream(sql + " AND b.state_code NOT IN (" + placeholders + ")", handler, params.toArray());
+        } else {
+            bulkLoader.stream(sql, handler, minYear, maxYear);
+        }
+        log.info("Loaded {} existing state breakdown keys", existingKeys.size());
+        return existingKeys;
     }
 
-    private String makeCacheKey(String name, String sex) {
-        return name.toUpperCase() + "|" + sex;
+    private static Long rowsPerSecond(long records, long durationMs) {
+        return durationMs > 0 ? records * 1000 / durationMs : records;
     }
 
-    private String makeYearlyStatCacheKey(String name, String sex, Integer year) {
-        return name.toUpperCase() + "|" + sex + "|" + year;
+    /**
+     * Import national data from ZIP file using the sequential or parallel parser
+     */
+    private SsaImportResult importNationalZip(Path zipFile, SsaImportOptions options,
+                                              SsaImportCheckpoint checkpoint, SsaKeyDictionary keys) {
+        return intoYearlyStatTable(options, table -> options.isParallel()
+                ? parseAndImportNationalZipParallel(zipFile, options, checkpoint, table, keys)
+                : parseAndImportNationalZip(zipFile, options, checkpoint, table, keys));
+    }
+
+    /**
+     * Run a national parse against the live yearly stats table or, when rebuilding, against a
+     * staging table that is indexed and swapped in once every year has been written
+     */
+    private SsaImportResult intoYearlyStatTable(SsaImportOptions options, Function<String, SsaImportResult> parse) {
+        if (!options.isRebuild()) {
+            return parse.apply(SsaTableRebuilder.LIVE_TABLE);
+        }
+        tableRebuilder.prepare();
+        try {
+            SsaImportResult result = parse.apply(SsaTableRebuilder.STAGING_TABLE);
+            tableRebuilder.swapIn();
+            return result;
+        } catch (RuntimeException e) {
+            tableRebuilder.discard();
+            throw e;
+        }
     }
 
     /**
      * Parse and import national data from ZIP file.
      * National files are named yobYYYY.txt with format: name,sex,count
-     * Note: Not transactional - batches are committed independently
+     * Note: Not transactional - each year file is bulk-loaded and committed independently
      */
-    private SsaImportResult parseAndImportNationalZip(Path zipFile, Integer minYear, Integer maxYear) {
-        long recordCount = 0;
-        Set<String> uniqueNames = new HashSet<>();
-        int maxYearFound = 0;
-
-        List<SsaName> nameBatch = new ArrayList<>();
-        List<SsaNameYearlyStat> statBatch = new ArrayList<>();
+    private SsaImportResult parseAndImportNationalZip(Path zipFile, SsaImportOptions options,
+                                                      SsaImportCheckpoint checkpoint, String statTable,
+                                                      SsaKeyDictionary keys) {
+        try (InputStream in = Files.newInputStream(zipFile)) {
+            return parseAndImportNationalZip(in, options, checkpoint, statTable, keys);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read national ZIP file", e);
+        }
+    }
 
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
+    /**
+     * Parse and import national data from a ZIP stream (a local file or a download in progress)
+     */
+    private SsaImportResult parseAndImportNationalZip(InputStream zipStream, SsaImportOptions options,
+                                                      SsaImportCheckpoint checkpoint, String statTable,
+                                                      SsaKeyDictionary keys) {
+        NationalImportProgress progress = new NationalImportProgress(options, checkpoint, keys);
+        // Names repeat across years, so one interner serves the whole archive
+        StringInterner interner = new StringInterner();
+
+        try (ZipInputStream zis = new ZipInputStream(zipStream);
+             BulkWriter statWriter = openYearlyStatWriter(statTable)) {
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
-                String fileName = entry.getName();
-
-                // Skip non-data files
-                if (!fileName.matches("yob\\d{4}\\.txt")) {
+                // Skip non-data files, years outside the filter and years committed before a resume
+                int year = nationalEntryYear(entry.getName());
+                if (year < 0 || !options.includesYear(year) || progress.isYearDone(year)) {
                     continue;
                 }
 
-                // Extract year from filename
-                int year = Integer.parseInt(fileName.substring(3, 7));
+                // Read the file content (don't close the stream)
+                List<NationalRecord> records = parseNationalEntry(zis, interner);
+                writeNationalYear(year, records, statWriter, progress);
 
-                // Apply year filter
-                if (minYear != null && year < minYear) continue;
-                if (maxYear != null && year > maxYear) continue;
+                zis.closeEntry();
+            }
 
-                maxYearFound = Math.max(maxYearFound, year);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse national ZIP file", e);
+        }
 
-                // Read the file content (don't close the stream)
-                BufferedReader reader = new BufferedReader(new InputStreamReader(zis));
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    if (parts.length != 3) continue;
-
-                    String name = parts[0].trim();
-                    String sex = parts[1].trim();
-                    int count = Integer.parseInt(parts[2].trim());
-
-                    // Get or create the SsaName
-                    String cacheKey = makeCacheKey(name, sex);
-                    SsaName ssaName = nameCache.get(cacheKey);
-
-                    if (ssaName == null) {
-                        ssaName = SsaName.builder()
-                                .name(name)
-                                .sex(sex)
-                                .build();
-                        nameBatch.add(ssaName);
-                        nameCache.put(cacheKey, ssaName);
-                        uniqueNames.add(cacheKey);
-
-                        // Flush name batch
-                        if (nameBatch.size() >= BATCH_SIZE) {
-                            ssaNameRepository.saveAll(nameBatch);
-                            nameBatch.clear();
-                        }
-                    } else {
-                        uniqueNames.add(cacheKey);
-                    }
+        return progress.toResult();
+    }
 
-                    // Check if yearly stat already exists
-                    String yearlyKey = makeYearlyStatCacheKey(name, sex, year);
-                    if (!yearlyStatCache.containsKey(yearlyKey)) {
-                        SsaNameYearlyStat stat = SsaNameYearlyStat.builder()
-                                .ssaName(ssaName)
-                                .year(year)
-                                .count(count)
-                                .build();
-                        statBatch.add(stat);
-                        yearlyStatCache.put(yearlyKey, stat);
-
-                        // Flush stat batch
-                        if (statBatch.size() >= BATCH_SIZE) {
-                            // Ensure names are saved first
-                            if (!nameBatch.isEmpty()) {
-                                ssaNameRepository.saveAll(nameBatch);
-                                nameBatch.clear();
-                            }
-                            yearlyStatRepository.saveAll(statBatch);
-                            statBatch.clear();
+    /**
+     * Parse and import national data with year entries decoded and parsed in parallel.
+     * The archive is opened with random-access {@link ZipFile} so each worker can inflate
+     * its own entry; parsed years are handed to a single writer strictly in year order,
+     * with at most {@code maxPendingYears} parsed files waiting for the writer.
+     */
+    private SsaImportResult parseAndImportNationalZipParallel(Path zipFile, SsaImportOptions options,
+                                                              SsaImportCheckpoint checkpoint, String statTable,
+                                                              SsaKeyDictionary keys) {
+        NationalImportProgress progress = new NationalImportProgress(options, checkpoint, keys);
+        int parallelism = importConfig.effectiveParallelism();
+        int maxPending = Math.max(parallelism, importConfig.getMaxPendingYears());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile());
+             BulkWriter statWriter = openYearlyStatWriter(statTable)) {
+            List<? extends ZipEntry> entries = zip.stream()
+                    .filter(entry -> {
+                        int year = nationalEntryYear(entry.getName());
+                        return year >= 0 && options.includesYear(year) && !progress.isYearDone(year);
+                    })
+                    .sorted(Comparator.comparingInt(entry -> nationalEntryYear(entry.getName())))
+                    .toList();
+
+            log.info("Parsing {} national year files with {} workers", entries.size(), parallelism);
+
+            Deque<ForkJoinTask<List<NationalRecord>>> pending = new ArrayDeque<>();
+            int next = 0;
+            for (int written = 0; written < entries.size(); written++) {
+                // Keep the parse window full
+                while (next < entries.size() && pending.size() < maxPending) {
+                    ZipEntry entry = entries.get(next++);
+                    pending.addLast(pool.submit(() -> {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            return parseNationalEntry(in, new StringInterner());
                         }
-                    }
+                    }));
+                }
 
-                    recordCount++;
+                ZipEntry entry = entries.get(written);
+                List<NationalRecord> records = pending.removeFirst().get();
+                writeNationalYear(nationalEntryYear(entry.getName()), records, statWriter, progress);
+            }
 
-                    if (recordCount % 100000 == 0) {
-                        log.info("Processed {} national records...", recordCount);
-                    }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse national ZIP file", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to parse national year file", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("National import interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return progress.toResult();
+    }
+
+    /**
+     * Year of a national data entry (yobYYYY.txt), or -1 for other files in the archive
+     */
+    private static int nationalEntryYear(String fileName) {
+        if (!NATIONAL_FILE_PATTERN.matcher(fileName).matches()) {
+            return -1;
+        }
+        return Integer.parseInt(fileName.substring(3, 7));
+    }
+
+    /**
+     * Parse one yobYYYY.txt entry. The stream is not closed.
+     */
+    private static List<NationalRecord> parseNationalEntry(InputStream in, StringInterner interner) throws IOException {
+        List<NationalRecord> records = new ArrayList<>();
+        DelimitedRecordReader reader = DelimitedRecordReader.csv(in, interner);
+        while (reader.next()) {
+            if (reader.fieldCount() != 3) continue;
+
+            records.add(new NationalRecord(reader.intern(0), reader.intern(1), reader.parseInt(2)));
+        }
+        return records;
+    }
+
+    private BulkWriter openYearlyStatWriter(String table) {
+        return bulkLoader.writer(table,
+                "ssa_name_id", "year", "count", "rank", "proportion", "rank_change", "created_at");
+    }
+
+    /**
+     * Bulk-load one parsed year file: insert unseen names first (resolving their
+     * generated ids in bulk), then stream the yearly stat rows and commit the year.
+     * In withRanks mode each row is written with its rank, proportion and rank change.
+     */
+    private void writeNationalYear(int year, List<NationalRecord> records, BulkWriter statWriter,
+                                   NationalImportProgress progress) {
+        if (progress.upsert) {
+            upsertNationalYear(year, records, progress);
+            return;
+        }
+
+        SsaKeyDictionary keys = progress.keys;
+        LocalDateTime importTime = progress.importTime;
+        int[] nameKeys = new int[records.size()];
+        List<Integer> newNameKeys = new ArrayList<>();
+        List<Object[]> newNameRows = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            NationalRecord record = records.get(i);
+            int nameKey = keys.internName(record.name(), record.sex());
+            nameKeys[i] = nameKey;
+            progress.uniqueNames.set(nameKey);
+            if (keys.nameId(nameKey) == 0L) {
+                newNameKeys.add(nameKey);
+                newNameRows.add(new Object[]{record.name(), record.sex(), importTime});
+            }
+        }
+
+        if (!newNameRows.isEmpty()) {
+            List<Long> ids = bulkLoader.insertReturningIds("ssa_names",
+                    new String[]{"name", "sex", "created_at"}, newNameRows);
+            for (int i = 0; i < ids.size(); i++) {
+                keys.setNameId(newNameKeys.get(i), ids.get(i));
+            }
+        }
+
+        int[] ranks = null;
+        long[] sexTotals = new long[2];
+        if (progress.withRanks) {
+            ranks = rankNationalYear(records, sexTotals);
+            if (progress.previousRanksYear != year - 1) {
+                progress.previousRanks = loadRanks(keys, year - 1);
+            }
+        }
+
+        boolean skippedExisting = false;
+        boolean wroteNew = false;
+        for (int i = 0; i < records.size(); i++) {
+            // Check if yearly stat already exists
+            long nameId = keys.nameId(nameKeys[i]);
+            if (keys.hasYearlyStat(nameId, year)) {
+                skippedExisting = true;
+                continue;
+            }
+
+            NationalRecord record = records.get(i);
+            if (ranks != null) {
+                long total = sexTotals[sexIndex(record.sex())];
+                BigDecimal proportion = total > 0
+                        ? BigDecimal.valueOf(record.count()).divide(BigDecimal.valueOf(total), 8, RoundingMode.HALF_UP)
+                        : null;
+                int previousRank = nameKeys[i] < progress.previousRanks.length ? progress.previousRanks[nameKeys[i]] : 0;
+                // Positive = improvement (lower rank number is better)
+                Integer rankChange = previousRank > 0 ? previousRank - ranks[i] : null;
+                statWriter.add(nameId, year, record.count(), ranks[i], proportion, rankChange, importTime);
+            } else {
+                statWriter.add(nameId, year, record.count(), null, null, null, importTime);
+            }
+            keys.putYearlyStat(nameId, year, SsaKeyDictionary.UNKNOWN_ID);
+            wroteNew = true;
+        }
+
+        // Commit the year before moving on
+        statWriter.flush();
+
+        if (ranks != null) {
+            if (skippedExisting && wroteNew) {
+                // Rows from an earlier import share this year; rank the combined year in the database
+                rankingEngine.rankYears(year, year);
+                progress.previousRanksYear = -1;
+            } else {
+                int[] currentRanks = new int[keys.nameCount()];
+                for (int i = 0; i < records.size(); i++) {
+                    currentRanks[nameKeys[i]] = ranks[i];
                 }
+                progress.previousRanks = currentRanks;
+                progress.previousRanksYear = year;
+            }
+        }
 
-                zis.closeEntry();
+        finishNationalYear(year, records.size(), progress);
+    }
+
+    /**
+     * Upsert one parsed year file in a single database transaction. Ranks computed from the
+     * file are complete for the year, so in withRanks mode they are applied to existing rows too.
+     */
+    private void upsertNationalYear(int year, List<NationalRecord> records, NationalImportProgress progress) {
+        SsaKeyDictionary keys = progress.keys;
+        int[] nameKeys = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            NationalRecord record = records.get(i);
+            nameKeys[i] = keys.internName(record.name(), record.sex());
+            progress.uniqueNames.set(nameKeys[i]);
+        }
+
+        int[] ranks = null;
+        long[] sexTotals = new long[2];
+        if (progress.withRanks) {
+            ranks = rankNationalYear(records, sexTotals);
+            if (progress.previousRanksYear != year - 1) {
+                progress.previousRanks = loadRanks(keys, year - 1);
             }
+        }
 
-            // Flush remaining batches
-            if (!nameBatch.isEmpty()) {
-                ssaNameRepository.saveAll(nameBatch);
+        List<Object[]> rows = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            NationalRecord record = records.get(i);
+            if (ranks != null) {
+                long total = sexTotals[sexIndex(record.sex())];
+                BigDecimal proportion = total > 0
+                        ? BigDecimal.valueOf(record.count()).divide(BigDecimal.valueOf(total), 8, RoundingMode.HALF_UP)
+                        : null;
+                int previousRank = nameKeys[i] < progress.previousRanks.length ? progress.previousRanks[nameKeys[i]] : 0;
+                Integer rankChange = previousRank > 0 ? previousRank - ranks[i] : null;
+                rows.add(new Object[]{record.name(), record.sex(), record.count(), ranks[i], proportion, rankChange});
+            } else {
+                rows.add(new Object[]{record.name(), record.sex(), record.count(), null, null, null});
             }
-            if (!statBatch.isEmpty()) {
-                yearlyStatRepository.saveAll(statBatch);
+        }
+
+        int changed = upsertLoader.upsertNationalYear(year, rows, progress.withRanks, progress.importTime);
+        log.debug("Year {}: {} of {} rows inserted or changed", year, changed, records.size());
+
+        if (ranks != null) {
+            int[] currentRanks = new int[keys.nameCount()];
+            for (int i = 0; i < records.size(); i++) {
+                currentRanks[nameKeys[i]] = ranks[i];
             }
+            progress.previousRanks = currentRanks;
+            progress.previousRanksYear = year;
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to parse national ZIP file", e);
+        finishNationalYear(year, records.size(), progress);
+    }
+
+    /**
+     * Count a committed year file, report progress and advance the checkpoint
+     */
+    private void finishNationalYear(int year, int rowCount, NationalImportProgress progress) {
+        long before = progress.recordCount;
+        progress.recordCount += rowCount;
+        JobContext.advance(rowCount);
+        progress.maxYearFound = Math.max(progress.maxYearFound, year);
+        if (progress.recordCount / 100000 != before / 100000) {
+            log.info("Processed {} national records...", progress.recordCount);
+        }
+        if (progress.checkpoint != null) {
+            progress.checkpoint.yearCommitted(year, progress.recordCount);
         }
+    }
 
-        return new SsaImportResult(recordCount, uniqueNames.size(), "Success", maxYearFound);
+    /**
+     * Rank one national year file per sex with RANK() semantics (ties share a rank).
+     * Also accumulates per-sex birth totals into {@code sexTotals} for proportions.
+     */
+    private static int[] rankNationalYear(List<NationalRecord> records, long[] sexTotals) {
+        // Pack (sex, descending count, index) into longs so a primitive sort orders the year
+        long[] order = new long[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            NationalRecord record = records.get(i);
+            int sex = sexIndex(record.sex());
+            sexTotals[sex] += record.count();
+            order[i] = ((long) sex << 62) | ((long) (Integer.MAX_VALUE - record.count()) << 31) | i;
+        }
+        Arrays.sort(order);
+
+        int[] ranks = new int[records.size()];
+        int currentSex = -1;
+        int position = 0;
+        int rank = 0;
+        int previousCount = -1;
+        for (long packed : order) {
+            int index = (int) (packed & Integer.MAX_VALUE);
+            int sex = (int) (packed >>> 62);
+            int count = records.get(index).count();
+            if (sex != currentSex) {
+                currentSex = sex;
+                position = 0;
+                previousCount = -1;
+            }
+            position++;
+            if (count != previousCount) {
+                rank = position;
+                previousCount = count;
+            }
+            ranks[index] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * Stored national ranks for a year, indexed by dense name key (0 = unranked)
+     */
+    private int[] loadRanks(SsaKeyDictionary keys, int year) {
+        int[] ranks = new int[keys.nameCount()];
+        bulkLoader.stream("SELECT n.name, n.sex, s.rank FROM ssa_name_yearly_stats s " +
+                        "JOIN ssa_names n ON n.id = s.ssa_name_id WHERE s.year = ? AND s.rank IS NOT NULL",
+                rs -> {
+                    int nameKey = keys.nameKey(rs.getString(1), rs.getString(2));
+                    if (nameKey >= 0 && nameKey < ranks.length) {
+                        ranks[nameKey] = rs.getInt(3);
+                    }
+                }, year);
+        return ranks;
+    }
+
+    private static int sexIndex(String sex) {
+        return "F".equals(sex) ? 1 : 0;
     }
 
     /**
@@ -632,108 +1124,428 @@ public class SsaImportService {
      * State files are named XX.TXT with format: state,sex,year,name,count
      * Note: Not transactional - batches are committed independently
      */
-    private SsaImportResult parseAndImportStateZip(Path zipFile, Integer minYear, Integer maxYear) {
-        long recordCount = 0;
-        long skippedDuplicates = 0;
-        long skippedNoNationalData = 0;
-        int maxYearFound = 0;
-
-        // Load existing state breakdown keys for duplicate checking
-        Set<String> existingKeys = loadExistingStateBreakdownKeys(minYear, maxYear);
-        log.info("Loaded {} existing state breakdown keys for duplicate checking", existingKeys.size());
-
-        List<SsaNameStateBreakdown> breakdownBatch = new ArrayList<>();
+    private SsaImportResult parseAndImportStateZip(Path zipFile, SsaImportOptions options,
+                                                   SsaImportCheckpoint checkpoint, SsaKeyDictionary keys) {
+        try (InputStream in = Files.newInputStream(zipFile)) {
+            return parseAndImportStateZip(in, options, checkpoint, keys);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read state ZIP file", e);
+        }
+    }
 
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
+    /**
+     * Parse and import state data from a ZIP stream (a local file or a download in progress)
+     */
+    private SsaImportResult parseAndImportStateZip(InputStream zipStream, SsaImportOptions options,
+                                                   SsaImportCheckpoint checkpoint, SsaKeyDictionary keys) {
+        StateImportRun run;
+        StringInterner interner = new StringInterner();
+        try (ZipInputStream zis = new ZipInputStream(zipStream);
+             BulkWriter breakdownWriter = openStateBreakdownWriter()) {
+            run = new StateImportRun(options, breakdownWriter, checkpoint, keys);
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
                 String fileName = entry.getName();
 
                 // Skip non-data files (state files are like "AK.TXT", "CA.TXT")
-                if (!fileName.matches("[A-Z]{2}\\.TXT")) {
+                if (!STATE_FILE_PATTERN.matcher(fileName).matches()) {
                     continue;
                 }
 
+                // Skip state files committed before a resume
                 String stateCode = fileName.substring(0, 2);
-                log.debug("Processing state file: {}", stateCode);
-
-                BufferedReader reader = new BufferedReader(new InputStreamReader(zis));
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    if (parts.length != 5) continue;
-
-                    String state = parts[0].trim();
-                    String sex = parts[1].trim();
-                    int year = Integer.parseInt(parts[2].trim());
-                    String name = parts[3].trim();
-                    int count = Integer.parseInt(parts[4].trim());
-
-                    // Apply year filter
-                    if (minYear != null && year < minYear) continue;
-                    if (maxYear != null && year > maxYear) continue;
-
-                    maxYearFound = Math.max(maxYearFound, year);
-
-                    // Find the corresponding yearly stat from cache
-                    String yearlyKey = makeYearlyStatCacheKey(name, sex, year);
-                    SsaNameYearlyStat yearlyStat = yearlyStatCache.get(yearlyKey);
-
-                    if (yearlyStat == null) {
-                        // Name might exist in state data but not national (edge case)
-                        // Skip for now - state data should be subset of national
-                        skippedNoNationalData++;
-                        continue;
-                    }
+                if (checkpoint != null && checkpoint.isStateDone(stateCode)) {
+                    continue;
+                }
+
+                run.beginState(stateCode);
+
+                DelimitedRecordReader reader = DelimitedRecordReader.csv(zis, interner);
+                while (reader.next()) {
+                    if (reader.fieldCount() != 5) continue;
+
+                    run.accept(reader.intern(0), reader.intern(1), reader.parseInt(2),
+                            reader.intern(3), reader.parseInt(4));
+                }
+
+                // Commit each state file before moving on
+                run.endState();
+                zis.closeEntry();
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse state ZIP file", e);
+        }
 
-                    // Check for duplicate using the breakdown key
-                    String breakdownKey = yearlyStat.getId() + "|" + state;
-                    if (existingKeys.contains(breakdownKey)) {
-                        skippedDuplicates++;
+        return run.toResult();
+    }
+
+    /**
+     * Import several state year ranges from one archive with a single decompression pass.
+     * Rows are routed into one compact spool file per range, then each range is loaded with
+     * only its own yearly stat ids in memory and committed independently. A failed range is
+     * reported in its result and does not stop the remaining ranges.
+     */
+    public List<StateRangeResult> importStateHistory(Path zipFile, List<SsaImportOptions> ranges) {
+        log.info("Importing {} state year ranges from {} in a single pass", ranges.size(), zipFile);
+
+        SsaKeyDictionary keys = new SsaKeyDictionary();
+        loadExistingNamesIntoCache(keys);
+
+        List<Path> spools = new ArrayList<>();
+        try {
+            long[] spooledRows = spoolStateRanges(zipFile, ranges, spools);
+
+            List<StateRangeResult> results = new ArrayList<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                SsaImportOptions range = ranges.get(i);
+                long rangeStart = System.currentTimeMillis();
+                try {
+                    keys.clearYearlyStats();
+                    loadYearlyStatsByYearRange(keys, range.getMinYear(), range.getMaxYear());
+                    SsaImportResult result = importSpooledStateRange(spools.get(i), spooledRows[i], range, keys);
+                    results.add(new StateRangeResult(range.getMinYear(), range.getMaxYear(), result.recordCount(),
+                            System.currentTimeMillis() - rangeStart, null));
+                } catch (RuntimeException e) {
+                    log.error("Failed to import state range {}-{}", range.getMinYear(), range.getMaxYear(), e);
+                    results.add(new StateRangeResult(range.getMinYear(), range.getMaxYear(), 0,
+                            System.currentTimeMillis() - rangeStart, e.getMessage()));
+                }
+            }
+            generationCounter.bump();
+            seriesStore.requestRefresh();
+            return results;
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to spool state ZIP file", e);
+        } finally {
+            for (Path spool : spools) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Failed to delete state spool file {}", spool, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decompress the state archive once, writing each row to the spool file of every range
+     * that includes its year. Spool rows are: state (2 bytes), sex (1 byte), year (short),
+     * count (int), name length (short) and name (UTF-8 bytes), copied straight from the input.
+     *
+     * @return number of rows written to each spool
+     */
+    private long[] spoolStateRanges(Path zipFile, List<SsaImportOptions> ranges, List<Path> spools)
+            throws IOException {
+        long[] rowCounts = new long[ranges.size()];
+        List<DataOutputStream> outputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                Path spool = Files.createTempFile("ssa-state-range-", ".bin");
+                spools.add(spool);
+                outputs.add(new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spool), 1 << 16)));
+            }
+
+            try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) {
+                    if (!STATE_FILE_PATTERN.matcher(entry.getName()).matches()) {
                         continue;
                     }
 
-                    // Add to tracking set for this import session
-                    existingKeys.add(breakdownKey);
-
-                    // Create state breakdown
-                    SsaNameStateBreakdown breakdown = SsaNameStateBreakdown.builder()
-                            .yearlyStat(yearlyStat)
-                            .stateCode(state)
-                            .count(count)
-                            .build();
-                    breakdownBatch.add(breakdown);
-
-                    // Flush batch
-                    if (breakdownBatch.size() >= BATCH_SIZE) {
-                        stateBreakdownRepository.saveAll(breakdownBatch);
-                        breakdownBatch.clear();
+                    DelimitedRecordReader reader = DelimitedRecordReader.csv(zis, null);
+                    while (reader.next()) {
+                        if (reader.fieldCount() != 5 || reader.length(0) != 2) continue;
+
+                        int year = reader.parseInt(2);
+                        int count = reader.parseInt(4);
+                        for (int i = 0; i < ranges.size(); i++) {
+                            if (!ranges.get(i).includesYear(year)) {
+                                continue;
+                            }
+                            DataOutputStream out = outputs.get(i);
+                            out.write(reader.buffer(), reader.start(0), 2);
+                            out.writeByte(reader.byteAt(1, 0));
+                            out.writeShort(year);
+                            out.writeInt(count);
+                            out.writeShort(reader.length(3));
+                            out.write(reader.buffer(), reader.start(3), reader.length(3));
+                            rowCounts[i]++;
+                        }
                     }
+                    zis.closeEntry();
+                }
+            }
+        } finally {
+            for (DataOutputStream out : outputs) {
+                out.close();
+            }
+        }
+
+        for (int i = 0; i < ranges.size(); i++) {
+            log.info("Spooled {} state rows for years {}-{}", rowCounts[i],
+                    ranges.get(i).getMinYear(), ranges.get(i).getMaxYear());
+        }
+        return rowCounts;
+    }
 
-                    recordCount++;
+    /**
+     * Import one spooled state range, committing after each state as the ZIP path does
+     */
+    private SsaImportResult importSpooledStateRange(Path spool, long rowCount, SsaImportOptions range,
+                                                    SsaKeyDictionary keys) {
+        StateImportRun run;
+        StringInterner interner = new StringInterner();
+        byte[] nameBytes = new byte[256];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spool), 1 << 16));
+             BulkWriter breakdownWriter = openStateBreakdownWriter()) {
+            run = new StateImportRun(range, breakdownWriter, null, keys);
+            String currentState = null;
+            for (long row = 0; row < rowCount; row++) {
+                char first = (char) in.readUnsignedByte();
+                char second = (char) in.readUnsignedByte();
+                String sex = in.readUnsignedByte() == 'F' ? "F" : "M";
+                int year = in.readShort();
+                int count = in.readInt();
+                int nameLength = in.readUnsignedShort();
+                if (nameLength > nameBytes.length) {
+                    nameBytes = new byte[nameLength];
+                }
+                in.readFully(nameBytes, 0, nameLength);
+                String name = interner.intern(nameBytes, 0, nameLength);
 
-                    if (recordCount % 100000 == 0) {
-                        log.info("Processed {} state records (skipped {} duplicates, {} without national data)...",
-                                recordCount, skippedDuplicates, skippedNoNationalData);
+                if (currentState == null || currentState.charAt(0) != first || currentState.charAt(1) != second) {
+                    if (currentState != null) {
+                        run.endState();
                     }
+                    currentState = String.valueOf(new char[]{first, second});
+                    run.beginState(currentState);
                 }
+                run.accept(currentState, sex, year, name, count);
+            }
+            if (currentState != null) {
+                run.endState();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read state spool file", e);
+        }
+        return run.toResult();
+    }
 
-                zis.closeEntry();
+    private BulkWriter openStateBreakdownWriter() {
+        return bulkLoader.writer("ssa_name_state_breakdowns",
+                "yearly_stat_id", "state_code", "count", "rank", "created_at");
+    }
+
+    /**
+     * Row handling and counters for one state import over a year range.
+     * Rows must arrive grouped by state file, bracketed by beginState/endState.
+     */
+    private class StateImportRun {
+        private final Integer minYear;
+        private final Integer maxYear;
+        private final boolean withRanks;
+        private final BulkWriter breakdownWriter;
+        private final LongHashSet existingKeys;
+        private final SsaImportCheckpoint checkpoint;
+        private final SsaKeyDictionary keys;
+        private final LocalDateTime importTime = LocalDateTime.now();
+
+        private long recordCount;
+        private long skippedDuplicates;
+        private long skippedNoNationalData;
+        private long reportedCount;
+        private int maxYearFound;
+
+        private String stateCode;
+        private StreamingRanker ranker;
+        private boolean skippedExisting;
+
+        StateImportRun(SsaImportOptions options, BulkWriter breakdownWriter, SsaImportCheckpoint checkpoint,
+                       SsaKeyDictionary keys) {
+            this.minYear = options.getMinYear();
+            this.maxYear = options.getMaxYear();
+            this.withRanks = options.isWithRanks();
+            this.breakdownWriter = breakdownWriter;
+            this.checkpoint = checkpoint;
+            this.keys = keys;
+            if (checkpoint != null) {
+                this.recordCount = checkpoint.resumedRowCount();
+                this.reportedCount = recordCount;
+            }
+
+            // Load existing state breakdown keys for duplicate checking (states already committed are skipped)
+            this.existingKeys = loadExistingStateBreakdownKeys(minYear, maxYear,
+                    checkpoint != null ? checkpoint.resumedStates() : Set.of());
+            log.info("Loaded {} existing state breakdown keys for duplicate checking", existingKeys.size());
+        }
+
+        void beginState(String stateCode) {
+            log.debug("Processing state file: {}", stateCode);
+            this.stateCode = stateCode;
+            this.ranker = withRanks ? new StreamingRanker() : null;
+            this.skippedExisting = false;
+        }
+
+        void accept(String state, String sex, int year, String name, int count) {
+            // Apply year filter
+            if (minYear != null && year < minYear) return;
+            if (maxYear != null && year > maxYear) return;
+
+            maxYearFound = Math.max(maxYearFound, year);
+
+            // Find the corresponding yearly stat from cache
+            int nameKey = keys.nameKey(name, sex);
+            long yearlyStatId = nameKey < 0
+                    ? SsaKeyDictionary.ABSENT
+                    : keys.yearlyStatId(keys.nameId(nameKey), year);
+
+            if (yearlyStatId <= 0) {
+                // Name might exist in state data but not national (edge case)
+                // Skip for now - state data should be subset of national
+                skippedNoNationalData++;
+                return;
             }
 
-            // Flush remaining batch
-            if (!breakdownBatch.isEmpty()) {
-                stateBreakdownRepository.saveAll(breakdownBatch);
+            // Check for duplicate and track the key for this import session in one probe
+            if (!existingKeys.add(SsaStateCodes.breakdownKey(yearlyStatId, state))) {
+                skippedDuplicates++;
+                skippedExisting = true;
+                return;
             }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to parse state ZIP file", e);
+            // Queue state breakdown (the writer flushes in large batches)
+            Integer rank = ranker != null ? ranker.next(year * 2 + sexIndex(sex), count) : null;
+            breakdownWriter.add(yearlyStatId, state, count, rank, importTime);
+
+            recordCount++;
+
+            if (recordCount % 100000 == 0) {
+                log.info("Processed {} state records (skipped {} duplicates, {} without national data)...",
+                        recordCount, skippedDuplicates, skippedNoNationalData);
+            }
         }
 
-        log.info("State import complete: {} records imported, {} duplicates skipped, {} skipped (no national data)",
-                recordCount, skippedDuplicates, skippedNoNationalData);
+        void endState() {
+            breakdownWriter.flush();
+            JobContext.advance(recordCount - reportedCount);
+            reportedCount = recordCount;
+
+            if (ranker != null && (skippedExisting || !ranker.isOrdered())) {
+                // In-pass ranks are incomplete (mixed with existing rows or unsorted input)
+                rankingEngine.rankStates(minYear != null ? minYear : 1910,
+                        maxYear != null ? maxYear : java.time.Year.now().getValue(), stateCode);
+            }
 
-        return new SsaImportResult(recordCount, 0, "Success", maxYearFound);
+            if (checkpoint != null) {
+                checkpoint.stateCommitted(stateCode + ".TXT", recordCount);
+            }
+        }
+
+        SsaImportResult toResult() {
+            log.info("State import complete: {} records imported, {} duplicates skipped, {} skipped (no national data)",
+                    recordCount, skippedDuplicates, skippedNoNationalData);
+
+            return new SsaImportResult(recordCount, 0, "Success", maxYearFound);
+        }
+    }
+
+    /**
+     * Running totals for a national import
+     */
+    private static class NationalImportProgress {
+        final BitSet uniqueNames = new BitSet();
+        final LocalDateTime importTime = LocalDateTime.now();
+        final boolean withRanks;
+        final boolean upsert;
+        final SsaImportCheckpoint checkpoint;
+        // Name and yearly stat ids, owned by this import run
+        final SsaKeyDictionary keys;
+        long recordCount;
+        int maxYearFound;
+
+        // Ranks of the last written year by dense name key, carried forward for rank changes
+        int[] previousRanks = new int[0];
+        int previousRanksYear = -1;
+
+        NationalImportProgress(SsaImportOptions options, SsaImportCheckpoint checkpoint, SsaKeyDictionary keys) {
+            // A rebuild always ranks in the same pass: each year file is complete and the table is new
+            this.withRanks = options.isWithRanks() || options.isRebuild();
+            this.upsert = options.isUpsert();
+            this.checkpoint = checkpoint;
+            this.keys = keys;
+            this.recordCount = checkpoint != null ? checkpoint.resumedRowCount() : 0;
+        }
+
+        boolean isYearDone(int year) {
+            return checkpoint != null && checkpoint.isYearDone(year);
+        }
+
+        SsaImportResult toResult() {
+            return new SsaImportResult(recordCount, uniqueNames.cardinality(), "Success", maxYearFound);
+        }
+    }
+
+    /**
+     * Assigns RANK()-style ranks to rows that arrive grouped and sorted by count descending,
+     * as SSA state files are. Flags the input as unordered if a group reappears or counts
+     * increase within a group, in which case the caller re-ranks in the database.
+     */
+    private static class StreamingRanker {
+        private final Set<Integer> seenGroups = new HashSet<>();
+        private int group = -1;
+        private int position;
+        private int rank;
+        private int previousCount = -1;
+        private boolean ordered = true;
+
+        int next(int rowGroup, int count) {
+            if (rowGroup != group) {
+                if (!seenGroups.add(rowGroup)) {
+                    ordered = false;
+                }
+                group = rowGroup;
+                position = 0;
+                previousCount = -1;
+            } else if (count > previousCount) {
+                ordered = false;
+            }
+            position++;
+            if (count != previousCount) {
+                rank = position;
+                previousCount = count;
+            }
+            return rank;
+        }
+
+        boolean isOrdered() {
+            return ordered;
+        }
+    }
+
+    /**
+     * One parsed line of a national yobYYYY.txt file
+     */
+    private record NationalRecord(String name, String sex, int count) {
+    }
+
+    /**
+     * Outcome of one year range in a multi-range state import (error is null on success)
+     */
+    public record StateRangeResult(
+            Integer minYear,
+            Integer maxYear,
+            long recordCount,
+            long durationMs,
+            String error
+    ) {
+    }
+
+    /**
+     * Handles for an import started in the background: its metadata record and its job
+     */
+    public record SsaAsyncImport(Long importId, long jobId) {
     }
 
     /**
@@ -0,0 +1,182 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.util.LongLongHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Import-time key dictionary for SSA data.
+ *
+ * Maps (name, sex) to a dense int key and (ssa_names.id, year) to the packed long
+ * used to look up yearly stat ids. Only ids are stored - no entities and no
+ * concatenated String keys - so a full 2M-row warm-up fits in a few tens of MB.
+ * Not thread-safe: every import run creates its own, and only its writer mutates it.
+ */
+public class SsaKeyDictionary {
+
+    /**
+     * Value stored for yearly stats written during the current run whose id is not known
+     */
+    public static final long UNKNOWN_ID = 0L;
+
+    /**
+     * Returned by {@link #yearlyStatId} when no yearly stat exists for the key
+     */
+    public static final long ABSENT = -1L;
+
+    private static final float MAX_LOAD = 0.7f;
+
+    // Dense name key -> name, sex and ssa_names.id (0 until the name is persisted)
+    private String[] names = new String[1024];
+    private byte[] sexes = new byte[1024];
+    private long[] nameIds = new long[1024];
+    private int nameCount;
+
+    // Open-addressing index over dense name keys (slot holds key + 1, 0 = empty)
+    private int[] slots = new int[2048];
+    private int slotMask = slots.length - 1;
+
+    private final LongLongHashMap yearlyStatIds = new LongLongHashMap(1 << 16);
+
+    /**
+     * Dense key for (name, sex), or -1 if the name has not been seen
+     */
+    public int nameKey(String name, String sex) {
+        byte sexCode = sexCode(sex);
+        int slot = hash(name, sexCode) & slotMask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int key = entry - 1;
+            if (sexes[key] == sexCode && names[key].equals(name)) {
+                return key;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Dense key for (name, sex), adding the name if it has not been seen
+     */
+    public int internName(String name, String sex) {
+        int existing = nameKey(name, sex);
+        if (existing >= 0) {
+            return existing;
+        }
+
+        if (nameCount == names.length) {
+            int capacity = names.length << 1;
+            names = Arrays.copyOf(names, capacity);
+            sexes = Arrays.copyOf(sexes, capacity);
+            nameIds = Arrays.copyOf(nameIds, capacity);
+        }
+        int key = nameCount++;
+        names[key] = name;
+        sexes[key] = sexCode(sex);
+
+        if (nameCount > slots.length * MAX_LOAD) {
+            rebuildSlots(slots.length << 1);
+        } else {
+            insertSlot(key);
+        }
+        return key;
+    }
+
+    /**
+     * Register a persisted name with its ssa_names.id
+     */
+    public int putName(String name, String sex, long nameId) {
+        int key = internName(name, sex);
+        nameIds[key] = nameId;
+        return key;
+    }
+
+    /**
+     * ssa_names.id for a dense key, or 0 if the name has not been persisted yet
+     */
+    public long nameId(int key) {
+        return nameIds[key];
+    }
+
+    public void setNameId(int key, long nameId) {
+        nameIds[key] = nameId;
+    }
+
+    public String name(int key) {
+        return names[key];
+    }
+
+    public String sex(int key) {
+        return sexes[key] == 'F' ? "F" : "M";
+    }
+
+    public int nameCount() {
+        return nameCount;
+    }
+
+    /**
+     * Pack (ssa_names.id, year) into a single non-zero long
+     */
+    public static long yearlyKey(long nameId, int year) {
+        return (nameId << 16) | (year & 0xFFFF);
+    }
+
+    public boolean hasYearlyStat(long nameId, int year) {
+        return yearlyStatIds.containsKey(yearlyKey(nameId, year));
+    }
+
+    /**
+     * Yearly stat id, {@link #UNKNOWN_ID} if written during this run, or {@link #ABSENT}
+     */
+    public long yearlyStatId(long nameId, int year) {
+        return yearlyStatIds.get(yearlyKey(nameId, year), ABSENT);
+    }
+
+    public void putYearlyStat(long nameId, int year, long yearlyStatId) {
+        yearlyStatIds.put(yearlyKey(nameId, year), yearlyStatId);
+    }
+
+    public int yearlyStatCount() {
+        return yearlyStatIds.size();
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, nameCount, null);
+        Arrays.fill(nameIds, 0, nameCount, 0L);
+        Arrays.fill(slots, 0);
+        nameCount = 0;
+        yearlyStatIds.clear();
+    }
+
+    /**
+     * Drop yearly stat keys while keeping the name dictionary
+     */
+    public void clearYearlyStats() {
+        yearlyStatIds.clear();
+    }
+
+    private void insertSlot(int key) {
+        int slot = hash(names[key], sexes[key]) & slotMask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & slotMask;
+        }
+        slots[slot] = key + 1;
+    }
+
+    private void rebuildSlots(int capacity) {
+        slots = new int[capacity];
+        slotMask = capacity - 1;
+        for (int key = 0; key < nameCount; key++) {
+            insertSlot(key);
+        }
+    }
+
+    private static byte sexCode(String sex) {
+        return (byte) ("F".equals(sex) ? 'F' : 'M');
+    }
+
+    private static int hash(String name, byte sexCode) {
+        int h = name.hashCode() * 31 + sexCode;
+        return h ^ (h >>> 16);
+    }
+}
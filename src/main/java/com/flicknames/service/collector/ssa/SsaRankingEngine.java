@@ -0,0 +1,194 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.bulk.DatabasePlatform;
+import com.flicknames.service.collector.job.JobContext;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Set-based ranking engine for SSA statistics.
+ *
+ * Rank, proportion and rank change are computed in the database with window
+ * functions and applied as one UPDATE ... FROM statement per year range (MERGE on H2),
+ * instead of loading every yearly stat as an entity. Rows whose values are already
+ * correct are not rewritten. Long ranges can also be ranked year by year on a fork-join pool.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaRankingEngine {
+
+    private static final String YEARLY_RANK_SOURCE = """
+        SELECT id, rnk, prop FROM (
+            SELECT s.id, s.rank AS old_rank, s.proportion AS old_prop,
+                   RANK() OVER (PARTITION BY s.year, n.sex ORDER BY s.count DESC) AS rnk,
+                   ROUND(CAST(s.count AS NUMERIC(20, 10))
+                         / SUM(s.count) OVER (PARTITION BY s.year, n.sex), 8) AS prop
+            FROM ssa_name_yearly_stats s
+            JOIN ssa_names n ON n.id = s.ssa_name_id
+            WHERE s.year BETWEEN ? AND ?
+        ) ranked
+        WHERE rnk IS DISTINCT FROM old_rank OR prop IS DISTINCT FROM old_prop
+        """;
+
+    // Positive = improvement (lower rank number is better); only compared with the immediately preceding year
+    private static final String RANK_CHANGE_SOURCE = """
+        SELECT id, rank_delta FROM (
+            SELECT s.id, s.year, s.rank_change AS old_delta,
+                   CASE WHEN LAG(s.year) OVER (PARTITION BY s.ssa_name_id ORDER BY s.year) = s.year - 1
+                        THEN LAG(s.rank) OVER (PARTITION BY s.ssa_name_id ORDER BY s.year) - s.rank
+                   END AS rank_delta
+            FROM ssa_name_yearly_stats s
+            WHERE s.year BETWEEN ? AND ?
+        ) deltas
+        WHERE year >= ? AND rank_delta IS DISTINCT FROM old_delta
+        """;
+
+    private static final String STATE_RANK_SOURCE = """
+        SELECT id, rnk FROM (
+            SELECT b.id, b.rank AS old_rank,
+                   RANK() OVER (PARTITION BY b.state_code, s.year, n.sex ORDER BY b.count DESC) AS rnk
+            FROM ssa_name_state_breakdowns b
+            JOIN ssa_name_yearly_stats s ON s.id = b.yearly_stat_id
+            JOIN ssa_names n ON n.id = s.ssa_name_id
+            WHERE s.year BETWEEN ? AND ? %s
+        ) ranked
+        WHERE rnk IS DISTINCT FROM old_rank
+        """;
+
+    // Connections left to the rest of the application during a parallel ranking run
+    private static final int RESERVED_CONNECTIONS = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+
+    /**
+     * Recalculate national rank, proportion and rank change for every year in the range
+     *
+     * @return number of yearly stat rows changed
+     */
+    public int rankYears(int fromYear, int toYear) {
+        long start = System.currentTimeMillis();
+        int ranked = updateFrom("ssa_name_yearly_stats", "rank = r.rnk, proportion = r.prop",
+                YEARLY_RANK_SOURCE, fromYear, toYear);
+        int changed = calculateRankChanges(fromYear, toYear);
+        log.info("Ranked years {}-{}: {} ranks/proportions and {} rank changes updated in {}ms",
+                fromYear, toYear, ranked, changed, System.currentTimeMillis() - start);
+        return ranked + changed;
+    }
+
+    /**
+     * Recalculate national rank, proportion and rank change for every year in the range, with each
+     * year ranked in its own transaction on a pool of {@code parallelism} workers. Rank changes read
+     * the previous year's ranks, so they run as a second phase once every year is ranked.
+     * Must not be called inside a transaction; progress is reported to the current job.
+     *
+     * @return number of yearly stat rows changed
+     */
+    public int rankYearsInParallel(int fromYear, int toYear, int parallelism) {
+        parallelism = effectiveParallelism(parallelism);
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int ranked = forEachYear(pool, fromYear, toYear, year -> updateFrom("ssa_name_yearly_stats",
+                    "rank = r.rnk, proportion = r.prop", YEARLY_RANK_SOURCE, year, year));
+            log.info("Ranked years {}-{} with {} workers: {} ranks/proportions updated in {}ms",
+                    fromYear, toYear, parallelism, ranked, System.currentTimeMillis() - start);
+
+            long changeStart = System.currentTimeMillis();
+            int changed = forEachYear(pool, fromYear, toYear, year -> calculateRankChanges(year, year));
+            log.info("Calculated rank changes for years {}-{} with {} workers: {} rows updated in {}ms",
+                    fromYear, toYear, parallelism, changed, System.currentTimeMillis() - changeStart);
+            return ranked + changed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Workers a parallel ranking run may use: each holds a connection for its year, so the
+     * requested count is capped at the connection pool size minus {@value #RESERVED_CONNECTIONS}
+     */
+    public int effectiveParallelism(int requested) {
+        int workers = Math.max(1, requested);
+        if (dataSource instanceof HikariDataSource hikari) {
+            int cap = Math.max(1, hikari.getMaximumPoolSize() - RESERVED_CONNECTIONS);
+            if (workers > cap) {
+                log.info("Capping ranking parallelism at {} for a pool of {} connections", cap,
+                        hikari.getMaximumPoolSize());
+                workers = cap;
+            }
+        }
+        return workers;
+    }
+
+    /**
+     * Run one transaction per year on the pool and wait for all of them, reporting each year's
+     * changed rows in year order. A failed or cancelled year stops the remaining queued years.
+     */
+    private int forEachYear(ForkJoinPool pool, int fromYear, int toYear, IntUnaryOperator work) {
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>();
+        for (int year = fromYear; year <= toYear; year++) {
+            int taskYear = year;
+            tasks.add(pool.submit(() -> transactionTemplate.execute(status -> work.applyAsInt(taskYear))));
+        }
+
+        int updated = 0;
+        for (ForkJoinTask<Integer> task : tasks) {
+            int rows = task.join();
+            updated += rows;
+            JobContext.advance(rows);
+        }
+        return updated;
+    }
+
+    /**
+     * Recalculate year-over-year rank change for every year in the range.
+     * Ranks for the year before {@code fromYear} are read but not modified.
+     */
+    public int calculateRankChanges(int fromYear, int toYear) {
+        return updateFrom("ssa_name_yearly_stats", "rank_change = r.rank_delta",
+                RANK_CHANGE_SOURCE, fromYear - 1, toYear, fromYear);
+    }
+
+    /**
+     * Recalculate state ranks for the year range, optionally limited to one state
+     *
+     * @return number of state breakdown rows changed
+     */
+    public int rankStates(int fromYear, int toYear, String stateCode) {
+        long start = System.currentTimeMillis();
+        int updated = stateCode == null
+                ? updateFrom("ssa_name_state_breakdowns", "rank = r.rnk",
+                        STATE_RANK_SOURCE.formatted(""), fromYear, toYear)
+                : updateFrom("ssa_name_state_breakdowns", "rank = r.rnk",
+                        STATE_RANK_SOURCE.formatted("AND b.state_code = ?"), fromYear, toYear, stateCode);
+        log.info("Ranked states ({}) for years {}-{}: {} rows updated in {}ms",
+                stateCode != null ? stateCode : "all", fromYear, toYear, updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    /**
+     * Apply a source query (which must expose an {@code id} column) to the target table
+     */
+    private int updateFrom(String table, String assignments, String source, Object... params) {
+        String sql = databasePlatform.isPostgres()
+                ? "UPDATE " + table + " SET " + assignments + " FROM (" + source + ") r WHERE " + table + ".id = r.id"
+                : "MERGE INTO " + table + " t USING (" + source + ") r ON t.id = r.id"
+                        + " WHEN MATCHED THEN UPDATE SET " + assignments;
+        return jdbcTemplate.update(sql, params);
+    }
+}
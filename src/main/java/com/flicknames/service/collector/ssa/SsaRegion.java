@@ -0,0 +1,46 @@
+package com.flicknames.service.collector.ssa;
+
+import java.util.List;
+
+/**
+ * US Census regions and divisions as sets of SSA state codes.
+ * The four regions are pre-aggregated in the {@link SsaAggregateCube}; divisions are
+ * answered from their states.
+ */
+public enum SsaRegion {
+
+    NORTHEAST(true, "CT", "MA", "ME", "NH", "NJ", "NY", "PA", "RI", "VT"),
+    MIDWEST(true, "IA", "IL", "IN", "KS", "MI", "MN", "MO", "ND", "NE", "OH", "SD", "WI"),
+    SOUTH(true, "AL", "AR", "DC", "DE", "FL", "GA", "KY", "LA", "MD", "MS", "NC", "OK", "SC", "TN", "TX",
+            "VA", "WV"),
+    WEST(true, "AK", "AZ", "CA", "CO", "HI", "ID", "MT", "NM", "NV", "OR", "UT", "WA", "WY"),
+
+    NEW_ENGLAND(false, "CT", "MA", "ME", "NH", "RI", "VT"),
+    MID_ATLANTIC(false, "NJ", "NY", "PA"),
+    EAST_NORTH_CENTRAL(false, "IL", "IN", "MI", "OH", "WI"),
+    WEST_NORTH_CENTRAL(false, "IA", "KS", "MN", "MO", "ND", "NE", "SD"),
+    SOUTH_ATLANTIC(false, "DC", "DE", "FL", "GA", "MD", "NC", "SC", "VA", "WV"),
+    EAST_SOUTH_CENTRAL(false, "AL", "KY", "MS", "TN"),
+    WEST_SOUTH_CENTRAL(false, "AR", "LA", "OK", "TX"),
+    MOUNTAIN(false, "AZ", "CO", "ID", "MT", "NM", "NV", "UT", "WY"),
+    PACIFIC(false, "AK", "CA", "HI", "OR", "WA");
+
+    private final boolean aggregated;
+    private final List<String> stateCodes;
+
+    SsaRegion(boolean aggregated, String... stateCodes) {
+        this.aggregated = aggregated;
+        this.stateCodes = List.of(stateCodes);
+    }
+
+    /**
+     * Whether the cube keeps roll-ups for this region
+     */
+    public boolean isAggregated() {
+        return aggregated;
+    }
+
+    public List<String> getStateCodes() {
+        return stateCodes;
+    }
+}
@@ -0,0 +1,111 @@
+package com.flicknames.service.collector.ssa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of one (name, sex) series in the {@link SsaSeriesStore}
+ */
+public final class SsaSeries {
+
+    private final SsaSeriesSource source;
+    private final int key;
+
+    SsaSeries(SsaSeriesSource source, int key) {
+        this.source = source;
+        this.key = key;
+    }
+
+    public String getName() {
+        return source.name(key);
+    }
+
+    public String getSex() {
+        return source.sex(key);
+    }
+
+    public int getFirstYear() {
+        return source.firstYear(key);
+    }
+
+    public int getLastYear() {
+        return source.lastYear(key);
+    }
+
+    public long getTotalCount() {
+        return source.total(key);
+    }
+
+    /**
+     * Year with the highest count (earliest on ties)
+     */
+    public int getPeakYear() {
+        return source.peakYear(key);
+    }
+
+    public int getPeakCount() {
+        return source.peakCount(key);
+    }
+
+    /**
+     * Best (lowest) national rank, or null if the series was never ranked
+     */
+    public Integer getBestRank() {
+        int rank = source.bestRank(key);
+        return rank > 0 ? rank : null;
+    }
+
+    public Integer getBestRankYear() {
+        return source.bestRank(key) > 0 ? source.bestRankYear(key) : null;
+    }
+
+    /**
+     * Count in a year, or 0 if the name has no data for it
+     */
+    public int count(int year) {
+        return source.count(key, year);
+    }
+
+    /**
+     * National rank in a year, or null if not ranked
+     */
+    public Integer rank(int year) {
+        int rank = source.rank(key, year);
+        return rank > 0 ? rank : null;
+    }
+
+    /**
+     * State breakdowns for a year in state code order; empty unless the store is served from a snapshot
+     */
+    public List<StateStat> states(int year) {
+        return source.states(key, year);
+    }
+
+    /**
+     * Years with data, newest first
+     */
+    public List<YearStat> history() {
+        return recentYears(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Up to {@code limit} most recent years with data, newest first
+     */
+    public List<YearStat> recentYears(int limit) {
+        int firstYear = getFirstYear();
+        List<YearStat> years = new ArrayList<>(Math.min(limit, getLastYear() - firstYear + 1));
+        for (int year = getLastYear(); year >= firstYear && years.size() < limit; year--) {
+            int count = source.count(key, year);
+            if (count > 0) {
+                years.add(new YearStat(year, count, rank(year)));
+            }
+        }
+        return years;
+    }
+
+    public record YearStat(int year, int count, Integer rank) {
+    }
+
+    public record StateStat(String stateCode, int count, Integer rank) {
+    }
+}
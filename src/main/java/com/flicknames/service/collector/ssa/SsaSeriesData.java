@@ -0,0 +1,273 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.util.LongLongHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable columnar arrays behind {@link SsaSeriesStore}, built from the database on the heap.
+ *
+ * Each (name, sex) has a dense key. Its yearly values occupy one contiguous span of cells in
+ * the flat {@code counts} and {@code ranks} arrays, from its first to its last year; a count of
+ * 0 marks a year without data and a rank of 0 an unranked year. Per-key summaries are
+ * precomputed when the span is closed.
+ */
+final class SsaSeriesData implements SsaSeriesSource {
+
+    private static final long NO_KEY = -1L;
+
+    // Lower-cased name + sex -> dense key
+    final SsaKeyDictionary dictionary;
+    // ssa_names.id -> dense key
+    final LongLongHashMap keysById;
+    final String[] names;
+    final int size;
+
+    final int[] offsets;
+    final short[] firstYears;
+    final short[] lastYears;
+    final int[] counts;
+    final int[] ranks;
+
+    final long[] totals;
+    final short[] peakYears;
+    final int[] peakCounts;
+    final int[] bestRanks;
+    final short[] bestRankYears;
+
+    private SsaSeriesData(Builder builder) {
+        this.dictionary = builder.dictionary;
+        this.keysById = builder.keysById;
+        this.size = builder.dictionary.nameCount();
+        this.names = Arrays.copyOf(builder.names, size);
+        this.offsets = Arrays.copyOf(builder.offsets, size);
+        this.firstYears = Arrays.copyOf(builder.firstYears, size);
+        this.lastYears = Arrays.copyOf(builder.lastYears, size);
+        this.counts = Arrays.copyOf(builder.counts, builder.cellCount);
+        this.ranks = Arrays.copyOf(builder.ranks, builder.cellCount);
+        this.totals = Arrays.copyOf(builder.totals, size);
+        this.peakYears = Arrays.copyOf(builder.peakYears, size);
+        this.peakCounts = Arrays.copyOf(builder.peakCounts, size);
+        this.bestRanks = Arrays.copyOf(builder.bestRanks, size);
+        this.bestRankYears = Arrays.copyOf(builder.bestRankYears, size);
+    }
+
+    @Override
+    public int key(String name, String sex) {
+        int key = dictionary.nameKey(normalize(name), sex);
+        return key >= 0 && lastYears[key] != 0 ? key : -1;
+    }
+
+    /**
+     * Dense key for an ssa_names.id, or -1 if unknown
+     */
+    int keyForNameId(long nameId) {
+        return (int) keysById.get(nameId, NO_KEY);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int cellCount() {
+        return counts.length;
+    }
+
+    @Override
+    public String name(int key) {
+        return names[key];
+    }
+
+    @Override
+    public String sex(int key) {
+        return dictionary.sex(key);
+    }
+
+    @Override
+    public int firstYear(int key) {
+        return firstYears[key];
+    }
+
+    @Override
+    public int lastYear(int key) {
+        return lastYears[key];
+    }
+
+    @Override
+    public int count(int key, int year) {
+        int cell = cell(key, year);
+        return cell >= 0 ? counts[cell] : 0;
+    }
+
+    @Override
+    public int rank(int key, int year) {
+        int cell = cell(key, year);
+        return cell >= 0 ? ranks[cell] : 0;
+    }
+
+    @Override
+    public long total(int key) {
+        return totals[key];
+    }
+
+    @Override
+    public int peakYear(int key) {
+        return peakYears[key];
+    }
+
+    @Override
+    public int peakCount(int key) {
+        return peakCounts[key];
+    }
+
+    @Override
+    public int bestRank(int key) {
+        return bestRanks[key];
+    }
+
+    @Override
+    public int bestRankYear(int key) {
+        return bestRankYears[key];
+    }
+
+    /**
+     * State breakdowns are only kept in snapshots
+     */
+    @Override
+    public List<SsaSeries.StateStat> states(int key, int year) {
+        return List.of();
+    }
+
+    @Override
+    public boolean hasStates() {
+        return false;
+    }
+
+    @Override
+    public void forEachState(int key, StateVisitor visitor) {
+        // State breakdowns are only kept in snapshots
+    }
+
+    /**
+     * Approximate heap used by the arrays (excluding name Strings)
+     */
+    long arrayBytes() {
+        return (long) counts.length * 8 + (long) size * (4 + 2 + 2 + 8 + 2 + 4 + 4 + 2);
+    }
+
+    private int cell(int key, int year) {
+        if (year < firstYears[key] || year > lastYears[key]) {
+            return -1;
+        }
+        return offsets[key] + year - firstYears[key];
+    }
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Accumulates names, then yearly rows ordered by (ssa_names.id, year)
+     */
+    static final class Builder {
+
+        private final SsaKeyDictionary dictionary = new SsaKeyDictionary();
+        private final LongLongHashMap keysById = new LongLongHashMap(1 << 16);
+
+        private String[] names = new String[1024];
+        private int[] offsets = new int[1024];
+        private short[] firstYears = new short[1024];
+        private short[] lastYears = new short[1024];
+        private long[] totals = new long[1024];
+        private short[] peakYears = new short[1024];
+        private int[] peakCounts = new int[1024];
+        private int[] bestRanks = new int[1024];
+        private short[] bestRankYears = new short[1024];
+
+        private int[] counts = new int[1 << 16];
+        private int[] ranks = new int[1 << 16];
+        private int cellCount;
+
+        private long currentNameId = NO_KEY;
+        private int currentKey = -1;
+
+        void addName(long nameId, String name, String sex) {
+            int key = dictionary.putName(normalize(name), sex, nameId);
+            ensureNameCapacity(key + 1);
+            names[key] = name;
+            keysById.put(nameId, key);
+        }
+
+        void addStat(long nameId, int year, int count, int rank) {
+            if (nameId != currentNameId) {
+                currentNameId = nameId;
+                currentKey = (int) keysById.get(nameId, NO_KEY);
+                if (currentKey >= 0 && lastYears[currentKey] != 0) {
+                    // Rows were not grouped by name; keep the first span
+                    currentKey = -1;
+                }
+                if (currentKey >= 0) {
+                    offsets[currentKey] = cellCount;
+                    firstYears[currentKey] = (short) year;
+                }
+            }
+            if (currentKey < 0) {
+                return;
+            }
+
+            int cell = offsets[currentKey] + year - firstYears[currentKey];
+            if (cell < cellCount) {
+                return; // Out-of-order year within the span
+            }
+            ensureCellCapacity(cell + 1);
+            cellCount = cell + 1;
+            counts[cell] = count;
+            ranks[cell] = rank;
+
+            int key = currentKey;
+            lastYears[key] = (short) year;
+            totals[key] += count;
+            if (count > peakCounts[key]) {
+                peakCounts[key] = count;
+                peakYears[key] = (short) year;
+            }
+            if (rank > 0 && (bestRanks[key] == 0 || rank < bestRanks[key])) {
+                bestRanks[key] = rank;
+                bestRankYears[key] = (short) year;
+            }
+        }
+
+        SsaSeriesData build() {
+            return new SsaSeriesData(this);
+        }
+
+        private void ensureNameCapacity(int needed) {
+            if (needed <= names.length) {
+                return;
+            }
+            int capacity = Math.max(needed, names.length << 1);
+            names = Arrays.copyOf(names, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            firstYears = Arrays.copyOf(firstYears, capacity);
+            lastYears = Arrays.copyOf(lastYears, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+            peakYears = Arrays.copyOf(peakYears, capacity);
+            peakCounts = Arrays.copyOf(peakCounts, capacity);
+            bestRanks = Arrays.copyOf(bestRanks, capacity);
+            bestRankYears = Arrays.copyOf(bestRankYears, capacity);
+        }
+
+        private void ensureCellCapacity(int needed) {
+            if (needed <= counts.length) {
+                return;
+            }
+            int capacity = Math.max(needed, counts.length << 1);
+            counts = Arrays.copyOf(counts, capacity);
+            ranks = Arrays.copyOf(ranks, capacity);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.flicknames.service.collector.ssa;
+
+import java.util.List;
+
+/**
+ * Columnar SSA series data addressed by dense (name, sex) key, either built on the heap
+ * ({@link SsaSeriesData}) or mapped from a snapshot file ({@link SsaSnapshot}).
+ * Counts of 0 mark years without data and ranks of 0 unranked years.
+ */
+interface SsaSeriesSource {
+
+    /**
+     * Dense key for a name (case-insensitive) and sex, or -1 if it has no yearly data
+     */
+    int key(String name, String sex);
+
+    int size();
+
+    int cellCount();
+
+    String name(int key);
+
+    String sex(int key);
+
+    int firstYear(int key);
+
+    int lastYear(int key);
+
+    int count(int key, int year);
+
+    int rank(int key, int year);
+
+    long total(int key);
+
+    int peakYear(int key);
+
+    int peakCount(int key);
+
+    int bestRank(int key);
+
+    int bestRankYear(int key);
+
+    /**
+     * State breakdowns for one year, in state code order; empty if the source has none
+     */
+    List<SsaSeries.StateStat> states(int key, int year);
+
+    /**
+     * Whether state breakdowns are available through {@link #states} and {@link #forEachState}
+     */
+    boolean hasStates();
+
+    /**
+     * Visit every state breakdown of a key, ordered by year then state ordinal
+     */
+    void forEachState(int key, StateVisitor visitor);
+
+    @FunctionalInterface
+    interface StateVisitor {
+        void visit(int year, int stateOrdinal, int count);
+    }
+}
@@ -0,0 +1,212 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.bulk.BulkLoader;
+import com.flicknames.service.collector.config.SsaImportConfig;
+import com.flicknames.service.collector.job.ImportJobService;
+import com.flicknames.service.collector.job.JobRejectedException;
+import com.flicknames.service.collector.job.JobType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory, columnar copy of ssa_name_yearly_stats for name history lookups.
+ *
+ * Each (name, sex) gets a dense key from a name dictionary and a span of year-indexed cells
+ * in flat count and rank arrays. Totals, peak and first/last year are precomputed, so history
+ * and summary queries never touch the database. The store is rebuilt on startup and after each
+ * national import or ranking run and swapped in atomically; until the first build completes,
+ * {@link #isLoaded()} is false and callers should fall back to the repositories.
+ *
+ * With a snapshot path configured, each rebuild also writes a memory-mapped {@link SsaSnapshot}
+ * (including state breakdowns) and serves from it. On startup a snapshot whose data generation
+ * still matches the database is mapped directly instead of scanning the tables. The
+ * {@link SsaAggregateCube} is rebuilt from whichever source is installed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaSeriesStore {
+
+    private static final String NAMES_SQL = "SELECT id, name, sex FROM ssa_names";
+
+    private static final String STATS_SQL = """
+        SELECT ssa_name_id, year, count, rank FROM ssa_name_yearly_stats
+        ORDER BY ssa_name_id, year
+        """;
+
+    private final BulkLoader bulkLoader;
+    private final ImportJobService jobService;
+    private final SsaImportConfig importConfig;
+    private final SsaAggregateCube aggregateCube;
+    private final SsaGenerationCounter generationCounter;
+
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private volatile SsaSeriesSource data;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!openCurrentSnapshot()) {
+            requestRefresh();
+            return;
+        }
+        SsaSeriesSource snapshot = data;
+        try {
+            jobService.submit(JobType.SSA, "Build SSA aggregate cube", job -> {
+                aggregateCube.rebuild(snapshot);
+                return null;
+            });
+        } catch (JobRejectedException e) {
+            log.warn("Could not queue SSA aggregate cube build: {}", e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return data != null;
+    }
+
+    /**
+     * Series for a name (case-insensitive) and sex
+     */
+    public Optional<SsaSeries> find(String name, String sex) {
+        SsaSeriesSource current = data;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int key = current.key(name, sex);
+        return key >= 0 ? Optional.of(new SsaSeries(current, key)) : Optional.empty();
+    }
+
+    /**
+     * Series for every sex a name (case-insensitive) is recorded under, most popular first
+     */
+    public List<SsaSeries> findAllSexes(String name) {
+        List<SsaSeries> series = new ArrayList<>(2);
+        find(name, "F").ifPresent(series::add);
+        find(name, "M").ifPresent(series::add);
+        series.sort(Comparator.comparingLong(SsaSeries::getTotalCount).reversed());
+        return series;
+    }
+
+    /**
+     * Queue a rebuild on the SSA job pool. Inside a transaction the rebuild is queued after commit;
+     * requests made while a rebuild is already queued are folded into it.
+     */
+    public void requestRefresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitRefresh();
+                }
+            });
+        } else {
+            submitRefresh();
+        }
+    }
+
+    private void submitRefresh() {
+        if (!refreshQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            jobService.submit(JobType.SSA, "Rebuild SSA series store", job -> {
+                // Changes committed after this point trigger another rebuild
+                refreshQueued.set(false);
+                SsaSeriesSource built = rebuild();
+                return Map.of("names", built.size(), "cells", built.cellCount(),
+                        "snapshot", built instanceof SsaSnapshot);
+            });
+        } catch (JobRejectedException e) {
+            refreshQueued.set(false);
+            log.warn("Could not queue SSA series store rebuild: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the store from the database and swap it in, through a new snapshot when enabled
+     */
+    private SsaSeriesSource rebuild() {
+        long start = System.currentTimeMillis();
+        // Taken first, so imports finishing during the scan leave the snapshot stale
+        SsaSnapshot.Stamp stamp = currentStamp();
+        SsaSeriesData.Builder builder = new SsaSeriesData.Builder();
+        bulkLoader.stream(NAMES_SQL, rs -> builder.addName(rs.getLong(1), rs.getString(2), rs.getString(3)));
+        bulkLoader.stream(STATS_SQL, rs -> builder.addStat(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)));
+        SsaSeriesData built = builder.build();
+        log.info("Loaded SSA series store: {} names, {} year cells (~{} KB) in {}ms",
+                built.size(), built.cellCount(), built.arrayBytes() / 1024, System.currentTimeMillis() - start);
+
+        Path snapshotPath = snapshotPath();
+        if (snapshotPath != null) {
+            try {
+                new SsaSnapshotWriter(bulkLoader).write(snapshotPath, built, stamp);
+                SsaSnapshot snapshot = SsaSnapshot.open(snapshotPath);
+                install(snapshot);
+                return snapshot;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to write SSA snapshot {}, serving from the heap", snapshotPath, e);
+            }
+        }
+        install(built);
+        return built;
+    }
+
+    private void install(SsaSeriesSource source) {
+        data = source;
+        try {
+            aggregateCube.rebuild(source);
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild SSA aggregate cube", e);
+        }
+    }
+
+    /**
+     * Map the configured snapshot if it was written from the current database state
+     */
+    private boolean openCurrentSnapshot() {
+        Path snapshotPath = snapshotPath();
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return false;
+        }
+        try {
+            SsaSnapshot snapshot = SsaSnapshot.open(snapshotPath);
+            SsaSnapshot.Stamp current = currentStamp();
+            if (!snapshot.stamp().equals(current)) {
+                log.info("SSA snapshot {} is stale ({} vs database {}), rebuilding", snapshotPath,
+                        snapshot.stamp(), current);
+                return false;
+            }
+            data = snapshot;
+            log.info("Mapped SSA snapshot {}: {} names, {} year cells, {} state rows ({} KB)", snapshotPath,
+                    snapshot.size(), snapshot.cellCount(), snapshot.stateRowCount(), snapshot.byteSize() / 1024);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not open SSA snapshot {}, rebuilding", snapshotPath, e);
+            return false;
+        }
+    }
+
+    private SsaSnapshot.Stamp currentStamp() {
+        return new SsaSnapshot.Stamp(generationCounter.current());
+    }
+
+    private Path snapshotPath() {
+        String path = importConfig.getSnapshotPath();
+        return path == null || path.isBlank() ? null : Path.of(path);
+    }
+}
@@ -0,0 +1,333 @@
+package com.flicknames.service.collector.ssa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Read-only, memory-mapped SSA series snapshot written by {@link SsaSnapshotWriter}.
+ *
+ * Lookups read straight from the mapping, so opening a snapshot costs the same regardless of
+ * row count and the data lives off the Java heap. All values are big-endian. Layout:
+ * <pre>
+ * header     HEADER_BYTES, see the *_AT offsets
+ * names      nameCount records of NAME_RECORD_BYTES, indexed by dense key
+ * strings    UTF-8 display names referenced by the name records
+ * slots      slotCount ints (key + 1, 0 = empty), open addressing on lower-cased name + sex
+ * cells      cellCount (count int, rank int) pairs, one per year in each name's span
+ * states     stateRowCount rows of STATE_ROW_BYTES grouped by key, ordered by year then state
+ * </pre>
+ */
+final class SsaSnapshot implements SsaSeriesSource {
+
+    static final int MAGIC = 0x53534E53; // "SSNS"
+    static final int VERSION = 2;
+
+    static final int HEADER_BYTES = 96;
+    static final int MAGIC_AT = 0;
+    static final int VERSION_AT = 4;
+    static final int CREATED_AT = 8;
+    static final int GENERATION_AT = 16;
+    static final int NAME_COUNT_AT = 32;
+    static final int SLOT_COUNT_AT = 36;
+    static final int CELL_COUNT_AT = 40;
+    static final int STATE_ROW_COUNT_AT = 44;
+    static final int STRINGS_OFFSET_AT = 48;
+    static final int SLOTS_OFFSET_AT = 56;
+    static final int CELLS_OFFSET_AT = 64;
+    static final int STATES_OFFSET_AT = 72;
+    static final int FILE_LENGTH_AT = 80;
+
+    static final int NAME_RECORD_BYTES = 48;
+    static final int NAME_STRING_OFFSET = 0;
+    static final int NAME_STRING_LENGTH = 4;
+    static final int NAME_SEX = 6;
+    static final int NAME_FIRST_YEAR = 8;
+    static final int NAME_LAST_YEAR = 10;
+    static final int NAME_CELL_OFFSET = 12;
+    static final int NAME_TOTAL = 16;
+    static final int NAME_PEAK_YEAR = 24;
+    static final int NAME_BEST_RANK_YEAR = 26;
+    static final int NAME_PEAK_COUNT = 28;
+    static final int NAME_BEST_RANK = 32;
+    static final int NAME_STATE_OFFSET = 36;
+    static final int NAME_STATE_COUNT = 40;
+    static final int NAME_HASH = 44;
+
+    static final int CELL_BYTES = 8;
+    static final int STATE_ROW_BYTES = 12;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final Stamp stamp;
+    private final long createdAt;
+    private final int nameCount;
+    private final int slotMask;
+    private final int cellCount;
+    private final int stateRowCount;
+    private final int stringsOffset;
+    private final int slotsOffset;
+    private final int cellsOffset;
+    private final int statesOffset;
+
+    private SsaSnapshot(Path path, ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        this.createdAt = buffer.getLong(CREATED_AT);
+        this.stamp = new Stamp(buffer.getLong(GENERATION_AT));
+        this.nameCount = buffer.getInt(NAME_COUNT_AT);
+        this.slotMask = buffer.getInt(SLOT_COUNT_AT) - 1;
+        this.cellCount = buffer.getInt(CELL_COUNT_AT);
+        this.stateRowCount = buffer.getInt(STATE_ROW_COUNT_AT);
+        this.stringsOffset = (int) buffer.getLong(STRINGS_OFFSET_AT);
+        this.slotsOffset = (int) buffer.getLong(SLOTS_OFFSET_AT);
+        this.cellsOffset = (int) buffer.getLong(CELLS_OFFSET_AT);
+        this.statesOffset = (int) buffer.getLong(STATES_OFFSET_AT);
+    }
+
+    /**
+     * Map a snapshot file read-only
+     *
+     * @throws IOException if the file cannot be read or is not a complete snapshot of this version
+     */
+    static SsaSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size + " for " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(MAGIC_AT) != MAGIC) {
+                throw new IOException("Not an SSA snapshot: " + path);
+            }
+            if (buffer.getInt(VERSION_AT) != VERSION) {
+                throw new IOException("Unsupported SSA snapshot version " + buffer.getInt(VERSION_AT) + " in " + path);
+            }
+            if (buffer.getLong(FILE_LENGTH_AT) != size) {
+                throw new IOException("Truncated SSA snapshot: " + path);
+            }
+            return new SsaSnapshot(path, buffer);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Database state the snapshot was written from
+     */
+    Stamp stamp() {
+        return stamp;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    int stateRowCount() {
+        return stateRowCount;
+    }
+
+    long byteSize() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int key(String name, String sex) {
+        byte[] lower = name.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        byte sexCode = sexCode(sex);
+        int hash = hash(lower, sexCode);
+        int slot = hash & slotMask;
+        int entry;
+        while ((entry = buffer.getInt(slotsOffset + slot * Integer.BYTES)) != 0) {
+            int key = entry - 1;
+            int record = record(key);
+            if (buffer.getInt(record + NAME_HASH) == hash && buffer.get(record + NAME_SEX) == sexCode
+                    && nameEquals(record, lower)) {
+                return key;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return nameCount;
+    }
+
+    @Override
+    public int cellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public String name(int key) {
+        int record = record(key);
+        byte[] bytes = new byte[buffer.getShort(record + NAME_STRING_LENGTH)];
+        buffer.get(stringsOffset + buffer.getInt(record + NAME_STRING_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String sex(int key) {
+        return buffer.get(record(key) + NAME_SEX) == 'F' ? "F" : "M";
+    }
+
+    @Override
+    public int firstYear(int key) {
+        return buffer.getShort(record(key) + NAME_FIRST_YEAR);
+    }
+
+    @Override
+    public int lastYear(int key) {
+        return buffer.getShort(record(key) + NAME_LAST_YEAR);
+    }
+
+    @Override
+    public int count(int key, int year) {
+        int cell = cell(key, year);
+        return cell >= 0 ? buffer.getInt(cell) : 0;
+    }
+
+    @Override
+    public int rank(int key, int year) {
+        int cell = cell(key, year);
+        return cell >= 0 ? buffer.getInt(cell + Integer.BYTES) : 0;
+    }
+
+    @Override
+    public long total(int key) {
+        return buffer.getLong(record(key) + NAME_TOTAL);
+    }
+
+    @Override
+    public int peakYear(int key) {
+        return buffer.getShort(record(key) + NAME_PEAK_YEAR);
+    }
+
+    @Override
+    public int peakCount(int key) {
+        return buffer.getInt(record(key) + NAME_PEAK_COUNT);
+    }
+
+    @Override
+    public int bestRank(int key) {
+        return buffer.getInt(record(key) + NAME_BEST_RANK);
+    }
+
+    @Override
+    public int bestRankYear(int key) {
+        return buffer.getShort(record(key) + NAME_BEST_RANK_YEAR);
+    }
+
+    @Override
+    public List<SsaSeries.StateStat> states(int key, int year) {
+        int record = record(key);
+        int low = buffer.getInt(record + NAME_STATE_OFFSET);
+        int high = low + buffer.getInt(record + NAME_STATE_COUNT);
+
+        // First row of the year: rows are ordered by year, then state
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getShort(stateRow(mid)) < year) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        int end = buffer.getInt(record + NAME_STATE_OFFSET) + buffer.getInt(record + NAME_STATE_COUNT);
+        List<SsaSeries.StateStat> states = new ArrayList<>();
+        for (int row = low; row < end; row++) {
+            int at = stateRow(row);
+            if (buffer.getShort(at) != year) {
+                break;
+            }
+            int rank = buffer.getInt(at + 8);
+            states.add(new SsaSeries.StateStat(SsaStateCodes.code(buffer.get(at + 2)),
+                    buffer.getInt(at + 4), rank > 0 ? rank : null));
+        }
+        return states;
+    }
+
+    @Override
+    public boolean hasStates() {
+        return true;
+    }
+
+    @Override
+    public void forEachState(int key, StateVisitor visitor) {
+        int record = record(key);
+        int first = buffer.getInt(record + NAME_STATE_OFFSET);
+        int end = first + buffer.getInt(record + NAME_STATE_COUNT);
+        for (int row = first; row < end; row++) {
+            int at = stateRow(row);
+            visitor.visit(buffer.getShort(at), buffer.get(at + 2), buffer.getInt(at + 4));
+        }
+    }
+
+    private int record(int key) {
+        return HEADER_BYTES + key * NAME_RECORD_BYTES;
+    }
+
+    private int cell(int key, int year) {
+        int record = record(key);
+        int firstYear = buffer.getShort(record + NAME_FIRST_YEAR);
+        if (year < firstYear || year > buffer.getShort(record + NAME_LAST_YEAR)) {
+            return -1;
+        }
+        return cellsOffset + (buffer.getInt(record + NAME_CELL_OFFSET) + year - firstYear) * CELL_BYTES;
+    }
+
+    private int stateRow(int row) {
+        return statesOffset + row * STATE_ROW_BYTES;
+    }
+
+    private boolean nameEquals(int record, byte[] lower) {
+        if (buffer.getShort(record + NAME_STRING_LENGTH) != lower.length) {
+            return false;
+        }
+        int start = stringsOffset + buffer.getInt(record + NAME_STRING_OFFSET);
+        for (int i = 0; i < lower.length; i++) {
+            if (toLowerAscii(buffer.get(start + i)) != lower[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte sexCode(String sex) {
+        return "F".equals(sex) ? (byte) 'F' : (byte) 'M';
+    }
+
+    /**
+     * Hash of a lower-cased UTF-8 name and sex code, shared with the writer
+     */
+    static int hash(byte[] lowerName, byte sexCode) {
+        int h = sexCode;
+        for (byte b : lowerName) {
+            h = 31 * h + b;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * SSA data generation the snapshot was written from (see {@link SsaGenerationCounter}); a
+     * snapshot is only reused on startup while this still matches the database
+     */
+    record Stamp(long generation) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.bulk.BulkLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes the {@link SsaSnapshot} file for a freshly built {@link SsaSeriesData}.
+ *
+ * National series come from the heap data; state breakdowns are streamed from the database
+ * into a spool file first, since the name records that point at them precede them in the file.
+ * The snapshot is written next to its target and moved into place, so readers never see a
+ * partial file.
+ */
+@RequiredArgsConstructor
+@Slf4j
+class SsaSnapshotWriter {
+
+    private static final String STATES_SQL = """
+        SELECT y.ssa_name_id, y.year, b.state_code, b.count, b.rank
+        FROM ssa_name_state_breakdowns b
+        JOIN ssa_name_yearly_stats y ON y.id = b.yearly_stat_id
+        ORDER BY y.ssa_name_id, y.year, b.state_code
+        """;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private final BulkLoader bulkLoader;
+
+    void write(Path target, SsaSeriesData data, SsaSnapshot.Stamp stamp) throws IOException {
+        long start = System.currentTimeMillis();
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        int size = data.size();
+        int[] stateOffsets = new int[size];
+        int[] stateCounts = new int[size];
+        Path stateSpool = Files.createTempFile(directory, "ssa-states", ".tmp");
+        Path partial = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            int stateRows = spoolStates(stateSpool, data, stateOffsets, stateCounts);
+
+            // Strings and the name hash table are small enough to prepare in memory
+            byte[][] displayNames = new byte[size][];
+            int[] stringOffsets = new int[size];
+            int[] hashes = new int[size];
+            int stringBytes = 0;
+            int slotCount = Integer.highestOneBit(Math.max(size, 1) * 2) << 1;
+            int[] slots = new int[slotCount];
+            for (int key = 0; key < size; key++) {
+                displayNames[key] = data.name(key).getBytes(StandardCharsets.UTF_8);
+                stringOffsets[key] = stringBytes;
+                stringBytes += displayNames[key].length;
+                hashes[key] = SsaSnapshot.hash(data.dictionary.name(key).getBytes(StandardCharsets.UTF_8),
+                        SsaSnapshot.sexCode(data.sex(key)));
+                if (data.lastYear(key) != 0) {
+                    int slot = hashes[key] & (slotCount - 1);
+                    while (slots[slot] != 0) {
+                        slot = (slot + 1) & (slotCount - 1);
+                    }
+                    slots[slot] = key + 1;
+                }
+            }
+
+            long stringsOffset = SsaSnapshot.HEADER_BYTES + (long) size * SsaSnapshot.NAME_RECORD_BYTES;
+            long slotsOffset = stringsOffset + stringBytes;
+            long cellsOffset = slotsOffset + (long) slotCount * Integer.BYTES;
+            long statesOffset = cellsOffset + (long) data.cellCount() * SsaSnapshot.CELL_BYTES;
+            long fileLength = statesOffset + (long) stateRows * SsaSnapshot.STATE_ROW_BYTES;
+            if (fileLength > Integer.MAX_VALUE) {
+                throw new IOException("SSA snapshot would exceed 2 GB (" + fileLength + " bytes)");
+            }
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(partial), WRITE_BUFFER_BYTES))) {
+                out.writeInt(SsaSnapshot.MAGIC);
+                out.writeInt(SsaSnapshot.VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeLong(stamp.generation());
+                out.writeLong(0); // Reserved
+                out.writeInt(size);
+                out.writeInt(slotCount);
+                out.writeInt(data.cellCount());
+                out.writeInt(stateRows);
+                out.writeLong(stringsOffset);
+                out.writeLong(slotsOffset);
+                out.writeLong(cellsOffset);
+                out.writeLong(statesOffset);
+                out.writeLong(fileLength);
+                out.write(new byte[SsaSnapshot.HEADER_BYTES - out.size()]);
+
+                for (int key = 0; key < size; key++) {
+                    out.writeInt(stringOffsets[key]);
+                    out.writeShort(displayNames[key].length);
+                    out.writeByte(SsaSnapshot.sexCode(data.sex(key)));
+                    out.writeByte(0);
+                    out.writeShort(data.firstYears[key]);
+                    out.writeShort(data.lastYears[key]);
+                    out.writeInt(data.offsets[key]);
+                    out.writeLong(data.totals[key]);
+                    out.writeShort(data.peakYears[key]);
+                    out.writeShort(data.bestRankYears[key]);
+                    out.writeInt(data.peakCounts[key]);
+                    out.writeInt(data.bestRanks[key]);
+                    out.writeInt(stateOffsets[key]);
+                    out.writeInt(stateCounts[key]);
+                    out.writeInt(hashes[key]);
+                }
+                for (byte[] name : displayNames) {
+                    out.write(name);
+                }
+                for (int slot : slots) {
+                    out.writeInt(slot);
+                }
+                for (int cell = 0; cell < data.cellCount(); cell++) {
+                    out.writeInt(data.counts[cell]);
+                    out.writeInt(data.ranks[cell]);
+                }
+                Files.copy(stateSpool, out);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote SSA snapshot {}: {} names, {} year cells, {} state rows, {} KB in {}ms",
+                    target, size, data.cellCount(), stateRows, fileLength / 1024, System.currentTimeMillis() - start);
+        } finally {
+            Files.deleteIfExists(stateSpool);
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Stream state breakdowns into the spool, recording each key's first row and row count
+     *
+     * @return rows written
+     */
+    private int spoolStates(Path spool, SsaSeriesData data, int[] stateOffsets, int[] stateCounts)
+            throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(spool), WRITE_BUFFER_BYTES))) {
+            StateSpooler spooler = new StateSpooler(out, data, stateOffsets, stateCounts);
+            try {
+                bulkLoader.stream(STATES_SQL, rs -> spooler.add(rs.getLong(1), rs.getInt(2), rs.getString(3),
+                        rs.getInt(4), rs.getInt(5)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return spooler.rows;
+        }
+    }
+
+    private static final class StateSpooler {
+
+        private final DataOutputStream out;
+        private final SsaSeriesData data;
+        private final int[] stateOffsets;
+        private final int[] stateCounts;
+        private int rows;
+        private long currentNameId = -1;
+        private int currentKey = -1;
+
+        StateSpooler(DataOutputStream out, SsaSeriesData data, int[] stateOffsets, int[] stateCounts) {
+            this.out = out;
+            this.data = data;
+            this.stateOffsets = stateOffsets;
+            this.stateCounts = stateCounts;
+        }
+
+        void add(long nameId, int year, String stateCode, int count, int rank) {
+            if (nameId != currentNameId) {
+                currentNameId = nameId;
+                currentKey = data.keyForNameId(nameId);
+                if (currentKey >= 0 && stateCounts[currentKey] > 0) {
+                    // Another name id folded into the same key already wrote its block
+                    currentKey = -1;
+                }
+                if (currentKey >= 0) {
+                    stateOffsets[currentKey] = rows;
+                }
+            }
+            int ordinal = SsaStateCodes.ordinal(stateCode);
+            if (currentKey < 0 || ordinal < 0) {
+                return;
+            }
+            try {
+                out.writeShort(year);
+                out.writeByte(ordinal);
+                out.writeByte(0);
+                out.writeInt(count);
+                out.writeInt(rank);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            stateCounts[currentKey]++;
+            rows++;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.flicknames.service.collector.ssa;
+
+/**
+ * Ordinal table for the 51 state codes (50 states + DC) in the SSA state dataset.
+ * Ordinals fit in 6 bits so they can be packed next to a yearly stat id.
+ */
+public final class SsaStateCodes {
+
+    public static final int ORDINAL_BITS = 6;
+
+    private static final String[] CODES = {
+            "AK", "AL", "AR", "AZ", "CA", "CO", "CT", "DC", "DE", "FL",
+            "GA", "HI", "IA", "ID", "IL", "IN", "KS", "KY", "LA", "MA",
+            "MD", "ME", "MI", "MN", "MO", "MS", "MT", "NC", "ND", "NE",
+            "NH", "NJ", "NM", "NV", "NY", "OH", "OK", "OR", "PA", "RI",
+            "SC", "SD", "TN", "TX", "UT", "VA", "VT", "WA", "WI", "WV",
+            "WY"
+    };
+
+    // Two uppercase letters -> ordinal + 1 (0 = unknown)
+    private static final byte[] ORDINALS = new byte[26 * 26];
+
+    static {
+        for (int i = 0; i < CODES.length; i++) {
+            ORDINALS[letterIndex(CODES[i].charAt(0), CODES[i].charAt(1))] = (byte) (i + 1);
+        }
+    }
+
+    private SsaStateCodes() {
+    }
+
+    /**
+     * Ordinal of a two-letter state code, or -1 if it is not a known code
+     */
+    public static int ordinal(char first, char second) {
+        int index = letterIndex(first, second);
+        return index < 0 ? -1 : ORDINALS[index] - 1;
+    }
+
+    public static int ordinal(String stateCode) {
+        return stateCode.length() == 2 ? ordinal(stateCode.charAt(0), stateCode.charAt(1)) : -1;
+    }
+
+    public static String code(int ordinal) {
+        return CODES[ordinal];
+    }
+
+    /**
+     * Packed (yearly stat id, state) key for duplicate detection.
+     * Codes outside the table fall back to a distinct key space built from the raw characters.
+     */
+    public static long breakdownKey(long yearlyStatId, char first, char second) {
+        int ordinal = ordinal(first, second);
+        if (ordinal >= 0) {
+            return (yearlyStatId << ORDINAL_BITS) | ordinal;
+        }
+        return Long.MIN_VALUE | (yearlyStatId << 16) | ((long) first << 8) | second;
+    }
+
+    public static long breakdownKey(long yearlyStatId, String stateCode) {
+        return breakdownKey(yearlyStatId, stateCode.charAt(0), stateCode.charAt(1));
+    }
+
+    private static int letterIndex(char first, char second) {
+        if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z') {
+            return -1;
+        }
+        return (first - 'A') * 26 + (second - 'A');
+    }
+}
@@ -0,0 +1,117 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.job.ImportJobService;
+import com.flicknames.service.collector.job.JobRejectedException;
+import com.flicknames.service.collector.job.JobType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the ssa_year_totals and ssa_name_summary read models from ssa_name_yearly_stats.
+ *
+ * Both tables are recomputed with set-based INSERT ... SELECT statements after national
+ * imports; ranking runs only refresh the latest rank of the names they touched. Each refresh
+ * replaces the rows in one transaction, so readers keep seeing the previous contents until it commits.
+ * Summaries missing while yearly stats exist (a database imported before these tables) are
+ * filled on startup and whenever an unchanged national import is skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaSummaryTables {
+
+    private static final String YEAR_TOTALS_SQL = """
+        INSERT INTO ssa_year_totals (year, sex, total_count, name_count)
+        SELECT s.year, n.sex, SUM(s.count), COUNT(*)
+        FROM ssa_name_yearly_stats s
+        JOIN ssa_names n ON n.id = s.ssa_name_id
+        GROUP BY s.year, n.sex
+        """;
+
+    private static final String NAME_SUMMARY_SQL = """
+        INSERT INTO ssa_name_summary (ssa_name_id, name, lookup_name, sex, total_count,
+                                      peak_year, peak_count, first_year, last_year, latest_rank)
+        SELECT n.id, n.name, LOWER(n.name), n.sex, a.total_count,
+               p.year, p.count, a.first_year, a.last_year, l.rank
+        FROM ssa_names n
+        JOIN (SELECT s.ssa_name_id, SUM(s.count) AS total_count,
+                     MIN(s.year) AS first_year, MAX(s.year) AS last_year
+              FROM ssa_name_yearly_stats s
+              GROUP BY s.ssa_name_id) a ON a.ssa_name_id = n.id
+        JOIN (SELECT s.ssa_name_id, s.year, s.count,
+                     ROW_NUMBER() OVER (PARTITION BY s.ssa_name_id ORDER BY s.count DESC, s.year) AS rn
+              FROM ssa_name_yearly_stats s) p ON p.ssa_name_id = n.id AND p.rn = 1
+        JOIN ssa_name_yearly_stats l ON l.ssa_name_id = n.id AND l.year = a.last_year
+        """;
+
+    private static final String LATEST_RANK_SQL = """
+        UPDATE ssa_name_summary
+        SET latest_rank = (SELECT s.rank FROM ssa_name_yearly_stats s
+                           WHERE s.ssa_name_id = ssa_name_summary.ssa_name_id
+                             AND s.year = ssa_name_summary.last_year)
+        WHERE last_year BETWEEN ? AND ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportJobService jobService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            jobService.submit(JobType.SSA, "Backfill SSA summaries", job -> refreshIfEmpty());
+        } catch (JobRejectedException e) {
+            log.warn("Could not queue SSA summary backfill: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute year totals and every name summary
+     */
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        int[] written = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("DELETE FROM ssa_year_totals");
+            int years = jdbcTemplate.update(YEAR_TOTALS_SQL);
+            jdbcTemplate.update("DELETE FROM ssa_name_summary");
+            return new int[]{years, jdbcTemplate.update(NAME_SUMMARY_SQL)};
+        });
+        log.info("Refreshed SSA summaries: {} year totals, {} name summaries in {}ms",
+                written[0], written[1], System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Recompute year totals and name summaries if there are yearly stats but no summaries
+     *
+     * @return whether the summaries were recomputed
+     */
+    public boolean refreshIfEmpty() {
+        if (hasRows("ssa_name_summary") || !hasRows("ssa_name_yearly_stats")) {
+            return false;
+        }
+        log.info("SSA name summaries are empty, recomputing from yearly stats");
+        refresh();
+        return true;
+    }
+
+    /**
+     * Re-read the latest rank of names whose last year falls in a re-ranked range
+     *
+     * @return number of summaries updated
+     */
+    public int refreshLatestRanks(int fromYear, int toYear) {
+        Integer updated = transactionTemplate.execute(status ->
+                jdbcTemplate.update(LATEST_RANK_SQL, fromYear, toYear));
+        log.debug("Refreshed latest SSA ranks for years {}-{}: {} summaries", fromYear, toYear, updated);
+        return updated != null ? updated : 0;
+    }
+
+    private boolean hasRows(String table) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM " + table + " LIMIT 1").isEmpty();
+    }
+}
@@ -0,0 +1,173 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.bulk.DatabasePlatform;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Builds a replacement ssa_name_yearly_stats table off to the side and swaps it in.
+ *
+ * A rebuild import bulk-loads into an unlogged, unindexed staging table. Once every row is
+ * written, rows that already exist get their live ids back (so state breakdowns stay linked),
+ * new rows are numbered after the current maximum id, and the primary key, unique constraint
+ * and indexes are built in one pass each. The swap itself is a rename inside one transaction,
+ * so readers see either the old table or the complete new one. PostgreSQL only.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaTableRebuilder {
+
+    public static final String LIVE_TABLE = "ssa_name_yearly_stats";
+    public static final String STAGING_TABLE = "ssa_name_yearly_stats_rebuild";
+
+    private static final String STAGING_DDL = """
+        CREATE UNLOGGED TABLE ssa_name_yearly_stats_rebuild (
+            id BIGINT,
+            ssa_name_id BIGINT NOT NULL,
+            year INTEGER NOT NULL,
+            count INTEGER NOT NULL,
+            rank INTEGER,
+            proportion NUMERIC(10, 8),
+            rank_change INTEGER,
+            created_at TIMESTAMP(6) NOT NULL
+        )
+        """;
+
+    private static final String RESTORE_EXISTING_IDS = """
+        UPDATE ssa_name_yearly_stats_rebuild r SET id = s.id
+        FROM ssa_name_yearly_stats s
+        WHERE s.ssa_name_id = r.ssa_name_id AND s.year = r.year
+        """;
+
+    private static final String NUMBER_NEW_ROWS = """
+        UPDATE ssa_name_yearly_stats_rebuild r SET id = n.new_id
+        FROM (SELECT ctid AS row_ref,
+                     (SELECT COALESCE(MAX(id), 0) FROM ssa_name_yearly_stats) + ROW_NUMBER() OVER () AS new_id
+              FROM ssa_name_yearly_stats_rebuild
+              WHERE id IS NULL) n
+        WHERE r.ctid = n.row_ref
+        """;
+
+    // Index name on the staging table -> definition; renamed to the live names on swap
+    private static final String[][] INDEXES = {
+            {"idx_ssa_yearly_year", "(year)"},
+            {"idx_ssa_yearly_rank", "(year, rank)"},
+            {"idx_ssa_yearly_count", "(year, count DESC)"}
+    };
+
+    private static final String FOREIGN_KEYS_SQL = """
+        SELECT conname FROM pg_constraint
+        WHERE contype = 'f' AND conrelid = CAST(? AS regclass) AND confrelid = CAST(? AS regclass)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Create an empty staging table, dropping any left behind by an earlier failed rebuild
+     */
+    public void prepare() {
+        if (!databasePlatform.isPostgres()) {
+            throw new IllegalStateException("Rebuild imports require PostgreSQL");
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+        jdbcTemplate.execute(STAGING_DDL);
+        log.info("Created staging table {}", STAGING_TABLE);
+    }
+
+    /**
+     * Index the loaded staging table and swap it in for the live table
+     */
+    public void swapIn() {
+        long start = System.currentTimeMillis();
+
+        int kept = jdbcTemplate.update(RESTORE_EXISTING_IDS);
+        int added = jdbcTemplate.update(NUMBER_NEW_ROWS);
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + STAGING_TABLE + "), "
+                        + "(SELECT COALESCE(MAX(id), 0) FROM " + LIVE_TABLE + "))", Long.class);
+        log.info("Staging table ids assigned: {} kept, {} new", kept, added);
+
+        // Make the table crash-safe, then build constraints and indexes in bulk
+        jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " SET LOGGED");
+        jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " ALTER COLUMN id SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY"
+                + " (START WITH " + (maxId + 1) + ")");
+        jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " ADD CONSTRAINT " + stagingName(LIVE_TABLE + "_pkey")
+                + " PRIMARY KEY (id)");
+        jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " ADD CONSTRAINT "
+                + stagingName("uk_ssa_yearly_name_year") + " UNIQUE (ssa_name_id, year)");
+        for (String[] index : INDEXES) {
+            jdbcTemplate.execute("CREATE INDEX " + stagingName(index[0]) + " ON " + STAGING_TABLE + " " + index[1]);
+        }
+        for (String foreignKey : foreignKeys(LIVE_TABLE, "ssa_names")) {
+            jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " ADD CONSTRAINT " + foreignKey
+                    + " FOREIGN KEY (ssa_name_id) REFERENCES ssa_names (id)");
+        }
+        jdbcTemplate.execute("ANALYZE " + STAGING_TABLE);
+        log.info("Indexed staging table in {}ms", System.currentTimeMillis() - start);
+
+        List<String> breakdownKeys = foreignKeys("ssa_name_state_breakdowns", LIVE_TABLE);
+        transactionTemplate.executeWithoutResult(status -> {
+            long lockStart = System.currentTimeMillis();
+            jdbcTemplate.execute("LOCK TABLE " + LIVE_TABLE + ", ssa_name_state_breakdowns IN ACCESS EXCLUSIVE MODE");
+
+            // Breakdowns of rows that no longer exist would violate the re-created foreign key
+            int orphans = jdbcTemplate.update("DELETE FROM ssa_name_state_breakdowns b WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM " + STAGING_TABLE + " r WHERE r.id = b.yearly_stat_id)");
+            for (String foreignKey : breakdownKeys) {
+                jdbcTemplate.execute("ALTER TABLE ssa_name_state_breakdowns DROP CONSTRAINT " + foreignKey);
+            }
+
+            jdbcTemplate.execute("DROP TABLE " + LIVE_TABLE);
+            jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " RENAME TO " + LIVE_TABLE);
+            jdbcTemplate.execute("ALTER TABLE " + LIVE_TABLE + " RENAME CONSTRAINT "
+                    + stagingName(LIVE_TABLE + "_pkey") + " TO " + LIVE_TABLE + "_pkey");
+            jdbcTemplate.execute("ALTER TABLE " + LIVE_TABLE + " RENAME CONSTRAINT "
+                    + stagingName("uk_ssa_yearly_name_year") + " TO uk_ssa_yearly_name_year");
+            for (String[] index : INDEXES) {
+                jdbcTemplate.execute("ALTER INDEX " + stagingName(index[0]) + " RENAME TO " + index[0]);
+            }
+
+            // Ids were preserved, so the keys are re-added without a full scan under the lock
+            for (String foreignKey : breakdownKeys) {
+                jdbcTemplate.execute("ALTER TABLE ssa_name_state_breakdowns ADD CONSTRAINT " + foreignKey
+                        + " FOREIGN KEY (yearly_stat_id) REFERENCES " + LIVE_TABLE + " (id) NOT VALID");
+            }
+            log.info("Swapped in rebuilt {} in {}ms ({} orphaned state breakdowns removed)",
+                    LIVE_TABLE, System.currentTimeMillis() - lockStart, orphans);
+        });
+
+        // Validation only takes a lock that still allows reads and writes
+        for (String foreignKey : breakdownKeys) {
+            jdbcTemplate.execute("ALTER TABLE ssa_name_state_breakdowns VALIDATE CONSTRAINT " + foreignKey);
+        }
+        log.info("Rebuild of {} finished in {}ms", LIVE_TABLE, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Drop the staging table after a failed rebuild; the live table is untouched
+     */
+    public void discard() {
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+        } catch (RuntimeException e) {
+            log.warn("Failed to drop staging table {}", STAGING_TABLE, e);
+        }
+    }
+
+    private List<String> foreignKeys(String table, String referencedTable) {
+        return jdbcTemplate.queryForList(FOREIGN_KEYS_SQL, String.class, table, referencedTable);
+    }
+
+    private static String stagingName(String name) {
+        return name + "_rebuild";
+    }
+}
@@ -0,0 +1,87 @@
+package com.flicknames.service.collector.ssa;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Year;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+@RestController
+@RequestMapping("/api/v1/ssa")
+@RequiredArgsConstructor
+@Tag(name = "SSA Top Names", description = "Top SSA baby names over year ranges, states and regions")
+public class SsaTopNamesController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final SsaAggregateCube aggregateCube;
+
+    @GetMapping("/top")
+    @Operation(summary = "Get top names over a year range and set of states",
+               description = "Sums SSA counts over the inclusive year range, either nationally or over the given " +
+                           "states and regions, and returns the most popular names. " +
+                           "Example: fromYear=1990&toYear=1999&regions=PACIFIC&sex=F")
+    public ResponseEntity<Map<String, Object>> getTopNames(
+            @Parameter(description = "First year (inclusive)")
+            @RequestParam(defaultValue = "1880") int fromYear,
+            @Parameter(description = "Last year (inclusive), defaults to the current year")
+            @RequestParam(required = false) Integer toYear,
+            @Parameter(description = "Two-letter state codes, e.g. WA,OR")
+            @RequestParam(required = false) List<String> states,
+            @Parameter(description = "Census regions or divisions, e.g. WEST or PACIFIC")
+            @RequestParam(required = false) List<SsaRegion> regions,
+            @Parameter(description = "F or M; both when omitted")
+            @RequestParam(required = false) String sex,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        TreeSet<String> stateCodes = new TreeSet<>();
+        if (states != null) {
+            states.forEach(code -> stateCodes.add(code.trim().toUpperCase(Locale.ROOT)));
+        }
+        if (regions != null) {
+            regions.forEach(region -> stateCodes.addAll(region.getStateCodes()));
+        }
+        String sexFilter = sex != null ? sex.toUpperCase(Locale.ROOT) : null;
+        if (sexFilter != null && !sexFilter.equals("F") && !sexFilter.equals("M")) {
+            return badRequest("sex must be F or M");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return badRequest("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        try {
+            SsaAggregateCube.TopNames top = aggregateCube.top(fromYear,
+                    toYear != null ? toYear : Year.now().getValue(), stateCodes, sexFilter, limit);
+            return ResponseEntity.ok(Map.of(
+                    "fromYear", top.fromYear(),
+                    "toYear", top.toYear(),
+                    "states", stateCodes,
+                    "sex", sexFilter != null ? sexFilter : "ALL",
+                    "totalCount", top.totalCount(),
+                    "names", top.names()
+            ));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(String message) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", message
+        ));
+    }
+}
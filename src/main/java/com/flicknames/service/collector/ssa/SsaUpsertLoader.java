@@ -0,0 +1,126 @@
+package com.flicknames.service.collector.ssa;
+
+import com.flicknames.service.collector.bulk.BulkLoader;
+import com.flicknames.service.collector.bulk.BulkWriter;
+import com.flicknames.service.collector.bulk.DatabasePlatform;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Database-side upsert path for national SSA imports.
+ *
+ * Each year file is bulk-loaded into a transaction-scoped temp table and merged into
+ * ssa_names and ssa_name_yearly_stats with INSERT ... ON CONFLICT against the
+ * uk_ssa_name_sex and uk_ssa_yearly_name_year constraints (MERGE on H2), all in one
+ * transaction per year. Duplicates are resolved by the database, so the import needs no
+ * warm-up of existing rows and its memory use does not depend on table size.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SsaUpsertLoader {
+
+    private static final String STAGING_TABLE = "ssa_upsert_staging";
+
+    private static final String STAGING_COLUMNS = """
+        (name VARCHAR(15) NOT NULL, sex CHAR(1) NOT NULL, count INTEGER NOT NULL,
+         rank INTEGER, proportion NUMERIC(10, 8), rank_change INTEGER)
+        """;
+
+    private static final String POSTGRES_NAMES_UPSERT = """
+        INSERT INTO ssa_names (name, sex, created_at)
+        SELECT DISTINCT name, sex, CAST(? AS TIMESTAMP) FROM ssa_upsert_staging
+        ON CONFLICT ON CONSTRAINT uk_ssa_name_sex DO NOTHING
+        """;
+
+    private static final String H2_NAMES_UPSERT = """
+        INSERT INTO ssa_names (name, sex, created_at)
+        SELECT DISTINCT s.name, s.sex, CAST(? AS TIMESTAMP) FROM ssa_upsert_staging s
+        WHERE NOT EXISTS (SELECT 1 FROM ssa_names n WHERE n.name = s.name AND n.sex = s.sex)
+        """;
+
+    // Params: year, created_at
+    private static final String POSTGRES_STATS_UPSERT = """
+        INSERT INTO ssa_name_yearly_stats AS t (ssa_name_id, year, count, rank, proportion, rank_change, created_at)
+        SELECT n.id, ?, s.count, s.rank, s.proportion, s.rank_change, CAST(? AS TIMESTAMP)
+        FROM ssa_upsert_staging s
+        JOIN ssa_names n ON n.name = s.name AND n.sex = s.sex
+        ON CONFLICT ON CONSTRAINT uk_ssa_yearly_name_year DO UPDATE SET %s
+        WHERE %s
+        """;
+
+    // Params: year (match), year (insert), created_at
+    private static final String H2_STATS_UPSERT = """
+        MERGE INTO ssa_name_yearly_stats t
+        USING (SELECT n.id AS ssa_name_id, s.count, s.rank, s.proportion, s.rank_change
+               FROM ssa_upsert_staging s
+               JOIN ssa_names n ON n.name = s.name AND n.sex = s.sex) r
+        ON t.ssa_name_id = r.ssa_name_id AND t.year = ?
+        WHEN MATCHED AND (%s) THEN UPDATE SET %s
+        WHEN NOT MATCHED THEN INSERT (ssa_name_id, year, count, rank, proportion, rank_change, created_at)
+            VALUES (r.ssa_name_id, ?, r.count, r.rank, r.proportion, r.rank_change, CAST(? AS TIMESTAMP))
+        """;
+
+    private final BulkLoader bulkLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Upsert one national year file and commit it.
+     * Rows are (name, sex, count, rank, proportion, rank change). Existing rows get the new count;
+     * with {@code withRanks} their rank, proportion and rank change are overwritten as well, since
+     * a year file always contains the complete year. Rows whose values are unchanged are not rewritten.
+     *
+     * @return number of yearly stat rows inserted or changed
+     */
+    public int upsertNationalYear(int year, List<Object[]> rows, boolean withRanks, LocalDateTime importTime) {
+        Integer changed = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(databasePlatform.temporaryTableDdl(STAGING_TABLE, STAGING_COLUMNS));
+            try (BulkWriter staging = bulkLoader.writer(STAGING_TABLE,
+                    "name", "sex", "count", "rank", "proportion", "rank_change")) {
+                for (Object[] row : rows) {
+                    staging.add(row);
+                }
+            }
+
+            int newNames = jdbcTemplate.update(
+                    databasePlatform.isPostgres() ? POSTGRES_NAMES_UPSERT : H2_NAMES_UPSERT, importTime);
+            int stats = databasePlatform.isPostgres()
+                    ? jdbcTemplate.update(POSTGRES_STATS_UPSERT.formatted(
+                            assignments("EXCLUDED.", withRanks), changedCondition("t.", "EXCLUDED.", withRanks)),
+                            year, importTime)
+                    : jdbcTemplate.update(H2_STATS_UPSERT.formatted(
+                            changedCondition("t.", "r.", withRanks), assignments("r.", withRanks)),
+                            year, year, importTime);
+            log.debug("Upserted year {}: {} new names, {} yearly stats inserted or changed", year, newNames, stats);
+            return stats;
+        });
+        return changed != null ? changed : 0;
+    }
+
+    private static String assignments(String source, boolean withRanks) {
+        String assignments = "count = " + source + "count";
+        if (withRanks) {
+            assignments += ", rank = " + source + "rank, proportion = " + source + "proportion"
+                    + ", rank_change = " + source + "rank_change";
+        }
+        return assignments;
+    }
+
+    private static String changedCondition(String target, String source, boolean withRanks) {
+        String condition = target + "count IS DISTINCT FROM " + source + "count";
+        if (withRanks) {
+            condition += " OR " + target + "rank IS DISTINCT FROM " + source + "rank"
+                    + " OR " + target + "proportion IS DISTINCT FROM " + source + "proportion"
+                    + " OR " + target + "rank_change IS DISTINCT FROM " + source + "rank_change";
+        }
+        return condition;
+    }
+}
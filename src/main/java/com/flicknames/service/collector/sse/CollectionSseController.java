@@ -1,6 +1,10 @@
 package com.flicknames.service.collector.sse;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flicknames.service.collector.job.ImportJob;
+import com.flicknames.service.collector.job.ImportJobService;
+import com.flicknames.service.collector.job.JobRejectedException;
+import com.flicknames.service.collector.job.JobType;
 import com.flicknames.service.collector.service.DataCollectorService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +32,7 @@ public class CollectionSseController {
 
     private final DataCollectorService collectorService;
     private final ObjectMapper objectMapper;
+    private final ImportJobService jobService;
 
     // Thread-safe list of active SSE emitters
     private final CopyOnWriteArrayList<SseEmitter> emitters = new CopyOnWriteArrayList<>();
@@ -81,22 +86,30 @@ public class CollectionSseController {
             @RequestParam(defaultValue = "false") boolean usOnly,
             @RequestParam(defaultValue = "100") int maxPages) {
 
-        if (collectorService.isCollectionRunning()) {
+        if (collectorService.isCollectionRunning() || jobService.hasActiveJob(JobType.TMDB)) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Map.of("error", "Collection already running"));
         }
 
-        // Start collection on new thread (fire-and-forget)
-        new Thread(() -> {
-            try {
-                collectorService.collectYearComprehensive(year, usOnly, maxPages);
-            } catch (Exception e) {
-                log.error("Collection failed for year {}", year, e);
-            }
-        }, "collection-" + year).start();
+        // Run on the TMDB job pool (fire-and-forget); cancelling the job stops the collection
+        ImportJob job;
+        try {
+            job = jobService.submit(JobType.TMDB,
+                    String.format("Comprehensive collection for year %d", year),
+                    running -> {
+                        running.onCancel(collectorService::cancelCollection);
+                        return collectorService.collectYearComprehensive(year, usOnly, maxPages);
+                    });
+        } catch (JobRejectedException e) {
+            // Another request filled the queue after the check above
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
+        }
 
         return ResponseEntity.accepted()
-                .body(Map.of("message", String.format("Collection started for year %d", year)));
+                .body(Map.of(
+                        "message", String.format("Collection started for year %d", year),
+                        "jobId", String.valueOf(job.getId())));
     }
 
     /**
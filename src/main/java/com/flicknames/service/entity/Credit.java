@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_credit_role_type", columnList = "roleType")
     },
     uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"person_id", "movie_id", "roleType", "job", "character_id"})
+        @UniqueConstraint(name = "uk_credit_movie_person_role_job",
+                columnNames = {"movie_id", "person_id", "roleType", "job"})
     }
 )
 @Data
@@ -0,0 +1,66 @@
+package com.flicknames.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resume point of a chunked IMDb dataset import. Each chunk commits its rows together
+ * with the new line offset, so every line at or below {@code linesCommitted} is fully imported.
+ */
+@Entity
+@Table(name = "imdb_import_checkpoints",
+    indexes = @Index(name = "idx_imdb_checkpoint_file", columnList = "dataset, filePath"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IMDbImportCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Dataset file name, e.g. title.basics.tsv.gz
+     */
+    @Column(nullable = false, length = 50)
+    private String dataset;
+
+    @Column(nullable = false, length = 500)
+    private String filePath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    /**
+     * Data lines (after the header) read and committed so far
+     */
+    @Column(nullable = false)
+    private Long linesCommitted;
+
+    /**
+     * Rows imported up to the checkpoint, including earlier runs of a resumed import
+     */
+    @Column(nullable = false)
+    private Long importedCount;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,27 @@
+package com.flicknames.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single-row counter bumped by every write to the SSA tables.
+ * Derived copies of the data (such as the series snapshot) record the generation they were
+ * built from and are stale once it moves on.
+ */
+@Entity
+@Table(name = "ssa_data_generation")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SsaDataGeneration {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long generation;
+}
@@ -55,6 +55,18 @@ public class SsaImportMetadata {
     @Column(length = 64)
     private String fileChecksum;
 
+    /**
+     * ETag of the remote file, compared on the next import to skip unchanged downloads
+     */
+    @Column(length = 200)
+    private String sourceEtag;
+
+    /**
+     * Content-Length of the remote file, used to check that a resumed import reads the same file
+     * when no ETag is sent
+     */
+    private Long sourceContentLength;
+
     /**
      * Total number of records imported
      */
@@ -83,6 +95,33 @@ public class SsaImportMetadata {
      */
     private Long importDurationMs;
 
+    /**
+     * Import throughput in records written per second
+     */
+    private Long rowsPerSecond;
+
+    /**
+     * Last ZIP entry fully committed by this import (yobYYYY.txt or XX.TXT), for resuming after a crash
+     */
+    @Column(length = 20)
+    private String checkpointEntry;
+
+    /**
+     * Last national year fully committed by this import; every earlier year in its range is complete
+     */
+    private Integer checkpointYear;
+
+    /**
+     * State codes fully committed by this import, comma-separated in commit order
+     */
+    @Column(length = 255)
+    private String checkpointStates;
+
+    /**
+     * Rows processed up to and including the checkpoint entry
+     */
+    private Long checkpointRowOffset;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime importedAt;
@@ -0,0 +1,61 @@
+package com.flicknames.service.entity;
+
+import com.flicknames.service.util.PackedInts;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact national history of one SSA name: a single row per {@link SsaName} with
+ * counts and ranks packed as year-indexed int arrays starting at {@code firstYear}.
+ * A count of 0 marks a year without data and a rank of 0 an unranked year.
+ * Derived from ssa_name_yearly_stats and rewritten by the imports and ranking runs that write its years.
+ */
+@Entity
+@Table(name = "ssa_name_series")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SsaNameSeries {
+
+    /**
+     * Same as the ssa_names.id this series belongs to
+     */
+    @Id
+    @Column(name = "ssa_name_id")
+    private Long ssaNameId;
+
+    @Column(nullable = false)
+    private Integer firstYear;
+
+    @Column(nullable = false, length = 1024)
+    private byte[] counts;
+
+    @Column(nullable = false, length = 1024)
+    private byte[] ranks;
+
+    @Column(nullable = false)
+    private Long totalCount;
+
+    public int getLastYear() {
+        return firstYear + PackedInts.length(counts) - 1;
+    }
+
+    /**
+     * Count in a year, or 0 if the name has no data for it
+     */
+    public int countAt(int year) {
+        return year < firstYear || year > getLastYear() ? 0 : PackedInts.get(counts, year - firstYear);
+    }
+
+    /**
+     * Rank in a year, or null if not ranked
+     */
+    public Integer rankAt(int year) {
+        int rank = year < firstYear || year > getLastYear() ? 0 : PackedInts.get(ranks, year - firstYear);
+        return rank > 0 ? rank : null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.flicknames.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Precomputed totals for one SSA name and sex: a single row per {@link SsaName}
+ * so name pages never aggregate the yearly stats.
+ * Derived from ssa_name_yearly_stats and refreshed by imports and ranking runs.
+ */
+@Entity
+@Table(name = "ssa_name_summary",
+    indexes = @Index(name = "idx_ssa_summary_lookup", columnList = "lookupName, totalCount"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SsaNameSummary {
+
+    /**
+     * Same as the ssa_names.id this summary belongs to
+     */
+    @Id
+    @Column(name = "ssa_name_id")
+    private Long ssaNameId;
+
+    @Column(nullable = false, length = 15)
+    private String name;
+
+    /**
+     * Lower-cased name, so case-insensitive lookups can use the index
+     */
+    @Column(nullable = false, length = 15)
+    private String lookupName;
+
+    @Column(nullable = false, length = 1)
+    private String sex;
+
+    @Column(nullable = false)
+    private Long totalCount;
+
+    @Column(nullable = false)
+    private Integer peakYear;
+
+    @Column(nullable = false)
+    private Integer peakCount;
+
+    @Column(nullable = false)
+    private Integer firstYear;
+
+    @Column(nullable = false)
+    private Integer lastYear;
+
+    /**
+     * Rank in {@code lastYear}, null if that year is not ranked yet
+     */
+    private Integer latestRank;
+}
@@ -0,0 +1,37 @@
+package com.flicknames.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total recorded SSA births and distinct names per year and sex.
+ * Derived from ssa_name_yearly_stats and refreshed by imports.
+ */
+@Entity
+@Table(name = "ssa_year_totals",
+    uniqueConstraints = @UniqueConstraint(name = "uk_ssa_year_total", columnNames = {"year", "sex"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SsaYearTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false, length = 1)
+    private String sex;
+
+    @Column(nullable = false)
+    private Long totalCount;
+
+    @Column(nullable = false)
+    private Integer nameCount;
+}
@@ -0,0 +1,14 @@
+package com.flicknames.service.repository;
+
+import com.flicknames.service.entity.IMDbImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IMDbImportCheckpointRepository extends JpaRepository<IMDbImportCheckpoint, Long> {
+
+    // Latest chunked import of a dataset file, to resume from
+    Optional<IMDbImportCheckpoint> findFirstByDatasetAndFilePathOrderByIdDesc(String dataset, String filePath);
+}
@@ -7,7 +7,6 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface SsaImportMetadataRepository extends JpaRepository<SsaImportMetadata, Long> {
@@ -23,10 +22,36 @@ public interface SsaImportMetadataRepository extends JpaRepository<SsaImportMeta
         @Param("datasetType") SsaImportMetadata.DatasetType datasetType
     );
 
-    // Find by checksum to detect if file has changed
-    Optional<SsaImportMetadata> findByFileChecksumAndDatasetType(
+    // Latest successful import from a specific URL (for ETag change detection)
+    @Query("""
+        SELECT m FROM SsaImportMetadata m
+        WHERE m.datasetType = :datasetType
+        AND m.sourceUrl = :sourceUrl
+        AND m.status = 'SUCCESS'
+        ORDER BY m.importedAt DESC
+        """)
+    List<SsaImportMetadata> findLatestSuccessfulImportFromUrl(
+        @Param("datasetType") SsaImportMetadata.DatasetType datasetType,
+        @Param("sourceUrl") String sourceUrl
+    );
+
+    // Imports from a specific URL, newest first (to find an interrupted import to resume)
+    @Query("""
+        SELECT m FROM SsaImportMetadata m
+        WHERE m.datasetType = :datasetType
+        AND m.sourceUrl = :sourceUrl
+        ORDER BY m.importedAt DESC, m.id DESC
+        """)
+    List<SsaImportMetadata> findRecentFromUrl(
+        @Param("datasetType") SsaImportMetadata.DatasetType datasetType,
+        @Param("sourceUrl") String sourceUrl
+    );
+
+    // Whether a file with this checksum was imported before (change detection without an ETag)
+    boolean existsByFileChecksumAndDatasetTypeAndStatus(
         String fileChecksum,
-        SsaImportMetadata.DatasetType datasetType
+        SsaImportMetadata.DatasetType datasetType,
+        SsaImportMetadata.ImportStatus status
     );
 
     // Check if a specific year has been imported
@@ -0,0 +1,23 @@
+package com.flicknames.service.repository;
+
+import com.flicknames.service.entity.SsaNameSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SsaNameSeriesRepository extends JpaRepository<SsaNameSeries, Long> {
+
+    // Compact history of a name, if it has been written
+    @Query("""
+        SELECT s FROM SsaNameSeries s, SsaName n
+        WHERE s.ssaNameId = n.id AND n.name = :name AND n.sex = :sex
+        """)
+    Optional<SsaNameSeries> findCompactHistory(
+        @Param("name") String name,
+        @Param("sex") String sex
+    );
+}
@@ -0,0 +1,18 @@
+package com.flicknames.service.repository;
+
+import com.flicknames.service.entity.SsaNameSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SsaNameSummaryRepository extends JpaRepository<SsaNameSummary, Long> {
+
+    // Most popular sex of a name; lookupName must be lower-cased
+    Optional<SsaNameSummary> findFirstByLookupNameOrderByTotalCountDesc(String lookupName);
+
+    // Every sex of a name, most popular first; lookupName must be lower-cased
+    List<SsaNameSummary> findByLookupNameOrderByTotalCountDesc(String lookupName);
+}
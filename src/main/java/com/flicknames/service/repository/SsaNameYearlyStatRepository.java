@@ -108,11 +108,10 @@ public interface SsaNameYearlyStatRepository extends JpaRepository<SsaNameYearly
         @Param("sex") String sex
     );
 
-    // Total births for a year+sex (for proportion calculation)
+    // Total births for a year+sex (for proportion calculation), precomputed in ssa_year_totals
     @Query("""
-        SELECT SUM(ys.count) FROM SsaNameYearlyStat ys
-        JOIN ys.ssaName n
-        WHERE ys.year = :year AND n.sex = :sex
+        SELECT t.totalCount FROM SsaYearTotal t
+        WHERE t.year = :year AND t.sex = :sex
         """)
     Long sumCountByYearAndSex(
         @Param("year") Integer year,
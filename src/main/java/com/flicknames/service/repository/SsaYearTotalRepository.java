@@ -0,0 +1,16 @@
+package com.flicknames.service.repository;
+
+import com.flicknames.service.entity.SsaYearTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SsaYearTotalRepository extends JpaRepository<SsaYearTotal, Long> {
+
+    Optional<SsaYearTotal> findByYearAndSex(Integer year, String sex);
+
+    List<SsaYearTotal> findByYearBetweenOrderByYearAscSexAsc(Integer startYear, Integer endYear);
+}
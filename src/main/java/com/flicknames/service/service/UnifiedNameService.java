@@ -1,12 +1,16 @@
 package com.flicknames.service.service;
 
+import com.flicknames.service.collector.ssa.SsaSeries;
+import com.flicknames.service.collector.ssa.SsaSeriesStore;
 import com.flicknames.service.dto.PersonCardDTO;
 import com.flicknames.service.dto.TrendingNameDTO;
 import com.flicknames.service.entity.Person;
-import com.flicknames.service.entity.SsaName;
-import com.flicknames.service.entity.SsaNameYearlyStat;
+import com.flicknames.service.entity.SsaNameSummary;
+import com.flicknames.service.entity.SsaNameSeries;
 import com.flicknames.service.repository.PersonRepository;
-import com.flicknames.service.repository.SsaNameRepository;
+import com.flicknames.service.repository.SsaNameSeriesRepository;
+import com.flicknames.service.repository.SsaNameSummaryRepository;
+import com.flicknames.service.repository.SsaNameYearlyStatRepository;
 import com.flicknames.service.research.dto.FullNameDetailsDTO;
 import com.flicknames.service.research.dto.NameResearchDTO;
 import com.flicknames.service.research.service.NameResearchService;
@@ -28,7 +32,10 @@ public class UnifiedNameService {
     private final NameService nameService;
     private final CharacterNameService characterNameService;
     private final NameResearchService nameResearchService;
-    private final SsaNameRepository ssaNameRepository;
+    private final SsaNameSummaryRepository ssaNameSummaryRepository;
+    private final SsaNameYearlyStatRepository ssaNameYearlyStatRepository;
+    private final SsaNameSeriesRepository ssaNameSeriesRepository;
+    private final SsaSeriesStore ssaSeriesStore;
     private final PersonRepository personRepository;
 
     /**
@@ -146,19 +153,10 @@ public class UnifiedNameService {
         // Get research data (only if approved)
         Optional<NameResearchDTO> research = nameResearchService.getApprovedResearch(name);
 
-        // Get SSA statistics
-        List<SsaName> ssaNames = ssaNameRepository.findByNameIgnoreCase(name);
-        FullNameDetailsDTO.SsaStatsDTO ssaStats = null;
-
-        if (!ssaNames.isEmpty()) {
-            // Get the most common gender version
-            SsaName primarySsaName = ssaNames.stream()
-                .max(Comparator.comparingLong(ssaName ->
-                    ssaName.getYearlyStats().stream().mapToLong(stat -> stat.getCount()).sum()))
-                .orElse(ssaNames.get(0));
-
-            ssaStats = buildSsaStats(primarySsaName);
-        }
+        // Get SSA statistics, from the in-memory series store once it is loaded
+        FullNameDetailsDTO.SsaStatsDTO ssaStats = ssaSeriesStore.isLoaded()
+            ? ssaSeriesStore.findAllSexes(name).stream().findFirst().map(this::buildSsaStats).orElse(null)
+            : loadSsaStats(name);
 
         // Get famous people with this name (namesakes)
         List<PersonCardDTO> namesakes = getTopNamesakes(name, 10);
@@ -177,57 +175,83 @@ public class UnifiedNameService {
     }
 
     /**
-     * Build SSA statistics from SsaName entity
+     * Load SSA statistics from the name summary table, used until the series store is loaded
      */
-    private FullNameDetailsDTO.SsaStatsDTO buildSsaStats(SsaName ssaName) {
-        List<SsaNameYearlyStat> stats = ssaName.getYearlyStats();
-        if (stats.isEmpty()) {
-            return null;
-        }
-
-        // Calculate totals and find peak
-        long totalCount = 0;
-        SsaNameYearlyStat peakStat = stats.get(0);
-        Integer firstYear = null;
-        Integer lastYear = null;
-
-        for (SsaNameYearlyStat stat : stats) {
-            totalCount += stat.getCount();
-
-            if (peakStat == null || stat.getCount() > peakStat.getCount()) {
-                peakStat = stat;
-            }
-
-            if (firstYear == null || stat.getYear() < firstYear) {
-                firstYear = stat.getYear();
-            }
-            if (lastYear == null || stat.getYear() > lastYear) {
-                lastYear = stat.getYear();
-            }
-        }
+    private FullNameDetailsDTO.SsaStatsDTO loadSsaStats(String name) {
+        return ssaNameSummaryRepository.findFirstByLookupNameOrderByTotalCountDesc(name.toLowerCase(Locale.ROOT))
+            .map(this::buildSsaStats)
+            .orElse(null);
+    }
 
-        // Get recent years (last 10 years)
-        List<FullNameDetailsDTO.YearlyStatDTO> recentYears = stats.stream()
-            .sorted(Comparator.comparingInt(SsaNameYearlyStat::getYear).reversed())
-            .limit(10)
+    /**
+     * Build SSA statistics from a series in the SSA series store
+     */
+    private FullNameDetailsDTO.SsaStatsDTO buildSsaStats(SsaSeries series) {
+        List<FullNameDetailsDTO.YearlyStatDTO> recentYears = series.recentYears(10).stream()
             .map(stat -> FullNameDetailsDTO.YearlyStatDTO.builder()
-                .year(stat.getYear())
-                .count(stat.getCount().longValue())
-                .rank(stat.getRank())
+                .year(stat.year())
+                .count((long) stat.count())
+                .rank(stat.rank())
                 .build())
             .collect(Collectors.toList());
 
         return FullNameDetailsDTO.SsaStatsDTO.builder()
-            .sex(ssaName.getSex())
-            .totalCount(totalCount)
-            .peakYear(peakStat.getYear())
-            .peakCount(peakStat.getCount().longValue())
-            .firstYear(firstYear)
-            .lastYear(lastYear)
+            .sex(series.getSex())
+            .totalCount(series.getTotalCount())
+            .peakYear(series.getPeakYear())
+            .peakCount((long) series.getPeakCount())
+            .firstYear(series.getFirstYear())
+            .lastYear(series.getLastYear())
             .recentYears(recentYears)
             .build();
     }
 
+    /**
+     * Build SSA statistics from a name summary row and the compact name history,
+     * or the yearly stat rows if the compact history has not been written yet
+     */
+    private FullNameDetailsDTO.SsaStatsDTO buildSsaStats(SsaNameSummary summary) {
+        List<FullNameDetailsDTO.YearlyStatDTO> recentYears = ssaNameSeriesRepository
+            .findCompactHistory(summary.getName(), summary.getSex())
+            .map(series -> recentYears(series, 10))
+            .orElseGet(() -> ssaNameYearlyStatRepository
+                .findNameHistory(summary.getName(), summary.getSex()).stream()
+                .limit(10)
+                .map(stat -> FullNameDetailsDTO.YearlyStatDTO.builder()
+                    .year(stat.getYear())
+                    .count(stat.getCount().longValue())
+                    .rank(stat.getRank())
+                    .build())
+                .collect(Collectors.toList()));
+
+        return FullNameDetailsDTO.SsaStatsDTO.builder()
+            .sex(summary.getSex())
+            .totalCount(summary.getTotalCount())
+            .peakYear(summary.getPeakYear())
+            .peakCount(summary.getPeakCount().longValue())
+            .firstYear(summary.getFirstYear())
+            .lastYear(summary.getLastYear())
+            .recentYears(recentYears)
+            .build();
+    }
+
+    /**
+     * Most recent years with data in a compact history, newest first
+     */
+    private static List<FullNameDetailsDTO.YearlyStatDTO> recentYears(SsaNameSeries series, int limit) {
+        List<FullNameDetailsDTO.YearlyStatDTO> years = new ArrayList<>(limit);
+        for (int year = series.getLastYear(); year >= series.getFirstYear() && years.size() < limit; year--) {
+            if (series.countAt(year) > 0) {
+                years.add(FullNameDetailsDTO.YearlyStatDTO.builder()
+                    .year(year)
+                    .count((long) series.countAt(year))
+                    .rank(series.rankAt(year))
+                    .build());
+            }
+        }
+        return years;
+    }
+
     /**
      * Get top famous people with this first name
      */
@@ -0,0 +1,90 @@
+package com.flicknames.service.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of primitive long values.
+ *
+ * Companion to {@link LongLongHashMap} for membership checks over packed keys,
+ * e.g. duplicate detection during bulk imports. Zero cannot be stored (it marks
+ * an empty slot).
+ */
+public class LongHashSet {
+
+    private static final float MAX_LOAD = 0.7f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(1024);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(LongLongHashMap.tableSizeFor(expectedSize));
+    }
+
+    public boolean contains(long key) {
+        return keys[indexOf(key)] != 0L;
+    }
+
+    /**
+     * Add a key
+     *
+     * @return true if the key was not already present
+     */
+    public boolean add(long key) {
+        if (key == 0L) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int index = indexOf(key);
+        if (keys[index] != 0L) {
+            return false;
+        }
+        keys[index] = key;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+
+    private int indexOf(long key) {
+        int index = LongLongHashMap.mix(key) & mask;
+        long existing;
+        while ((existing = keys[index]) != 0L && existing != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        allocate(newCapacity);
+        for (long key : oldKeys) {
+            if (key != 0L) {
+                keys[indexOf(key)] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+}
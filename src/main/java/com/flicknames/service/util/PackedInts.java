@@ -0,0 +1,36 @@
+package com.flicknames.service.util;
+
+/**
+ * Fixed-width big-endian packing of int arrays into byte arrays, for storing year-indexed
+ * series in a single binary column while keeping O(1) access to any element.
+ */
+public final class PackedInts {
+
+    private PackedInts() {
+    }
+
+    public static byte[] pack(int[] values, int from, int length) {
+        byte[] packed = new byte[length * Integer.BYTES];
+        for (int i = 0; i < length; i++) {
+            int value = values[from + i];
+            int at = i * Integer.BYTES;
+            packed[at] = (byte) (value >>> 24);
+            packed[at + 1] = (byte) (value >>> 16);
+            packed[at + 2] = (byte) (value >>> 8);
+            packed[at + 3] = (byte) value;
+        }
+        return packed;
+    }
+
+    public static int length(byte[] packed) {
+        return packed.length / Integer.BYTES;
+    }
+
+    public static int get(byte[] packed, int index) {
+        int at = index * Integer.BYTES;
+        return (packed[at] & 0xFF) << 24
+                | (packed[at + 1] & 0xFF) << 16
+                | (packed[at + 2] & 0xFF) << 8
+                | (packed[at + 3] & 0xFF);
+    }
+}
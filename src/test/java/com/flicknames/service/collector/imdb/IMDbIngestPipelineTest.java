@@ -0,0 +1,111 @@
+package com.flicknames.service.collector.imdb;
+
+import com.flicknames.service.collector.config.IMDbImportConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the pipelined ingest hands out the same rows, line counts and failures as
+ * parsing on the calling thread, across block boundaries, a line longer than one block and resumes.
+ */
+class IMDbIngestPipelineTest {
+
+    private static final int LINES = 6_000;
+    private static final int LONG_LINE = 2_500;
+    private static final int LONG_VALUE = 200_000;
+
+    // Ids ending in 7 are filtered out and ids ending in 3 fail to parse
+    private static final IMDbRowSource.RowParser<String> PARSER = records -> {
+        String id = records.string(0);
+        if (id.endsWith("7")) {
+            return null;
+        }
+        if (id.endsWith("3")) {
+            throw new IllegalArgumentException("Unparseable " + id);
+        }
+        return id + ":" + records.string(1).length();
+    };
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 999, LONG_LINE - 1, LONG_LINE, LONG_LINE + 1, LINES - 1, LINES, LINES + 10})
+    void pipelinedMatchesSerial(long skipLines) throws IOException {
+        byte[] tsv = dataset(true);
+
+        Drained serial = drain(IMDbRowSource.serial(new ByteArrayInputStream(tsv), skipLines, false, PARSER));
+        Drained pipelined = drain(IMDbIngestPipeline.start("test", new ByteArrayInputStream(tsv), skipLines, false,
+                PARSER, settings()));
+
+        assertThat(serial.lines()).isEqualTo(Math.max(0, LINES - skipLines));
+        assertThat(pipelined.lines()).isEqualTo(serial.lines());
+        assertThat(pipelined.rows()).isEqualTo(serial.rows());
+        assertThat(pipelined.failures()).isEqualTo(serial.failures());
+    }
+
+    @Test
+    void keepsLongLineAndLastLineWithoutNewline() throws IOException {
+        byte[] tsv = dataset(false);
+
+        Drained serial = drain(IMDbRowSource.serial(new ByteArrayInputStream(tsv), 0, false, PARSER));
+        Drained pipelined = drain(IMDbIngestPipeline.start("test", new ByteArrayInputStream(tsv), 0, false,
+                PARSER, settings()));
+
+        assertThat(pipelined.rows()).contains(id(LONG_LINE) + ":" + LONG_VALUE, id(LINES - 1) + ":6");
+        assertThat(pipelined.lines()).isEqualTo(LINES);
+        assertThat(pipelined.rows()).isEqualTo(serial.rows());
+        assertThat(pipelined.failures()).isEqualTo(serial.failures());
+    }
+
+    /**
+     * Header plus {@link #LINES} lines of about 20 bytes, so a 64 KB block holds a few thousand,
+     * except line {@link #LONG_LINE}, which is longer than a block
+     */
+    private static byte[] dataset(boolean finalNewline) {
+        StringBuilder tsv = new StringBuilder("tconst\tvalue\n");
+        for (int i = 0; i < LINES; i++) {
+            tsv.append(id(i)).append('\t').append(i == LONG_LINE ? "x".repeat(LONG_VALUE) : "value" + i % 10);
+            if (finalNewline || i < LINES - 1) {
+                tsv.append('\n');
+            }
+        }
+        return tsv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String id(int line) {
+        return String.format("tt%07d", line);
+    }
+
+    private static IMDbImportConfig.Pipeline settings() {
+        IMDbImportConfig.Pipeline settings = new IMDbImportConfig.Pipeline();
+        settings.setWorkers(3);
+        settings.setBlockSizeKb(64);
+        settings.setQueueCapacity(2);
+        return settings;
+    }
+
+    private static Drained drain(IMDbRowSource<String> source) throws IOException {
+        List<String> rows = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        long lines = 0;
+        try (source) {
+            IMDbRowSource.Block<String> block;
+            while ((block = source.next()) != null) {
+                rows.addAll(block.rows());
+                lines += block.lines();
+                block.failures().forEach(failure -> failures.add(failure.message()));
+            }
+        }
+        return new Drained(rows, lines, failures);
+    }
+
+    private record Drained(List<String> rows, long lines, List<String> failures) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.flicknames.service.collector.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the split-based line parsing the importers used with {@link DelimitedRecordReader}
+ * on synthetic SSA state (CSV) and IMDb title.principals (TSV) data.
+ *
+ * Not part of the test suite. Run with:
+ * {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.flicknames.service.collector.io.DelimitedRecordReaderBenchmark}
+ * and add {@code -prof gc} in {@link #main} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DelimitedRecordReaderBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final String[] STATES = {"CA", "NY", "TX", "WA", "FL"};
+    private static final String[] CATEGORIES = {"actor", "actress", "director", "writer", "producer", "self"};
+
+    private byte[] stateCsv;
+    private byte[] principalsTsv;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] names = new String[5_000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Name" + Integer.toString(i, 36);
+        }
+
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(STATES[i % STATES.length]).append(',')
+                    .append(random.nextBoolean() ? 'F' : 'M').append(',')
+                    .append(1910 + random.nextInt(115)).append(',')
+                    .append(names[random.nextInt(names.length)]).append(',')
+                    .append(5 + random.nextInt(5_000)).append('\n');
+        }
+        stateCsv = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder tsv = new StringBuilder("tconst\tordering\tnconst\tcategory\tjob\tcharacters\n");
+        for (int i = 0; i < ROWS; i++) {
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            tsv.append("tt").append(1_000_000 + random.nextInt(9_000_000)).append('\t')
+                    .append(1 + random.nextInt(10)).append('\t')
+                    .append("nm").append(1_000_000 + random.nextInt(9_000_000)).append('\t')
+                    .append(category).append('\t')
+                    .append("\\N").append('\t')
+                    .append(category.startsWith("act") ? "[\"" + names[random.nextInt(names.length)] + "\"]" : "\\N")
+                    .append('\n');
+        }
+        principalsTsv = tsv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void ssaStateSplit(Blackhole blackhole) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(stateCsv), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.split(",");
+            if (parts.length != 5) continue;
+
+            blackhole.consume(parts[0].trim());
+            blackhole.consume(parts[1].trim());
+            blackhole.consume(Integer.parseInt(parts[2].trim()));
+            blackhole.consume(parts[3].trim());
+            blackhole.consume(Integer.parseInt(parts[4].trim()));
+        }
+    }
+
+    @Benchmark
+    public void ssaStateRecordReader(Blackhole blackhole) throws IOException {
+        DelimitedRecordReader reader = DelimitedRecordReader.csv(
+                new ByteArrayInputStream(stateCsv), new StringInterner());
+        while (reader.next()) {
+            if (reader.fieldCount() != 5) continue;
+
+            blackhole.consume(reader.intern(0));
+            blackhole.consume(reader.intern(1));
+            blackhole.consume(reader.parseInt(2));
+            blackhole.consume(reader.intern(3));
+            blackhole.consume(reader.parseInt(4));
+        }
+    }
+
+    @Benchmark
+    public void imdbPrincipalsSplit(Blackhole blackhole) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(principalsTsv), StandardCharsets.UTF_8));
+        reader.readLine();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split("\t", -1);
+
+            blackhole.consume(fields[0]);
+            blackhole.consume(fields[2]);
+            blackhole.consume(fields[3]);
+            blackhole.consume("\\N".equals(fields[4]) ? null : fields[4]);
+            blackhole.consume("\\N".equals(fields[5]) ? null : fields[5]);
+            blackhole.consume(Integer.parseInt(fields[1]));
+        }
+    }
+
+    @Benchmark
+    public void imdbPrincipalsRecordReader(Blackhole blackhole) throws IOException {
+        DelimitedRecordReader reader = DelimitedRecordReader.tsv(
+                new ByteArrayInputStream(principalsTsv), new StringInterner());
+        reader.next();
+        while (reader.next()) {
+            blackhole.consume(reader.string(0));
+            blackhole.consume(reader.string(2));
+            blackhole.consume(reader.intern(3));
+            blackhole.consume(reader.equalsAscii(4, "\\N") ? null : reader.intern(4));
+            blackhole.consume(reader.equalsAscii(5, "\\N") ? null : reader.string(5));
+            blackhole.consume(reader.parseInt(1));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DelimitedRecordReaderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,267 @@
+package com.flicknames.service.collector.ssa;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks top-N answers of the cube, covered by decades, years, regions and states, against
+ * summing the source year by year and state by state.
+ */
+class SsaAggregateCubeTest {
+
+    private static final int FIRST_YEAR = 1963;
+    private static final int LAST_YEAR = 2012;
+    private static final int KEYS = 80;
+    private static final int STATES = 51;
+
+    private final Random random = new Random(17);
+    private StubSource source;
+    private SsaAggregateCube cube;
+
+    @BeforeEach
+    void setUp() {
+        source = new StubSource(random);
+        cube = new SsaAggregateCube(null);
+        cube.rebuild(source);
+    }
+
+    @Test
+    void nationalTopMatchesBruteForce() {
+        for (int i = 0; i < 200; i++) {
+            assertMatches(randomYears(), List.of(), randomSex(), 1 + random.nextInt(20));
+        }
+    }
+
+    @Test
+    void stateTopMatchesBruteForce() {
+        for (int i = 0; i < 500; i++) {
+            assertMatches(randomYears(), randomStates(), randomSex(), 1 + random.nextInt(20));
+        }
+    }
+
+    @Test
+    void wholeRegionsAndRangesPastTheData() {
+        List<String> states = new ArrayList<>(SsaRegion.WEST.getStateCodes());
+        states.addAll(SsaRegion.NORTHEAST.getStateCodes());
+        states.add("TX");
+        assertMatches(new int[]{FIRST_YEAR - 10, LAST_YEAR + 10}, states, null, KEYS);
+        assertMatches(new int[]{1970, 1999}, SsaRegion.SOUTH.getStateCodes(), "F", 10);
+    }
+
+    private void assertMatches(int[] years, List<String> stateCodes, String sex, int limit) {
+        SsaAggregateCube.TopNames actual = cube.top(years[0], years[1], stateCodes, sex, limit);
+        assertThat(actual).as("%d-%d %s %s top %d", years[0], years[1], stateCodes, sex, limit)
+                .isEqualTo(bruteForce(years[0], years[1], stateCodes, sex, limit));
+    }
+
+    private SsaAggregateCube.TopNames bruteForce(int fromYear, int toYear, List<String> stateCodes, String sex,
+                                                 int limit) {
+        int from = Math.max(fromYear, FIRST_YEAR);
+        int to = Math.min(toYear, LAST_YEAR);
+        Set<Integer> ordinals = new LinkedHashSet<>();
+        stateCodes.forEach(code -> ordinals.add(SsaStateCodes.ordinal(code)));
+
+        long[] totals = new long[KEYS];
+        long totalCount = 0;
+        for (int key = 0; key < KEYS; key++) {
+            if (sex != null && !sex.equals(source.sex(key))) {
+                continue;
+            }
+            for (int year = from; year <= to; year++) {
+                if (ordinals.isEmpty()) {
+                    totals[key] += source.count(key, year);
+                } else {
+                    for (int ordinal : ordinals) {
+                        totals[key] += source.stateCount(key, year, ordinal);
+                    }
+                }
+            }
+            totalCount += totals[key];
+        }
+
+        long total = totalCount;
+        List<Integer> best = IntStream.range(0, KEYS).filter(key -> totals[key] > 0).boxed()
+                .sorted(Comparator.<Integer>comparingLong(key -> -totals[key]).thenComparing(key -> key))
+                .limit(limit)
+                .toList();
+        List<SsaAggregateCube.TopName> names = new ArrayList<>();
+        for (int key : best) {
+            names.add(new SsaAggregateCube.TopName(names.size() + 1, source.name(key), source.sex(key), totals[key],
+                    (double) totals[key] / total));
+        }
+        return new SsaAggregateCube.TopNames(from, to, totalCount, names);
+    }
+
+    private int[] randomYears() {
+        int from = FIRST_YEAR - 3 + random.nextInt(LAST_YEAR - FIRST_YEAR + 4);
+        int to = Math.max(from, FIRST_YEAR) + random.nextInt(LAST_YEAR - Math.max(from, FIRST_YEAR) + 4);
+        return new int[]{from, to};
+    }
+
+    private List<String> randomStates() {
+        Set<String> states = new LinkedHashSet<>();
+        switch (random.nextInt(3)) {
+            case 0 -> states.add(SsaStateCodes.code(random.nextInt(STATES)));
+            case 1 -> {
+                SsaRegion region = SsaRegion.values()[random.nextInt(SsaRegion.values().length)];
+                states.addAll(region.getStateCodes());
+                states.add(SsaStateCodes.code(random.nextInt(STATES)));
+            }
+            default -> {
+                int count = 1 + random.nextInt(STATES);
+                for (int i = 0; i < count; i++) {
+                    states.add(SsaStateCodes.code(random.nextInt(STATES)));
+                }
+            }
+        }
+        return new ArrayList<>(states);
+    }
+
+    private String randomSex() {
+        return switch (random.nextInt(3)) {
+            case 0 -> "F";
+            case 1 -> "M";
+            default -> null;
+        };
+    }
+
+    /**
+     * Random national and state counts with gaps. Key 0 spans all years, every tenth key has no
+     * data and the others cover part of the years.
+     */
+    private static final class StubSource implements SsaSeriesSource {
+
+        private final int[] firstYears = new int[KEYS];
+        private final int[] lastYears = new int[KEYS];
+        private final int[][] counts = new int[KEYS][LAST_YEAR - FIRST_YEAR + 1];
+        private final int[][][] stateCounts = new int[KEYS][LAST_YEAR - FIRST_YEAR + 1][STATES];
+
+        StubSource(Random random) {
+            for (int key = 0; key < KEYS; key++) {
+                if (key % 10 == 9) {
+                    continue;
+                }
+                firstYears[key] = key == 0 ? FIRST_YEAR : FIRST_YEAR + random.nextInt(20);
+                lastYears[key] = key == 0 ? LAST_YEAR : LAST_YEAR - random.nextInt(20);
+                for (int year = firstYears[key]; year <= lastYears[key]; year++) {
+                    if (random.nextInt(8) == 0) {
+                        continue;
+                    }
+                    counts[key][year - FIRST_YEAR] = 5 + random.nextInt(5_000);
+                    for (int ordinal = 0; ordinal < STATES; ordinal++) {
+                        if (random.nextInt(3) > 0) {
+                            stateCounts[key][year - FIRST_YEAR][ordinal] = 5 + random.nextInt(200);
+                        }
+                    }
+                }
+            }
+        }
+
+        int stateCount(int key, int year, int ordinal) {
+            return year < firstYears[key] || year > lastYears[key]
+                    ? 0 : stateCounts[key][year - FIRST_YEAR][ordinal];
+        }
+
+        @Override
+        public int key(String name, String sex) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int size() {
+            return KEYS;
+        }
+
+        @Override
+        public int cellCount() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String name(int key) {
+            return "Name" + key;
+        }
+
+        @Override
+        public String sex(int key) {
+            return key % 2 == 0 ? "F" : "M";
+        }
+
+        @Override
+        public int firstYear(int key) {
+            return firstYears[key];
+        }
+
+        @Override
+        public int lastYear(int key) {
+            return lastYears[key];
+        }
+
+        @Override
+        public int count(int key, int year) {
+            return year < firstYears[key] || year > lastYears[key] ? 0 : counts[key][year - FIRST_YEAR];
+        }
+
+        @Override
+        public int rank(int key, int year) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long total(int key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int peakYear(int key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int peakCount(int key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int bestRank(int key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int bestRankYear(int key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<SsaSeries.StateStat> states(int key, int year) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasStates() {
+            return true;
+        }
+
+        @Override
+        public void forEachState(int key, StateVisitor visitor) {
+            for (int year = firstYears[key]; lastYears[key] != 0 && year <= lastYears[key]; year++) {
+                for (int ordinal = 0; ordinal < STATES; ordinal++) {
+                    int count = stateCounts[key][year - FIRST_YEAR][ordinal];
+                    if (count > 0) {
+                        visitor.visit(year, ordinal, count);
+                    }
+                }
+            }
+        }
+    }
+}